@@ -0,0 +1,171 @@
+package net.ai.chatbot.service;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import net.ai.chatbot.dto.Attachment;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.core.io.Resource;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MongoDB bytes read per attachment download: {@link AttachmentStorageService#openFile(String)}
+ * against the previous path, getFileMetadata with {@code data} in its projection followed by a
+ * full-document read of the content. A {@link CommandListener} adds up the size of every reply;
+ * the bytes read per download are printed when each benchmark ends. Attachments stored inline
+ * (before GridFS) had their payload read twice, now once.
+ * <p>
+ * Needs a MongoDB, {@code mongodb://localhost:27017} unless given with
+ * {@code -p mongoUri=...}; the {@code attachment_download_benchmark} database is dropped before
+ * and after each run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AttachmentDownloadBenchmark {
+
+    private static final String DATABASE = "attachment_download_benchmark";
+
+    private static final BsonDocumentCodec CODEC = new BsonDocumentCodec();
+
+    @Param({"mongodb://localhost:27017"})
+    private String mongoUri;
+
+    @Param({"inline", "gridfs"})
+    private String storage;
+
+    @Param({"1048576"})
+    private int fileSize;
+
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong downloads = new AtomicLong();
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private GridFsTemplate gridFsTemplate;
+    private AttachmentStorageService storageService;
+    private String fileId;
+
+    @Setup
+    public void storeAttachment() throws IOException {
+        client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(mongoUri))
+                .addCommandListener(new CommandListener() {
+                    @Override
+                    public void commandSucceeded(CommandSucceededEvent event) {
+                        bytesRead.addAndGet(replySize(event.getResponse()));
+                    }
+                })
+                .build());
+
+        mongoTemplate = new MongoTemplate(client, DATABASE);
+        mongoTemplate.getDb().drop();
+        gridFsTemplate = new GridFsTemplate(new SimpleMongoClientDatabaseFactory(client, DATABASE), mongoTemplate.getConverter());
+        storageService = new AttachmentStorageService(mongoTemplate, gridFsTemplate);
+
+        byte[] content = new byte[fileSize];
+        new Random(42).nextBytes(content);
+
+        Attachment attachment = Attachment.builder()
+                .chatbotId("benchmark")
+                .name("benchmark.bin")
+                .type("application/octet-stream")
+                .size(fileSize)
+                .uploadedAt(new Date())
+                .build();
+
+        if (storage.equals("gridfs")) {
+            fileId = storageService.storeAttachmentInMongoDB(attachment, new ByteArrayInputStream(content), "benchmark").getFileId();
+        } else {
+            attachment.setData(content);
+            fileId = mongoTemplate.save(attachment).getId();
+        }
+
+        bytesRead.set(0);
+        downloads.set(0);
+    }
+
+    @TearDown
+    public void report(BenchmarkParams params) {
+        System.out.printf("%n%s (%s, %d bytes): %d MongoDB bytes read per download%n",
+                params.getBenchmark(), storage, fileSize, bytesRead.get() / Math.max(downloads.get(), 1));
+
+        mongoTemplate.getDb().drop();
+        client.close();
+    }
+
+    @Benchmark
+    public long singleReadPath() throws IOException {
+        AttachmentStorageService.StoredFile file = storageService.openFile(fileId);
+        downloads.incrementAndGet();
+        return file.metadata().getFileSize() + drain(file.content());
+    }
+
+    @Benchmark
+    public long twoReads() throws IOException {
+        Query metadataQuery = new Query(Criteria.where("_id").is(fileId));
+        metadataQuery.fields()
+                .include("_id")
+                .include("name")
+                .include("type")
+                .include("chatbotId")
+                .include("size")
+                .include("length")
+                .include("uploadedAt")
+                .include("data");
+        Attachment metadata = mongoTemplate.findOne(metadataQuery, Attachment.class);
+
+        Attachment attachment = mongoTemplate.findOne(new Query(Criteria.where("_id").is(fileId)), Attachment.class);
+        downloads.incrementAndGet();
+
+        if (attachment.getGridFsId() == null) {
+            return metadata.getSize() + attachment.getData().length;
+        }
+
+        GridFSFile gridFSFile = gridFsTemplate.findOne(new Query(Criteria.where("_id").is(new ObjectId(attachment.getGridFsId()))));
+        return metadata.getSize() + drain(gridFsTemplate.getResource(gridFSFile));
+    }
+
+    // Reads the content like a client would, returning its length
+    private static long drain(Resource content) throws IOException {
+        byte[] buffer = new byte[8192];
+        long length = 0;
+        try (InputStream in = content.getInputStream()) {
+            for (int read; (read = in.read(buffer)) != -1; ) {
+                length += read;
+            }
+        }
+        return length;
+    }
+
+    private static long replySize(BsonDocument reply) {
+        if (reply instanceof RawBsonDocument raw) {
+            return raw.getByteBuffer().remaining();
+        }
+        return new RawBsonDocument(reply, CODEC).getByteBuffer().remaining();
+    }
+}
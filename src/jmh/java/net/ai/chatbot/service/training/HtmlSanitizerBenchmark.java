@@ -0,0 +1,103 @@
+package net.ai.chatbot.service.training;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Semantic text extraction per page, single-pass {@link HtmlSanitizer} against the map-based
+ * {@link LegacyHtmlSanitizer}. Run with {@code ./gradlew jmh}; the gc profiler reports
+ * allocation per operation (gc.alloc.rate.norm).
+ * <p>
+ * The bundled pages (blog article, product listing, docs page) are stand-ins. Point {@code corpus}
+ * at a directory of saved .html pages to benchmark real sites, e.g.
+ * {@code java -jar build/libs/*-jmh.jar -p corpus=/path/to/pages -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HtmlSanitizerBenchmark {
+
+    private static final List<String> BUNDLED_PAGES = List.of("blog-article.html", "product-listing.html", "docs-page.html");
+
+    private static final String BASE_URL = "https://www.example-store.com/page";
+
+    @Param({""})
+    private String corpus;
+
+    private List<String> pages;
+    private int next;
+
+    @Setup
+    public void loadPages() throws IOException {
+        pages = corpus.isBlank() ? bundledPages() : savedPages(Path.of(corpus));
+
+        if (pages.isEmpty()) {
+            throw new IllegalStateException("No .html pages in " + corpus);
+        }
+
+        for (String page : pages) {
+            String expected = LegacyHtmlSanitizer.mapToSemanticText(LegacyHtmlSanitizer.extractStructuredContent(page, BASE_URL));
+            if (!expected.equals(HtmlSanitizer.extractSemanticText(page, BASE_URL))) {
+                throw new IllegalStateException("Single-pass extraction differs from the legacy extractor");
+            }
+        }
+    }
+
+    @Benchmark
+    public String singlePass() {
+        return HtmlSanitizer.extractSemanticText(nextPage(), BASE_URL);
+    }
+
+    @Benchmark
+    public String legacy() {
+        return LegacyHtmlSanitizer.mapToSemanticText(LegacyHtmlSanitizer.extractStructuredContent(nextPage(), BASE_URL));
+    }
+
+    // Cycles through the corpus, so each operation is one page
+    private String nextPage() {
+        String page = pages.get(next);
+        next = (next + 1) % pages.size();
+        return page;
+    }
+
+    private static List<String> bundledPages() throws IOException {
+        List<String> pages = new ArrayList<>();
+        for (String name : BUNDLED_PAGES) {
+            try (InputStream in = HtmlSanitizerBenchmark.class.getResourceAsStream("/pages/" + name)) {
+                if (in == null) {
+                    throw new IllegalStateException("Missing bundled page " + name);
+                }
+                pages.add(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return pages;
+    }
+
+    private static List<String> savedPages(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".html"))
+                    .sorted()
+                    .map(file -> {
+                        try {
+                            return Files.readString(file);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .toList();
+        }
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import net.ai.chatbot.service.openai.DomainService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.core.annotation.Order;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.web.SecurityFilterChain;
@@ -13,6 +14,7 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import java.util.List;
 
 @Configuration
+@Profile("!crawler-worker")
 public class ApiConfig {
 
     /**
@@ -43,8 +45,9 @@ public class ApiConfig {
                 .csrf(csrf -> csrf.disable())
                 .cors(cors -> cors.configurationSource(corsConfigurationSource(domainService)))
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/v1/api/mcp/**","/actuator/**","/api/social-auth/**", "/api/**","/v1/api/n8n/anonymous/**","/v1/api/public/**")
+                        .requestMatchers("/v1/api/mcp/**","/actuator/health","/actuator/health/**","/api/social-auth/**", "/api/**","/v1/api/n8n/anonymous/**","/v1/api/public/**")
                         .permitAll()
+                        // Other actuator endpoints (metrics, trainingqueues) fall through to authenticated
                         .anyRequest().authenticated()
                 )
                 .oauth2ResourceServer(oauth2 -> oauth2
@@ -0,0 +1,32 @@
+package net.ai.chatbot.config;
+
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.web.SecurityFilterChain;
+
+/**
+ * Security of crawler workers, which serve actuator only ({@link ApiConfig} and the controllers
+ * are off under the {@code crawler-worker} profile). Health and metrics are open, as the crawl
+ * meters are only recorded on the workers; the worker's port is not published outside the
+ * container network.
+ */
+@Configuration
+@Profile("crawler-worker")
+public class CrawlerWorkerSecurityConfig {
+
+    @Bean
+    public SecurityFilterChain crawlerWorkerFilterChain(HttpSecurity http) throws Exception {
+        http
+                .csrf(csrf -> csrf.disable())
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers(EndpointRequest.to("health", "metrics"))
+                        .permitAll()
+                        .anyRequest().denyAll()
+                );
+
+        return http.build();
+    }
+}
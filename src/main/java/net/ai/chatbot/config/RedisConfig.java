@@ -2,10 +2,23 @@ package net.ai.chatbot.config;
 
 import io.lettuce.core.ClientOptions;
 import io.lettuce.core.SocketOptions;
+import net.ai.chatbot.enums.TrainingLane;
+import net.ai.chatbot.service.aichatbot.FileUploadService;
 import net.ai.chatbot.service.mongodb.MongodbVectorService;
 import net.ai.chatbot.service.n8n.N8nWebhookService;
+import net.ai.chatbot.service.redis.CrawlWorker;
 import net.ai.chatbot.service.redis.KnowledgebaseProcessor;
 import net.ai.chatbot.service.redis.RedisConsumerGroupService;
+import net.ai.chatbot.service.redis.TenantFairScheduler;
+import net.ai.chatbot.service.redis.TrainingPipelineExecutor;
+import net.ai.chatbot.service.redis.TrainingStreamHeartbeat;
+import net.ai.chatbot.service.training.DirectEmbeddingIngestionService;
+import net.ai.chatbot.service.training.KnowledgeBaseManifestService;
+import net.ai.chatbot.service.training.KnowledgeChunker;
+import net.ai.chatbot.service.training.PageDeduplicator;
+import net.ai.chatbot.service.training.PlaywrightWebsiteCrawler;
+import net.ai.chatbot.service.training.RemoteCrawlService;
+import net.ai.chatbot.service.training.TrainingProgressService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -25,8 +38,11 @@ import org.springframework.data.redis.stream.Subscription;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
-import static net.ai.chatbot.constants.Constants.CHAT_BOT_CREATE_EVENT_STREAM;
+import static net.ai.chatbot.constants.Constants.CRAWL_JOB_STREAM;
+import static net.ai.chatbot.constants.Constants.CRAWL_WORKER_GROUP;
 import static net.ai.chatbot.constants.Constants.REDIS_STREAM_SERVER_GROUP;
 
 @Configuration
@@ -47,6 +63,18 @@ public class RedisConfig {
     @Value("${n8n.webhook.knowledgebase.train.url}")
     private String webhookKnowledgebaseTrainUrl;
 
+    @Value("${training.stream.consumers:4}")
+    private int streamConsumers;
+
+    @Value("${training.stream.interactive-consumers:4}")
+    private int interactiveStreamConsumers;
+
+    @Value("${training.stream.poll-timeout-ms:2000}")
+    private long streamPollTimeoutMs;
+
+    @Value("${crawler.worker.consumers:0}")
+    private int crawlWorkerConsumers;
+
     private final RedisConsumerGroupService redisConsumerGroupService;
 
     public RedisConfig(RedisConsumerGroupService redisConsumerGroupService) {
@@ -110,42 +138,110 @@ public class RedisConfig {
     @Bean(destroyMethod = "stop")
     public StreamMessageListenerContainer<String, ObjectRecord<String, String>> streamMessageListenerContainer(RedisConnectionFactory connectionFactory) {
 
+        // One entry per read, so a busy consumer never holds tasks that an idle one could take
         StreamMessageListenerContainer.StreamMessageListenerContainerOptions<String, ObjectRecord<String, String>> options =
                 StreamMessageListenerContainer.StreamMessageListenerContainerOptions
                         .builder()
-                        .pollTimeout(Duration.ofMillis(100))
+                        .pollTimeout(Duration.ofMillis(streamPollTimeoutMs))
+                        .batchSize(1)
                         .targetType(String.class)
                         .build();
 
         return StreamMessageListenerContainer.create(connectionFactory, options);
     }
 
+    /**
+     * Registers consumers for both training lanes on this node: {@code training.stream.consumers}
+     * on the background stream and {@code training.stream.interactive-consumers} on the interactive
+     * stream, named {@code <hostname>-<lane>-<n>}. Entries are acknowledged by the listener after success.
+     */
     @Bean
-    public Subscription websiteTrainStreamSubscription(
+    public List<Subscription> websiteTrainStreamSubscriptions(
             StreamMessageListenerContainer<String, ObjectRecord<String, String>> container,
-            MongoTemplate mongoTemplate,
-            MongodbVectorService mongodbVectorService,
-            N8nWebhookService n8nWebhookService
+            StreamListener<String, ObjectRecord<String, String>> purchaseStreamListener
     ) throws UnknownHostException {
 
-        redisConsumerGroupService
-                .createConsumerGroupIfNotExists(redisConnectionFactory(), CHAT_BOT_CREATE_EVENT_STREAM, REDIS_STREAM_SERVER_GROUP);
+        String hostName = InetAddress.getLocalHost().getHostName();
+
+        container.start();
+
+        List<Subscription> subscriptions = new ArrayList<>();
+
+        for (TrainingLane lane : TrainingLane.values()) {
+            redisConsumerGroupService
+                    .createConsumerGroupIfNotExists(redisConnectionFactory(), lane.getStreamKey(), REDIS_STREAM_SERVER_GROUP);
 
-        StreamOffset<String> streamOffset = StreamOffset.create(CHAT_BOT_CREATE_EVENT_STREAM, ReadOffset.lastConsumed());
+            StreamOffset<String> streamOffset = StreamOffset.create(lane.getStreamKey(), ReadOffset.lastConsumed());
+            int consumers = lane == TrainingLane.INTERACTIVE ? interactiveStreamConsumers : streamConsumers;
+
+            for (int i = 0; i < consumers; i++) {
+                StreamMessageListenerContainer.StreamReadRequest<String> readRequest =
+                        StreamMessageListenerContainer.StreamReadRequest.builder(streamOffset)
+                                .consumer(Consumer.from(REDIS_STREAM_SERVER_GROUP, hostName + "-" + lane.name().toLowerCase() + "-" + i))
+                                .autoAcknowledge(false)
+                                .cancelOnError(e -> false)
+                                .build();
+
+                subscriptions.add(container.register(readRequest, purchaseStreamListener));
+            }
+        }
+
+        return subscriptions;
+    }
+
+    /**
+     * Registers {@code crawler.worker.consumers} crawl-job consumers, named {@code <hostname>-crawl-<n>};
+     * none unless the node runs the crawler-worker profile. Each consumer runs one crawl at a time.
+     */
+    @Bean
+    public List<Subscription> crawlJobStreamSubscriptions(
+            StreamMessageListenerContainer<String, ObjectRecord<String, String>> container,
+            CrawlWorker crawlWorker
+    ) throws UnknownHostException {
+
+        String hostName = InetAddress.getLocalHost().getHostName();
+
+        // Created on every node, so jobs queued before the first worker starts are not skipped
+        redisConsumerGroupService
+                .createConsumerGroupIfNotExists(redisConnectionFactory(), CRAWL_JOB_STREAM, CRAWL_WORKER_GROUP);
 
         container.start();
 
-        return container.receive(
-                Consumer.from(REDIS_STREAM_SERVER_GROUP, InetAddress.getLocalHost().getHostName()),
-                streamOffset,
-                purchaseStreamListener(mongoTemplate, mongodbVectorService, n8nWebhookService)
-        );
+        StreamOffset<String> streamOffset = StreamOffset.create(CRAWL_JOB_STREAM, ReadOffset.lastConsumed());
+        List<Subscription> subscriptions = new ArrayList<>();
+
+        for (int i = 0; i < crawlWorkerConsumers; i++) {
+            StreamMessageListenerContainer.StreamReadRequest<String> readRequest =
+                    StreamMessageListenerContainer.StreamReadRequest.builder(streamOffset)
+                            .consumer(Consumer.from(CRAWL_WORKER_GROUP, hostName + "-crawl-" + i))
+                            .autoAcknowledge(false)
+                            .cancelOnError(e -> false)
+                            .build();
+
+            subscriptions.add(container.register(readRequest, crawlWorker::onMessage));
+        }
+
+        return subscriptions;
     }
 
     @Bean
     public StreamListener<String, ObjectRecord<String, String>> purchaseStreamListener(MongoTemplate mongoTemplate,
                                                                                        MongodbVectorService mongodbVectorService,
-                                                                                       N8nWebhookService n8nWebhookService) {
-        return new KnowledgebaseProcessor(mongoTemplate, mongodbVectorService, n8nWebhookService, webhookKnowledgebaseTrainUrl);
+                                                                                       N8nWebhookService n8nWebhookService,
+                                                                                       TrainingPipelineExecutor trainingPipelineExecutor,
+                                                                                       TenantFairScheduler tenantFairScheduler,
+                                                                                       TrainingStreamHeartbeat trainingStreamHeartbeat,
+                                                                                       KnowledgeBaseManifestService knowledgeBaseManifestService,
+                                                                                       KnowledgeChunker knowledgeChunker,
+                                                                                       DirectEmbeddingIngestionService directEmbeddingIngestionService,
+                                                                                       TrainingProgressService trainingProgressService,
+                                                                                       FileUploadService fileUploadService,
+                                                                                       PlaywrightWebsiteCrawler playwrightWebsiteCrawler,
+                                                                                       PageDeduplicator pageDeduplicator,
+                                                                                       RemoteCrawlService remoteCrawlService,
+                                                                                       RedisTemplate<String, String> redisTemplate) {
+        return new KnowledgebaseProcessor(mongoTemplate, mongodbVectorService, n8nWebhookService, trainingPipelineExecutor, tenantFairScheduler,
+                trainingStreamHeartbeat, knowledgeBaseManifestService, knowledgeChunker, directEmbeddingIngestionService, trainingProgressService,
+                fileUploadService, playwrightWebsiteCrawler, pageDeduplicator, remoteCrawlService, redisTemplate, webhookKnowledgebaseTrainUrl);
     }
 }
\ No newline at end of file
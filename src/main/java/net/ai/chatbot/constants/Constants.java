@@ -3,6 +3,11 @@ package net.ai.chatbot.constants;
 public class Constants {
 
     public static final String CHAT_BOT_CREATE_EVENT_STREAM = "chatbot-create-eventstream";
+    public static final String CHAT_BOT_INTERACTIVE_EVENT_STREAM = "chatbot-interactive-eventstream";
+    public static final String CHAT_BOT_CREATE_DEAD_LETTER_STREAM = "chatbot-create-eventstream-dlq";
+    public static final String CRAWL_JOB_STREAM = "crawl-job-stream";
+    public static final String CRAWL_RESULT_STREAM_PREFIX = "crawl-results:";
+    public static final String CRAWL_WORKER_GROUP = "crawl-worker-group";
     //Have to make this dybamic so that multiple application get a unique stream consumer group
     public static final String REDIS_STREAM_SERVER_GROUP = "redis-stream-server-group-1";
 
@@ -8,6 +8,7 @@ import net.ai.chatbot.service.aichatbot.ChatBotService;
 import net.ai.chatbot.service.n8n.GenericN8NService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,6 +17,7 @@ import java.util.Map;
 
 @Slf4j
 @RestController
+@Profile("!crawler-worker")
 @CrossOrigin(originPatterns = "*", allowCredentials = "true", allowedHeaders = "*")
 @RequestMapping("/v1/api/n8n/anonymous")
 public class AnonymousUserChatN8NController {
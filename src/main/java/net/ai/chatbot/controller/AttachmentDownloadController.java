@@ -6,12 +6,17 @@ import net.ai.chatbot.dto.AttachmentStorageResult;
 import net.ai.chatbot.dto.FileMetadata;
 import net.ai.chatbot.service.AttachmentStorageService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -20,11 +25,15 @@ import java.util.Map;
  * Controller for file upload/download operations
  */
 @RestController
+@Profile("!crawler-worker")
 @RequestMapping("/api/attachments")
 @CrossOrigin(originPatterns = "*", allowCredentials = "true", allowedHeaders = "*")
 @Slf4j
 public class AttachmentDownloadController {
 
+    // Revalidated with the ETag once expired
+    private static final CacheControl DOWNLOAD_CACHE_CONTROL = CacheControl.maxAge(Duration.ofHours(1)).cachePrivate();
+
     @Autowired
     private AttachmentStorageService attachmentStorageService;
 
@@ -43,11 +52,13 @@ public class AttachmentDownloadController {
                 .chatbotId(chatbotId)
                 .type(file.getContentType())
                 .size(file.getSize())
-                .data(file.getBytes())
                 .uploadedAt(new Date())
                 .build();
 
-        AttachmentStorageResult result = attachmentStorageService.storeAttachmentInMongoDB(attachment, chatbotId);
+        AttachmentStorageResult result;
+        try (InputStream content = file.getInputStream()) {
+            result = attachmentStorageService.storeAttachmentInMongoDB(attachment, content, chatbotId);
+        }
 
         log.info("Uploaded: {}", result.getFileId());
 
@@ -55,20 +66,31 @@ public class AttachmentDownloadController {
     }
 
     /**
-     * Download file by fileId
+     * Download file by fileId. Byte ranges (206) and conditional requests (304 for a matching
+     * If-None-Match or If-Modified-Since) are answered by Spring from the Resource body and the
+     * ETag and Last-Modified headers.
      */
     @GetMapping("/download/{fileId}")
-    public ResponseEntity<byte[]> downloadFile(@PathVariable String fileId) {
+    public ResponseEntity<Resource> downloadFile(@PathVariable String fileId) {
 
         log.info("Download: {}", fileId);
 
-        FileMetadata metadata = attachmentStorageService.getFileMetadata(fileId);
-        byte[] content = attachmentStorageService.getFileContent(fileId);
+        AttachmentStorageService.StoredFile file = attachmentStorageService.openFile(fileId);
+        if (file == null) {
+            return ResponseEntity.notFound().build();
+        }
 
-        return ResponseEntity.ok()
+        FileMetadata metadata = file.metadata();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + metadata.getFileName() + "\"")
                 .header(HttpHeaders.CONTENT_TYPE, metadata.getMimeType())
-                .body(content);
+                .eTag(AttachmentStorageService.eTag(metadata))
+                .cacheControl(DOWNLOAD_CACHE_CONTROL);
+        if (metadata.getUploadedAt() > 0) {
+            response.lastModified(metadata.getUploadedAt());
+        }
+
+        return response.body(file.content());
     }
 
     /**
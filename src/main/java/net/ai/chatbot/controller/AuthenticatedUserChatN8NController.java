@@ -14,6 +14,7 @@ import net.ai.chatbot.service.n8n.GenericN8NService;
 import net.ai.chatbot.utils.AuthUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -29,6 +30,7 @@ import java.util.Map;
  */
 @Slf4j
 @RestController
+@Profile("!crawler-worker")
 @CrossOrigin(originPatterns = "*", allowCredentials = "true", allowedHeaders = "*")
 @RequestMapping("/v1/api/n8n/authenticated")
 public class AuthenticatedUserChatN8NController {
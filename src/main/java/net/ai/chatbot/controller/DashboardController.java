@@ -4,14 +4,21 @@ import lombok.extern.slf4j.Slf4j;
 import net.ai.chatbot.dto.dashboard.*;
 import net.ai.chatbot.service.dashboard.DashboardService;
 import net.ai.chatbot.utils.AuthUtils;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 @Slf4j
 @RestController
+@Profile("!crawler-worker")
 @CrossOrigin(originPatterns = "*", allowCredentials = "true", allowedHeaders = "*")
 @RequestMapping("/v1/api/dashboard")
 public class DashboardController {
@@ -119,6 +126,49 @@ public class DashboardController {
         }
     }
 
+    /**
+     * Export per-chatbot daily usage as CSV or NDJSON (streamed)
+     * GET /v1/api/dashboard/export/usage?from=2024-01-01&to=2024-12-31&format=csv
+     */
+    @GetMapping("/export/usage")
+    public ResponseEntity<StreamingResponseBody> exportUsage(
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam(defaultValue = "csv") String format) {
+
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+        if (!ndjson && !"csv".equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        LocalDate fromDate;
+        LocalDate toDate;
+        try {
+            fromDate = LocalDate.parse(from);
+            toDate = LocalDate.parse(to);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        if (toDate.isBefore(fromDate)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            log.info("Exporting usage from {} to {} as {} for user: {}", fromDate, toDate, format, AuthUtils.getEmail());
+            StreamingResponseBody body = dashboardService.exportUsageOverTime(fromDate, toDate, ndjson);
+            String fileName = "usage-" + fromDate + "-" + toDate + (ndjson ? ".ndjson" : ".csv");
+
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                    .contentType(ndjson ? MediaType.parseMediaType("application/x-ndjson") : MediaType.parseMediaType("text/csv"))
+                    .body(body);
+        } catch (Exception e) {
+            log.error("Error exporting usage", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     /**
      * Get top chatbots by activity
      * GET /v1/api/dashboard/top/chatbots?limit=10
@@ -9,6 +9,7 @@ import net.ai.chatbot.service.googlecalendar.ChatbotOwnershipService;
 import net.ai.chatbot.service.googlecalendar.GoogleOAuthService;
 import net.ai.chatbot.utils.AuthUtils;
 import net.ai.chatbot.utils.EncryptionUtils;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -22,6 +23,7 @@ import java.util.TimeZone;
  * REST Controller for Google Calendar OAuth integration
  */
 @RestController
+@Profile("!crawler-worker")
 @RequestMapping("/v1/api/chatbot/google-calendar")
 @Slf4j
 @CrossOrigin(originPatterns = "*", allowCredentials = "true", allowedHeaders = "*")
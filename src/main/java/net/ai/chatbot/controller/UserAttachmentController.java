@@ -7,12 +7,17 @@ import net.ai.chatbot.dto.FileMetadata;
 import net.ai.chatbot.service.AttachmentStorageService;
 import net.ai.chatbot.utils.AuthUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -22,10 +27,14 @@ import java.util.Map;
  * All operations scoped to authenticated user (from JWT).
  */
 @RestController
+@Profile("!crawler-worker")
 @RequestMapping("/v1/api/user/attachments")
 @Slf4j
 public class UserAttachmentController {
 
+    // Revalidated with the ETag once expired
+    private static final CacheControl DOWNLOAD_CACHE_CONTROL = CacheControl.maxAge(Duration.ofHours(1)).cachePrivate();
+
     @Autowired
     private AttachmentStorageService attachmentStorageService;
 
@@ -51,11 +60,13 @@ public class UserAttachmentController {
                 .chatbotId(userId) // Using chatbotId field to store userId
                 .type(file.getContentType())
                 .size(file.getSize())
-                .data(file.getBytes())
                 .uploadedAt(new Date())
                 .build();
 
-        AttachmentStorageResult result = attachmentStorageService.storeAttachmentInMongoDB(attachment, userId);
+        AttachmentStorageResult result;
+        try (InputStream content = file.getInputStream()) {
+            result = attachmentStorageService.storeAttachmentInMongoDB(attachment, content, userId);
+        }
 
         log.info("User {} uploaded file: {}", userId, result.getFileId());
 
@@ -65,11 +76,12 @@ public class UserAttachmentController {
     /**
      * Download file by fileId (user-specific).
      * Only returns file if it belongs to authenticated user.
+     * Supports byte ranges (206) and conditional requests (304), see {@link AttachmentDownloadController}.
      * 
      * GET /v1/api/user/attachments/download/{fileId}
      */
     @GetMapping("/download/{fileId}")
-    public ResponseEntity<byte[]> downloadFile(@PathVariable String fileId) {
+    public ResponseEntity<Resource> downloadFile(@PathVariable String fileId) {
 
         String userId = AuthUtils.getUserId();
         if (userId == null) {
@@ -78,20 +90,22 @@ public class UserAttachmentController {
 
         log.info("User {} downloading file: {}", userId, fileId);
 
-        FileMetadata metadata = attachmentStorageService.getFileMetadata(fileId);
-        if (metadata == null) {
+        AttachmentStorageService.StoredFile file = attachmentStorageService.openFile(fileId);
+        if (file == null) {
             return ResponseEntity.notFound().build();
         }
 
-        byte[] content = attachmentStorageService.getFileContent(fileId);
-        if (content == null) {
-            return ResponseEntity.notFound().build();
-        }
-
-        return ResponseEntity.ok()
+        FileMetadata metadata = file.metadata();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + metadata.getFileName() + "\"")
                 .header(HttpHeaders.CONTENT_TYPE, metadata.getMimeType())
-                .body(content);
+                .eTag(AttachmentStorageService.eTag(metadata))
+                .cacheControl(DOWNLOAD_CACHE_CONTROL);
+        if (metadata.getUploadedAt() > 0) {
+            response.lastModified(metadata.getUploadedAt());
+        }
+
+        return response.body(file.content());
     }
 
     /**
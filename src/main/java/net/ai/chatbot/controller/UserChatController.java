@@ -6,6 +6,7 @@ import net.ai.chatbot.dto.ChatMessage;
 import net.ai.chatbot.entity.ChatHistory;
 import net.ai.chatbot.utils.AuthUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -16,6 +17,7 @@ import java.util.List;
 
 @Slf4j
 @RestController
+@Profile("!crawler-worker")
 @CrossOrigin(originPatterns = "*", allowCredentials = "true", allowedHeaders = "*")
 @RequestMapping("/v1/api")
 public class UserChatController {
@@ -6,6 +6,7 @@ import net.ai.chatbot.dto.UserChatHistoryResponse;
 import net.ai.chatbot.service.mongodb.UserChatHistoryService;
 import net.ai.chatbot.utils.AuthUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -13,6 +14,7 @@ import java.util.List;
 
 @Slf4j
 @RestController
+@Profile("!crawler-worker")
 @CrossOrigin(originPatterns = "*", allowCredentials = "true", allowedHeaders = "*")
 @RequestMapping("/v1/api")
 public class UserChatHistoryApiController {
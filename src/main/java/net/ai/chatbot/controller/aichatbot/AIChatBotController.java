@@ -5,12 +5,17 @@ import lombok.extern.slf4j.Slf4j;
 import net.ai.chatbot.dto.aichatbot.*;
 import net.ai.chatbot.entity.ChatBot;
 import net.ai.chatbot.entity.KnowledgeBase;
+import net.ai.chatbot.entity.TrainingProgress;
 import net.ai.chatbot.service.aichatbot.ChatBotService;
 import net.ai.chatbot.service.googlecalendar.ChatbotOwnershipService;
+import net.ai.chatbot.service.training.TrainingProgressService;
 import net.ai.chatbot.utils.AuthUtils;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Date;
 import java.util.List;
@@ -19,16 +24,21 @@ import java.util.stream.Collectors;
 
 @Slf4j
 @RestController
+@Profile("!crawler-worker")
 @CrossOrigin(originPatterns = "*", allowCredentials = "true", allowedHeaders = "*")
 @RequestMapping("/v1/api/chatbot")
 public class AIChatBotController {
 
     private final ChatBotService chatBotService;
     private final ChatbotOwnershipService chatbotOwnershipService;
+    private final TrainingProgressService trainingProgressService;
 
-    public AIChatBotController(ChatBotService chatBotService, ChatbotOwnershipService chatbotOwnershipService) {
+    public AIChatBotController(ChatBotService chatBotService,
+                               ChatbotOwnershipService chatbotOwnershipService,
+                               TrainingProgressService trainingProgressService) {
         this.chatBotService = chatBotService;
         this.chatbotOwnershipService = chatbotOwnershipService;
+        this.trainingProgressService = trainingProgressService;
     }
 
     /**
@@ -151,6 +161,47 @@ public class AIChatBotController {
         return ResponseEntity.ok(chatBotService.getKnowledgeBaseList(id));
     }
 
+    /**
+     * Get progress of the latest training of a chatbot
+     * GET /v1/api/chatbot/{id}/training/progress
+     */
+    @GetMapping("/{id}/training/progress")
+    public ResponseEntity<TrainingProgress> getTrainingProgress(@PathVariable String id) {
+        try {
+            chatbotOwnershipService.verifyCanView(id, AuthUtils.getEmail());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        TrainingProgress progress = trainingProgressService.getLatestProgress(id);
+
+        if (progress == null) {
+            return ResponseEntity.noContent().build();
+        }
+
+        return ResponseEntity.ok(progress);
+    }
+
+    /**
+     * Stream training progress as server-sent "progress" events until training completes or fails,
+     * or a single "none" event if the chatbot was never trained
+     * GET /v1/api/chatbot/{id}/training/progress/stream
+     */
+    @GetMapping(value = "/{id}/training/progress/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamTrainingProgress(@PathVariable String id) {
+        try {
+            chatbotOwnershipService.verifyCanView(id, AuthUtils.getEmail());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(trainingProgressService.streamProgress(id));
+    }
+
     /**
      * Update chatbot configuration
      * PUT /v1/api/chatbot/{id}
@@ -6,6 +6,7 @@ import net.ai.chatbot.dto.aichatbot.ChatbotWidgetThemeDto;
 import net.ai.chatbot.dto.aichatbot.PublicChatbotResponseDto;
 import net.ai.chatbot.entity.ChatBot;
 import net.ai.chatbot.service.aichatbot.ChatBotService;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -14,6 +15,7 @@ import java.util.List;
 
 @Slf4j
 @RestController
+@Profile("!crawler-worker")
 @CrossOrigin(originPatterns = "*", allowCredentials = "true", allowedHeaders = "*")
 @RequestMapping("/v1/api/public")
 public class AIChatBotPublicEndpointController {
@@ -4,6 +4,7 @@ import lombok.extern.slf4j.Slf4j;
 import net.ai.chatbot.dao.ChatBotTypeDao;
 import net.ai.chatbot.dto.aichatbot.ChatBotTypeResponse;
 import net.ai.chatbot.entity.ChatBotType;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -13,6 +14,7 @@ import java.util.stream.Collectors;
 
 @Slf4j
 @RestController
+@Profile("!crawler-worker")
 @CrossOrigin(originPatterns = "*", allowCredentials = "true", allowedHeaders = "*")
 @RequestMapping("/v1/api/chatbot/types")
 public class ChatBotTypeController {
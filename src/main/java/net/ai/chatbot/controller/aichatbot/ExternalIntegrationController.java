@@ -8,6 +8,7 @@ import net.ai.chatbot.entity.WhatsAppIntegration;
 import net.ai.chatbot.service.integration.MessengerIntegrationService;
 import net.ai.chatbot.service.integration.WhatsAppIntegrationService;
 import net.ai.chatbot.utils.AuthUtils;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,6 +17,7 @@ import java.util.Date;
 
 @Slf4j
 @RestController
+@Profile("!crawler-worker")
 @CrossOrigin(originPatterns = "*", allowCredentials = "true", allowedHeaders = "*")
 @RequestMapping("/v1/api/chatbot")
 public class ExternalIntegrationController {
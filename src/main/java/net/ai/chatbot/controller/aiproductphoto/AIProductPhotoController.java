@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.ai.chatbot.entity.AIProductPhotoJob;
 import net.ai.chatbot.service.aiproductphoto.AIProductPhotoService;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -16,6 +17,7 @@ import java.util.List;
 import java.util.Map;
 
 @RestController
+@Profile("!crawler-worker")
 @RequestMapping("/v1/api/ai-product-photo")
 @RequiredArgsConstructor
 @Slf4j
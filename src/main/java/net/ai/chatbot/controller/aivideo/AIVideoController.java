@@ -5,6 +5,7 @@ import lombok.extern.slf4j.Slf4j;
 import net.ai.chatbot.entity.AIVideoJob;
 import net.ai.chatbot.service.aivideo.AIVideoService;
 import net.ai.chatbot.utils.AuthUtils;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -12,6 +13,7 @@ import java.util.List;
 import java.util.Map;
 
 @RestController
+@Profile("!crawler-worker")
 @RequestMapping("/v1/api/ai-videos")
 @RequiredArgsConstructor
 @Slf4j
@@ -4,6 +4,7 @@ import lombok.extern.slf4j.Slf4j;
 import net.ai.chatbot.dto.SecureFileUpload;
 import net.ai.chatbot.service.aichatbot.FileUploadService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -15,6 +16,7 @@ import static net.ai.chatbot.utils.AuthUtils.getEmail;
 
 @Slf4j
 @RestController
+@Profile("!crawler-worker")
 @CrossOrigin(originPatterns = "*", allowCredentials = "true", allowedHeaders = "*")
 @RequestMapping("/v1/api/file")
 public class FileUploadController {
@@ -41,12 +43,7 @@ public class FileUploadController {
         }
 
         try {
-            SecureFileUpload secureFileUpload = fileUploadService.save(SecureFileUpload.builder()
-                    .data(file.getBytes())
-                    .email(getEmail())
-                    .contentType(file.getContentType())
-                    .fileName(file.getName())
-                    .build());
+            SecureFileUpload secureFileUpload = fileUploadService.store(file, file.getName(), getEmail());
 
             Map<String, Object> response = new HashMap<>();
             response.put("fileId", secureFileUpload.getId());
@@ -7,6 +7,7 @@ import net.ai.chatbot.dto.mediaasset.ListAssetsResponse;
 import net.ai.chatbot.dto.mediaasset.UploadResponse;
 import net.ai.chatbot.service.mediaasset.MediaAssetService;
 import net.ai.chatbot.utils.AuthUtils;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -23,6 +24,7 @@ import java.util.List;
  * Base URL: /v1/api/assets
  */
 @RestController
+@Profile("!crawler-worker")
 @RequestMapping("/v1/api/assets")
 @RequiredArgsConstructor
 @Slf4j
@@ -6,6 +6,7 @@ import lombok.extern.slf4j.Slf4j;
 import net.ai.chatbot.dto.social.*;
 import net.ai.chatbot.service.social.SocialAccountService;
 import net.ai.chatbot.utils.AuthUtils;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
  * userId resolved from JWT sub
  */
 @RestController
+@Profile("!crawler-worker")
 @RequestMapping("/v1/api/social-accounts")
 @RequiredArgsConstructor
 @Slf4j
@@ -11,6 +11,7 @@ import net.ai.chatbot.entity.SocialAsset;
 import net.ai.chatbot.service.AttachmentStorageService;
 import net.ai.chatbot.utils.AuthUtils;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -18,7 +19,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Date;
@@ -33,6 +34,7 @@ import java.util.Map;
  * and metadata in SocialAsset collection (user email based).
  */
 @RestController
+@Profile("!crawler-worker")
 @RequestMapping("/v1/api/social-media")
 @RequiredArgsConstructor
 @Slf4j
@@ -118,27 +120,27 @@ public class SocialMediaUploadController {
                     ));
                 }
 
-                byte[] fileBytes = uploadedFile.getBytes();
-
                 // STEP 1: Store file content in Attachment collection (backward compatible)
                 Attachment attachment = Attachment.builder()
                         .name(uploadedFile.getOriginalFilename())
                         .chatbotId(userId) // Store userId for reference only (not for ownership)
                         .type(mimeType)
                         .size(uploadedFile.getSize())
-                        .data(fileBytes)
                         .uploadedAt(new Date())
                         .build();
 
-                AttachmentStorageResult result = attachmentStorageService.storeAttachmentInMongoDB(attachment, userId);
+                AttachmentStorageResult result;
+                try (InputStream content = uploadedFile.getInputStream()) {
+                    result = attachmentStorageService.storeAttachmentInMongoDB(attachment, content, userId);
+                }
                 String attachmentId = result.getFileId();
 
                 // Extract image dimensions if image
                 Integer width = null;
                 Integer height = null;
                 if (mimeType.startsWith("image/")) {
-                    try {
-                        BufferedImage img = ImageIO.read(new ByteArrayInputStream(fileBytes));
+                    try (InputStream content = uploadedFile.getInputStream()) {
+                        BufferedImage img = ImageIO.read(content);
                         if (img != null) {
                             width = img.getWidth();
                             height = img.getHeight();
@@ -10,6 +10,7 @@ import net.ai.chatbot.entity.social.SocialPost;
 import net.ai.chatbot.service.social.SocialAccountService;
 import net.ai.chatbot.service.social.publisher.SocialPostPublisher;
 import net.ai.chatbot.utils.AuthUtils;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -20,6 +21,7 @@ import java.util.Map;
  * Accepts media from both /v1/api/social-media/upload (SocialAsset) and /v1/api/assets/upload (MediaAsset)
  */
 @RestController
+@Profile("!crawler-worker")
 @RequestMapping("/v1/api/social-posts")
 @RequiredArgsConstructor
 @Slf4j
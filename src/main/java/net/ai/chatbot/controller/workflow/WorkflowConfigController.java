@@ -7,6 +7,7 @@ import net.ai.chatbot.dto.workflow.WorkflowConfigResponse;
 import net.ai.chatbot.service.googlecalendar.ChatbotOwnershipService;
 import net.ai.chatbot.service.workflow.WorkflowConfigService;
 import net.ai.chatbot.utils.AuthUtils;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.*;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.http.ResponseEntity;
@@ -18,6 +19,7 @@ import org.springframework.web.client.RestTemplate;
 import java.util.Map;
 
 @RestController
+@Profile("!crawler-worker")
 @RequestMapping("/v1/api/chatbot/{chatbotId}/workflow")
 @RequiredArgsConstructor
 @Slf4j
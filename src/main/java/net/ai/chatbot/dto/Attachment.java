@@ -24,6 +24,8 @@ public class Attachment {
     private String type;           // MIME type (e.g., "application/pdf")
     private Date uploadedAt;
     private byte[] data;           // Base64 encoded content
+    private String gridFsId;       // GridFS file holding the stored content, data is null then
+    private String contentHash;    // SHA-256 of the stored content, hex; null for attachments stored before hashing
     /**
      * Get MIME type with sensible defaults
      */
@@ -32,6 +32,9 @@ public class FileMetadata {
     
     /** Status of the file (e.g., "stored", "deleted") */
     private String status;
+
+    /** SHA-256 of the content (hex), null for files stored before hashing */
+    private String contentHash;
     
     /**
      * Get human-readable file size
@@ -19,7 +19,17 @@ public class SecureFileUpload {
     private String email;
     private String fileName;
     private String contentType;
+
+    /** Inline content of uploads stored before GridFS; null when gridFsId is set */
     private byte[] data;
 
+    /** GridFS file holding the content */
+    private String gridFsId;
+
+    private long size;
+
+    /** SHA-256 of the content, computed while it was stored */
+    private String contentHash;
+
 }
 
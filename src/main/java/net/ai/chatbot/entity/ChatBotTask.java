@@ -4,9 +4,12 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import net.ai.chatbot.enums.TrainingLane;
+import net.ai.chatbot.enums.TrainingScope;
 import nonapi.io.github.classgraph.json.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.Date;
 import java.util.List;
 
 @Document(collection = "chatBotTask")
@@ -24,4 +27,13 @@ public class ChatBotTask {
     private List<String> addedWebsites;
     private List<String> addedTexts;
 
+    // Null on tasks queued before lanes existed: BACKGROUND, ALL
+    private TrainingLane lane;
+    private TrainingScope scope;
+
+    // Set on a background WEBSITES task split off an interactive edit: the id of the edit's task
+    private String parentTaskId;
+
+    private Date createdAt;
+
 }
@@ -0,0 +1,53 @@
+package net.ai.chatbot.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Daily usage bucket per chatbot, pre-aggregated from n8n_chat_session_histories.
+ * One document per chatbot per UTC day; id is "{chatbotId}_{yyyy-MM-dd}".
+ */
+@Document(collection = "chat_usage_daily")
+@CompoundIndexes({
+        @CompoundIndex(name = "chatbotId_day", def = "{'chatbotId': 1, 'day': 1}"),
+        @CompoundIndex(name = "day_chatbotId", def = "{'day': 1, 'chatbotId': 1}")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatUsageDaily {
+
+    @Id
+    private String id;
+
+    private String chatbotId;
+
+    /** yyyy-MM-dd (UTC) */
+    private String date;
+
+    /** Start of the UTC day, used for range queries */
+    private Date day;
+
+    /** Distinct conversation ids seen on this day */
+    private long conversations;
+
+    private long messages;
+
+    /** Distinct user emails seen on this day */
+    private long users;
+
+    /** Messages per UTC hour, always 24 entries */
+    private List<Long> hourlyMessages;
+
+    private Date updatedAt;
+}
@@ -0,0 +1,47 @@
+package net.ai.chatbot.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A website crawl queued for the crawler workers. The job stream entry carries only the id;
+ * pages come back on the job's result stream.
+ */
+@Document(collection = "crawl_job")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CrawlJob {
+
+    @Id
+    private String id;
+
+    private String chatbotId;
+
+    private String websiteUrl;
+
+    private String email;
+
+    private int maxDepth;
+
+    private int maxPages;
+
+    /** Pages the chatbot already holds; only these may be skipped as unchanged */
+    private List<String> knownPages;
+
+    /** Worker that picked the job up */
+    private String workerId;
+
+    /** Jobs expire 7 days after this, see RemoteCrawlService */
+    private Date createdAt;
+
+    private Date startedAt;
+}
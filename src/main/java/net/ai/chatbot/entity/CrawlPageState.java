@@ -0,0 +1,49 @@
+package net.ai.chatbot.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * What a crawl last saw of a page, per crawl scope (the chatbot). Used to send conditional
+ * requests on the next crawl and to recognise pages whose text has not changed.
+ */
+@Document(collection = "crawl_page_state")
+@CompoundIndex(name = "scope_host_url", def = "{'scope': 1, 'host': 1, 'url': 1}", unique = true)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CrawlPageState {
+
+    @Id
+    private String id;
+
+    private String scope;
+
+    private String host;
+
+    private String url;
+
+    /** Validators of the last plain HTTP response, null if the page was rendered in the browser */
+    private String etag;
+    private String lastModified;
+
+    /** SHA-256 of the page's extracted text, hex */
+    private String textHash;
+
+    /** True if the page needed the browser; its HTML shell can't be trusted to reflect changes */
+    private boolean rendered;
+
+    /** Same-site links found on the page, followed again when the page is skipped */
+    private List<String> links;
+
+    private Date updatedAt;
+}
@@ -0,0 +1,9 @@
+package net.ai.chatbot.entity;
+
+/**
+ * A crawled page reduced to the semantic text that is embedded, see HtmlSanitizer.
+ */
+public record CrawledPage(String url,
+                          String title,
+                          String semanticText) {
+}
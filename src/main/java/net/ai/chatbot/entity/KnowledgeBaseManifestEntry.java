@@ -0,0 +1,47 @@
+package net.ai.chatbot.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import net.ai.chatbot.enums.KnowledgeBaseType;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * One trained knowledge-base source of a chatbot (file, QA pair, text block or crawled page)
+ * and the hash of the content that was embedded for it. Chunks of the source carry the
+ * source key as metadata.sourceId in the chatbot's knowledge-base collection.
+ */
+@Document(collection = "knowledgebase_manifest")
+@CompoundIndex(name = "chatbotId_sourceKey", def = "{'chatbotId': 1, 'sourceKey': 1}", unique = true)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class KnowledgeBaseManifestEntry {
+
+    @Id
+    private String id;
+
+    private String chatbotId;
+
+    /** file:{fileId}, qa:{hash}, text:{hash} or url:{pageUrl} */
+    private String sourceKey;
+
+    private KnowledgeBaseType sourceType;
+
+    /** SHA-256 of the embedded content */
+    private String contentHash;
+
+    /** Website the page was crawled from, only set for crawled pages */
+    private String websiteUrl;
+
+    /** SimHash of the sanitized page text, only set for crawled pages */
+    private Long simHash;
+
+    private Date updatedAt;
+}
@@ -0,0 +1,34 @@
+package net.ai.chatbot.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Maintained counter of knowledge-base chunks stored in a chatbot's
+ * jade-ai-knowledgebase-{chatbotId} collection, so dashboards don't have to count every collection.
+ */
+@Document(collection = "knowledgebase_stats")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class KnowledgeBaseStats {
+
+    @Id
+    private String id;
+
+    @Indexed(unique = true)
+    private String chatbotId;
+
+    /** Number of chunk documents in the chatbot's knowledge-base collection */
+    private long chunkCount;
+
+    private Date updatedAt;
+}
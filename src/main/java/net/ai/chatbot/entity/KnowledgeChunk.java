@@ -0,0 +1,13 @@
+package net.ai.chatbot.entity;
+
+/**
+ * A token-bounded piece of a knowledge-base source, ready to be embedded.
+ *
+ * @param sourceId   manifest source key the chunk belongs to
+ * @param chunkIndex position of the chunk within its source
+ * @param text       chunk text, including the overlap carried over from the previous chunk
+ */
+public record KnowledgeChunk(String sourceId,
+                             int chunkIndex,
+                             String text) {
+}
@@ -0,0 +1,60 @@
+package net.ai.chatbot.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Progress checkpoint of one training task; id is the ChatBotTask id.
+ * <p>
+ * Files, QA pairs and texts that finished are also in the knowledge-base manifest, so a
+ * re-delivered task skips them. Finished websites are listed here so they aren't crawled again.
+ */
+@Document(collection = "training_progress")
+@CompoundIndex(name = "chatbotId_startedAt", def = "{'chatbotId': 1, 'startedAt': -1}")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrainingProgress {
+
+    @Id
+    private String id;
+
+    private String chatbotId;
+
+    private String status; // TRAINING, COMPLETED, FAILED
+
+    /** Task this one was split off from, see ChatBotTask.parentTaskId */
+    private String parentTaskId;
+
+    /** Sources of the task: files, QA pairs, texts and websites */
+    private int sourcesTotal;
+
+    /** Sources finished, including those unchanged since the last training */
+    private int sourcesDone;
+
+    private int sourcesFailed;
+
+    private long pagesCrawled;
+
+    private long chunksEmbedded;
+
+    private List<String> completedWebsites;
+
+    /** Number of times the task was picked up, including re-deliveries */
+    private int attempts;
+
+    private String lastError;
+
+    private Date startedAt;
+    private Date updatedAt;
+    private Date finishedAt;
+}
@@ -0,0 +1,24 @@
+package net.ai.chatbot.enums;
+
+import static net.ai.chatbot.constants.Constants.CHAT_BOT_CREATE_EVENT_STREAM;
+import static net.ai.chatbot.constants.Constants.CHAT_BOT_INTERACTIVE_EVENT_STREAM;
+
+/**
+ * Training lanes, each with its own Redis stream, consumers and pipeline pools.
+ * Small edits go through INTERACTIVE; crawls and large uploads through BACKGROUND.
+ */
+public enum TrainingLane {
+
+    INTERACTIVE(CHAT_BOT_INTERACTIVE_EVENT_STREAM),
+    BACKGROUND(CHAT_BOT_CREATE_EVENT_STREAM);
+
+    private final String streamKey;
+
+    TrainingLane(String streamKey) {
+        this.streamKey = streamKey;
+    }
+
+    public String getStreamKey() {
+        return streamKey;
+    }
+}
@@ -0,0 +1,17 @@
+package net.ai.chatbot.enums;
+
+/**
+ * Which sources of a ChatBotTask a training run handles.
+ */
+public enum TrainingScope {
+
+    /** Files, QA pairs, texts and website crawls */
+    ALL,
+
+    /** Files, QA pairs and texts; websites are left to a companion WEBSITES task */
+    CONTENT,
+
+    /** Website crawls only; other sources are neither trained nor removed */
+    WEBSITES
+
+}
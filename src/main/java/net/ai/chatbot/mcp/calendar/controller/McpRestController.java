@@ -7,6 +7,7 @@ import net.ai.chatbot.entity.GoogleCalendarToken;
 import net.ai.chatbot.mcp.calendar.tools.CalendarEventTool;
 import net.ai.chatbot.service.googlecalendar.GoogleOAuthService;
 import net.ai.chatbot.utils.EncryptionUtils;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
@@ -29,6 +30,7 @@ import java.util.Map;
  */
 @Slf4j
 @RestController
+@Profile("!crawler-worker")
 @RequestMapping("/mcp")
 @RequiredArgsConstructor
 public class McpRestController {
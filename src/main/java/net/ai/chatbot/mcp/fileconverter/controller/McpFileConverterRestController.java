@@ -6,6 +6,7 @@ import lombok.extern.slf4j.Slf4j;
 import net.ai.chatbot.dto.AttachmentStorageResult;
 import net.ai.chatbot.mcp.fileconverter.service.FileConverterService;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -23,6 +24,7 @@ import java.util.Map;
  */
 @Slf4j
 @RestController
+@Profile("!crawler-worker")
 @RequestMapping("/mcp/file-converter")
 @RequiredArgsConstructor
 public class McpFileConverterRestController {
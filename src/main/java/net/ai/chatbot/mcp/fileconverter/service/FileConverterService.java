@@ -20,6 +20,7 @@ import org.apache.poi.xwpf.usermodel.XWPFParagraph;
 import org.apache.poi.xwpf.usermodel.XWPFRun;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringWriter;
@@ -112,11 +113,11 @@ public class FileConverterService {
                 .type(mimeType)
                 .size(fileBytes.length)
                 .length(fileBytes.length)
-                .data(fileBytes)
                 .uploadedAt(new java.util.Date())
                 .build();
 
-        AttachmentStorageResult result = attachmentStorageService.storeAttachmentInMongoDB(attachment, chatbotId);
+        AttachmentStorageResult result = attachmentStorageService.storeAttachmentInMongoDB(
+                attachment, new ByteArrayInputStream(fileBytes), chatbotId);
 
         String downloadPath = "/api/attachments/download/" + result.getFileId() + "/" + chatbotId;
         String downloadUrl = (baseUrl != null && !baseUrl.isBlank())
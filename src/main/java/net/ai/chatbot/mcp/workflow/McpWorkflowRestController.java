@@ -9,6 +9,7 @@ import net.ai.chatbot.entity.WorkflowConfig.ActionEndpoint;
 import net.ai.chatbot.service.workflow.McpExecutorService;
 import net.ai.chatbot.service.workflow.WorkflowConfigService;
 import static net.ai.chatbot.service.workflow.WorkflowConfigService.WORKFLOW_PLACEHOLDER_TOOL_NAME;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
@@ -29,6 +30,7 @@ import java.util.Map;
  */
 @Slf4j
 @RestController
+@Profile("!crawler-worker")
 @RequestMapping("/mcp/workflow/{chatbotId}")
 public class McpWorkflowRestController {
 
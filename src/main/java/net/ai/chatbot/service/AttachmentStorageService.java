@@ -1,19 +1,31 @@
 package net.ai.chatbot.service;
 
+import com.mongodb.client.gridfs.model.GridFSFile;
 import lombok.extern.slf4j.Slf4j;
 import net.ai.chatbot.dto.Attachment;
 import net.ai.chatbot.dto.AttachmentStorageResult;
 import net.ai.chatbot.dto.FileMetadata;
 import org.bson.Document;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.bson.types.ObjectId;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HexFormat;
 import java.util.List;
 
 /**
@@ -24,39 +36,50 @@ import java.util.List;
  * - Can download files directly via REST API using fileId
  * - Easy integration with N8N for file analysis
  * - No OpenAI file upload overhead
- * - File content stored as binary in MongoDB
+ * - File content stored in GridFS and streamed in both directions, so memory per transfer is
+ *   bounded by the chunk size; attachments stored before GridFS keep their inline data
  */
 @Service
 @Slf4j
 public class AttachmentStorageService {
 
-    @Autowired
-    private MongoTemplate mongoTemplate;
+    private final MongoTemplate mongoTemplate;
+    private final GridFsTemplate gridFsTemplate;
+
+    public AttachmentStorageService(MongoTemplate mongoTemplate, GridFsTemplate gridFsTemplate) {
+        this.mongoTemplate = mongoTemplate;
+        this.gridFsTemplate = gridFsTemplate;
+    }
 
     /**
-     * Store attachment in MongoDB with binary content
+     * Store attachment metadata in MongoDB and its content in GridFS, streaming the content
+     * instead of reading it into memory. The content's SHA-256 is kept as its ETag.
      *
-     * @param attachment the attachment DTO with file data
+     * @param attachment the attachment DTO without data
+     * @param content    the file content, read to the end but not closed
      * @param chatbotId  the chatbot ID
      * @return AttachmentStorageResult with fileId and download URL
      * @throws IOException if processing fails
      */
     public AttachmentStorageResult storeAttachmentInMongoDB(
             Attachment attachment,
+            InputStream content,
             String chatbotId) throws IOException {
 
-        log.info("Starting attachment storage in MongoDB for: {} (chatbot: {}, session: {})",
+        log.info("Starting attachment storage in MongoDB for: {} (chatbot: {})",
                 attachment.getName(), chatbotId);
 
-        byte[] fileContent = attachment.getData();
-        log.debug("File decoded. Size: {} bytes", fileContent.length);
+        MessageDigest digest = sha256();
+        ObjectId gridFsId = gridFsTemplate.store(new DigestInputStream(content, digest), attachment.getName(),
+                attachment.getMimeType(), new Document("chatbotId", chatbotId));
 
-        // Save to MongoDB
-        String collectionName = "attachments_" + chatbotId;
+        attachment.setGridFsId(gridFsId.toHexString());
+        attachment.setContentHash(HexFormat.of().formatHex(digest.digest()));
+        attachment.setData(null);
         Attachment saved = mongoTemplate.save(attachment);
 
-        log.info("Attachment stored in MongoDB: collection={}, fileId={}, fileName={}",
-                collectionName, saved.getId(), attachment.getName());
+        log.info("Attachment stored in MongoDB: fileId={}, gridFsId={}, fileName={}",
+                saved.getId(), saved.getGridFsId(), attachment.getName());
 
         return AttachmentStorageResult.builder()
                 .fileId(saved.getId())
@@ -69,27 +92,46 @@ public class AttachmentStorageService {
     }
 
     /**
-     * Retrieve file content from MongoDB by fileId
+     * Open a file for download. Its metadata is read without the binary, and its content is read
+     * once, when the body is written: GridFS content chunk by chunk as the resource is consumed,
+     * from a new download stream on every {@link Resource#getInputStream()} so byte ranges can be
+     * served; attachments stored before GridFS from their inline data, fetched on its own.
      *
      * @param fileId the file ID
-     * @return file content as bytes
+     * @return the file, or null if it or its content is not found
      */
-    public byte[] getFileContent(String fileId) {
-        log.debug("Retrieving file content: fileId={}", fileId);
+    public StoredFile openFile(String fileId) {
+        log.debug("Opening file: fileId={}", fileId);
 
-        Query query = new Query().addCriteria(
-                Criteria.where("_id").is(fileId)
-        );
+        Attachment attachment = findWithoutData(fileId);
+
+        if (attachment == null) {
+            log.warn("File not found: fileId={}", fileId);
+            return null;
+        }
 
-        Attachment attachment = mongoTemplate.findOne(query, Attachment.class);
+        Resource content = attachment.getGridFsId() != null ? openGridFsContent(attachment) : loadInlineContent(attachment);
+        return content == null ? null : new StoredFile(toMetadata(attachment), content);
+    }
 
-        if (attachment == null || attachment.getData() == null) {
-            log.warn("File not found: fileId={}, chatbotId={}", fileId);
+    /**
+     * Read whole file content into memory, for callers that need it as an array (social media
+     * uploads). Downloads should stream {@link #openFile(String)} instead.
+     *
+     * @param fileId the file ID
+     * @return file content as bytes, or null if the file is not found
+     */
+    public byte[] getFileContent(String fileId) {
+        StoredFile file = openFile(fileId);
+        if (file == null) {
             return null;
         }
 
-        log.info("File retrieved successfully: fileId={}, size={} bytes", fileId, attachment.getData().length);
-        return attachment.getData();
+        try (InputStream in = file.content().getInputStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read content of file " + fileId, e);
+        }
     }
 
     /**
@@ -101,42 +143,26 @@ public class AttachmentStorageService {
     public FileMetadata getFileMetadata(String fileId) {
         log.debug("Retrieving file metadata: fileId={}", fileId);
 
-        Query query = new Query().addCriteria(
-                new Criteria().andOperator(
-                        Criteria.where("_id").in(fileId)
-                )
-        );
-        // Project only the _id and the entire messages array
-        query.fields()
-                .include("_id")
-                .include("name")
-                .include("type")
-                .include("chatbotId")
-                .include("name")
-                .include("size")
-                .include("length")
-                .include("uploadedAt")
-                .include("data");
-
-        Attachment attachment = mongoTemplate.findOne(query, Attachment.class);
+        Attachment attachment = findWithoutData(fileId);
 
         if (attachment == null) {
             log.warn("File attachment not found: fileId={}", fileId);
             return null;
         }
 
-        return FileMetadata.builder()
-                .fileId(attachment.getId())
-                .fileName(attachment.getName())
-                .mimeType(attachment.getType())
-                .fileSize(attachment.getSize())
-                .uploadedAt(attachment.getUploadedAt() != null ? attachment.getUploadedAt().getTime() : 0)
-                .status("stored")
-                .build();
+        return toMetadata(attachment);
     }
 
     /**
-     * Delete attachment from MongoDB
+     * Strong ETag of a file: its content hash, or its id for files stored before hashing, as an
+     * attachment's content is never replaced.
+     */
+    public static String eTag(FileMetadata metadata) {
+        return "\"" + (metadata.getContentHash() != null ? metadata.getContentHash() : metadata.getFileId()) + "\"";
+    }
+
+    /**
+     * Delete attachment from MongoDB, with its GridFS content
      *
      * @param fileId    the file ID
      * @param chatbotId the chatbot ID
@@ -145,12 +171,18 @@ public class AttachmentStorageService {
     public boolean deleteAttachment(String fileId, String chatbotId) {
         log.info("Deleting attachment: fileId={}, chatbotId={}", fileId, chatbotId);
 
-        String collectionName = "attachments_" + chatbotId;
-        long deletedCount = mongoTemplate.getCollection(collectionName)
-                .deleteOne(new Document("fileId", fileId))
-                .getDeletedCount();
+        Query query = new Query().addCriteria(
+                Criteria.where("_id").is(fileId)
+                        .and("chatbotId").is(chatbotId)
+        );
+        query.fields().exclude("data");
+
+        Attachment attachment = mongoTemplate.findAndRemove(query, Attachment.class);
 
-        if (deletedCount > 0) {
+        if (attachment != null) {
+            if (attachment.getGridFsId() != null) {
+                gridFsTemplate.delete(new Query(Criteria.where("_id").is(new ObjectId(attachment.getGridFsId()))));
+            }
             log.info("Attachment deleted successfully: fileId={}", fileId);
             return true;
         } else {
@@ -204,5 +236,136 @@ public class AttachmentStorageService {
         return mongoTemplate.exists(query, Attachment.class);
     }
 
-}
+    private Attachment findWithoutData(String fileId) {
+        Query query = new Query().addCriteria(
+                Criteria.where("_id").is(fileId)
+        );
+        query.fields().exclude("data");
+
+        return mongoTemplate.findOne(query, Attachment.class);
+    }
+
+    private Resource openGridFsContent(Attachment attachment) {
+        GridFSFile gridFSFile = gridFsTemplate.findOne(
+                new Query(Criteria.where("_id").is(new ObjectId(attachment.getGridFsId())))
+        );
 
+        if (gridFSFile == null) {
+            log.warn("GridFS content not found: fileId={}, gridFsId={}", attachment.getId(), attachment.getGridFsId());
+            return null;
+        }
+
+        return new AbstractResource() {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return gridFsTemplate.getResource(gridFSFile).getInputStream();
+            }
+
+            @Override
+            public long contentLength() {
+                return gridFSFile.getLength();
+            }
+
+            @Override
+            public boolean exists() {
+                return true;
+            }
+
+            @Override
+            public String getFilename() {
+                return attachment.getName();
+            }
+
+            @Override
+            public String getDescription() {
+                return "GridFS content of attachment " + attachment.getId();
+            }
+        };
+    }
+
+    /**
+     * Content of an attachment stored before GridFS. Only its existence is checked here; the
+     * inline data is read when the body is written, so a 304 never loads it.
+     */
+    private Resource loadInlineContent(Attachment attachment) {
+        Query query = new Query().addCriteria(
+                Criteria.where("_id").is(attachment.getId())
+                        .and("data").exists(true)
+        );
+
+        if (!mongoTemplate.exists(query, Attachment.class)) {
+            log.warn("File content not found: fileId={}", attachment.getId());
+            return null;
+        }
+
+        return new AbstractResource() {
+            private byte[] data;
+
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return new ByteArrayInputStream(data());
+            }
+
+            @Override
+            public long contentLength() throws IOException {
+                return data().length;
+            }
+
+            @Override
+            public boolean exists() {
+                return true;
+            }
+
+            @Override
+            public String getFilename() {
+                return attachment.getName();
+            }
+
+            @Override
+            public String getDescription() {
+                return "Inline content of attachment " + attachment.getId();
+            }
+
+            // Read once, on first use: contentLength and getInputStream both need it
+            private synchronized byte[] data() throws IOException {
+                if (data == null) {
+                    Query withData = new Query().addCriteria(Criteria.where("_id").is(attachment.getId()));
+                    withData.fields().include("data");
+
+                    Attachment stored = mongoTemplate.findOne(withData, Attachment.class);
+                    if (stored == null || stored.getData() == null) {
+                        throw new FileNotFoundException("Content of attachment " + attachment.getId() + " is gone");
+                    }
+                    data = stored.getData();
+                }
+                return data;
+            }
+        };
+    }
+
+    private FileMetadata toMetadata(Attachment attachment) {
+        return FileMetadata.builder()
+                .fileId(attachment.getId())
+                .fileName(attachment.getName())
+                .mimeType(attachment.getMimeType())
+                .fileSize(attachment.getSize())
+                .uploadedAt(attachment.getUploadedAt() != null ? attachment.getUploadedAt().getTime() : 0)
+                .status("stored")
+                .contentHash(attachment.getContentHash())
+                .build();
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * A file opened for download, see {@link #openFile(String)}.
+     */
+    public record StoredFile(FileMetadata metadata, Resource content) {
+    }
+}
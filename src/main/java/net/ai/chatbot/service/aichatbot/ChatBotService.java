@@ -6,6 +6,8 @@ import net.ai.chatbot.dao.TeamMembershipDao;
 import net.ai.chatbot.entity.TeamMembership;
 import net.ai.chatbot.service.googlecalendar.ChatbotOwnershipService;
 import net.ai.chatbot.service.team.TeamService;
+import net.ai.chatbot.service.training.TrainingLanePlanner;
+import net.ai.chatbot.service.training.TrainingProgressService;
 import net.ai.chatbot.dto.UserChatHistory;
 import net.ai.chatbot.dto.aichatbot.ChatBotCreationRequest;
 import net.ai.chatbot.entity.*;
@@ -26,8 +28,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.*;
 import java.util.stream.Collectors;
 
-import static net.ai.chatbot.constants.Constants.CHAT_BOT_CREATE_EVENT_STREAM;
-
 @Service
 @Slf4j
 public class ChatBotService {
@@ -38,15 +38,20 @@ public class ChatBotService {
     private final MongoTemplate mongoTemplate;
 
     private final RedisTemplate<String, String> redisTemplate;
+    private final TrainingLanePlanner trainingLanePlanner;
+    private final TrainingProgressService trainingProgressService;
 
     public ChatBotService(ChatBotDao chatBotDao, TeamMembershipDao teamMembershipDao,
                           ChatbotOwnershipService chatbotOwnershipService, MongoTemplate mongoTemplate,
-                          RedisTemplate<String, String> redisTemplate) {
+                          RedisTemplate<String, String> redisTemplate, TrainingLanePlanner trainingLanePlanner,
+                          TrainingProgressService trainingProgressService) {
         this.chatBotDao = chatBotDao;
         this.teamMembershipDao = teamMembershipDao;
         this.chatbotOwnershipService = chatbotOwnershipService;
         this.mongoTemplate = mongoTemplate;
         this.redisTemplate = redisTemplate;
+        this.trainingLanePlanner = trainingLanePlanner;
+        this.trainingProgressService = trainingProgressService;
     }
 
     /**
@@ -117,9 +122,7 @@ public class ChatBotService {
                 .addedWebsites(chatbot.getAddedWebsites())
                 .build();
 
-        chatBotTask = mongoTemplate.save(chatBotTask);
-
-        postSaveEventTrigger(chatBotTask);
+        enqueueTraining(chatBotTask);
 
         log.info("Chatbot created successfully with ID: {}", saved.getId());
 
@@ -192,9 +195,7 @@ public class ChatBotService {
                 .addedWebsites(mergedWebsites)
                 .build();
 
-        chatBotTask = mongoTemplate.save(chatBotTask);
-
-        postSaveEventTrigger(chatBotTask);
+        enqueueTraining(chatBotTask);
 
         log.info("Chatbot updated successfully: {}", id);
 
@@ -683,6 +684,35 @@ public class ChatBotService {
         return new ArrayList<>(byId.values());
     }
 
+    /**
+     * Split a training task into lanes, then save and queue each part. A split-off website task
+     * is linked to the first task and its progress opened right away, so the chatbot is only
+     * reported trained once both have finished.
+     */
+    private void enqueueTraining(ChatBotTask chatBotTask) {
+        Date now = new Date();
+        List<ChatBotTask> plannedTasks = trainingLanePlanner.plan(chatBotTask);
+        List<ChatBotTask> savedTasks = new ArrayList<>();
+
+        for (ChatBotTask plannedTask : plannedTasks) {
+            plannedTask.setCreatedAt(now);
+
+            if (!savedTasks.isEmpty()) {
+                plannedTask.setParentTaskId(savedTasks.get(0).getId());
+            }
+
+            ChatBotTask savedTask = mongoTemplate.save(plannedTask);
+
+            if (savedTask.getParentTaskId() != null) {
+                trainingProgressService.queue(savedTask.getId(), savedTask.getChatbotId(), savedTask.getParentTaskId());
+            }
+
+            savedTasks.add(savedTask);
+        }
+
+        savedTasks.forEach(this::postSaveEventTrigger);
+    }
+
     /**
      * Event Trigger for post processing of chatbot creation
      */
@@ -690,11 +720,11 @@ public class ChatBotService {
         ObjectRecord<String, String> record = StreamRecords
                 .newRecord()
                 .ofObject(chatBotTask.getId())
-                .withStreamKey(CHAT_BOT_CREATE_EVENT_STREAM);
+                .withStreamKey(chatBotTask.getLane().getStreamKey());
 
         RecordId recordId = redisTemplate.opsForStream().add(record);
 
-        log.info("redis event created for chatBotTask:{} chatbot: {}, redis eventId:{}, for user: {}", chatBotTask.getId(), chatBotTask.getChatbotId(), recordId, AuthUtils.getEmail());
+        log.info("redis event created for chatBotTask:{} chatbot: {}, lane: {}, scope: {}, redis eventId:{}, for user: {}", chatBotTask.getId(), chatBotTask.getChatbotId(), chatBotTask.getLane(), chatBotTask.getScope(), recordId, AuthUtils.getEmail());
     }
 }
 
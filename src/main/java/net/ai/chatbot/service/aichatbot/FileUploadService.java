@@ -1,13 +1,26 @@
 package net.ai.chatbot.service.aichatbot;
 
+import com.mongodb.client.gridfs.model.GridFSFile;
 import lombok.extern.slf4j.Slf4j;
 import net.ai.chatbot.dto.SecureFileUpload;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.Optional;
 
 @Service
@@ -17,6 +30,9 @@ public class FileUploadService {
     @Autowired
     private MongoTemplate mongoTemplate;
 
+    @Autowired
+    private GridFsTemplate gridFsTemplate;
+
     public SecureFileUpload load(String id) {
         Query query = new Query()
                 .addCriteria(Criteria.where("id").is(id));
@@ -25,9 +41,77 @@ public class FileUploadService {
                 .orElse(null);
     }
 
+    /**
+     * Load an upload without its inline content.
+     */
+    public SecureFileUpload loadMetadata(String id) {
+        Query query = new Query()
+                .addCriteria(Criteria.where("id").is(id));
+        query.fields().exclude("data");
+
+        return mongoTemplate.findOne(query, SecureFileUpload.class);
+    }
+
     public SecureFileUpload save(SecureFileUpload secureFileUpload) {
         return mongoTemplate.save(secureFileUpload);
     }
 
-}
+    /**
+     * Store an uploaded file in GridFS, streaming it from the request instead of reading it into
+     * memory, and save its metadata.
+     */
+    public SecureFileUpload store(MultipartFile file, String fileName, String email) throws IOException {
+        MessageDigest digest = sha256();
 
+        ObjectId gridFsId;
+        try (InputStream content = new DigestInputStream(file.getInputStream(), digest)) {
+            gridFsId = gridFsTemplate.store(content, fileName, file.getContentType(), new Document("email", email));
+        }
+
+        return save(SecureFileUpload.builder()
+                .gridFsId(gridFsId.toHexString())
+                .size(file.getSize())
+                .contentHash(HexFormat.of().formatHex(digest.digest()))
+                .email(email)
+                .contentType(file.getContentType())
+                .fileName(fileName)
+                .build());
+    }
+
+    /**
+     * Open the content of an upload. GridFS content is read chunk by chunk as the resource is
+     * consumed; uploads stored before GridFS are loaded from their inline data.
+     */
+    public Resource openContent(SecureFileUpload secureFileUpload) {
+        if (secureFileUpload.getGridFsId() != null) {
+            GridFSFile gridFSFile = gridFsTemplate.findOne(
+                    new Query(Criteria.where("_id").is(new ObjectId(secureFileUpload.getGridFsId())))
+            );
+
+            if (gridFSFile == null) {
+                throw new IllegalStateException("GridFS content of file " + secureFileUpload.getId() + " not found");
+            }
+
+            return gridFsTemplate.getResource(gridFSFile);
+        }
+
+        byte[] data = secureFileUpload.getData() != null
+                ? secureFileUpload.getData()
+                : load(secureFileUpload.getId()).getData();
+
+        return new ByteArrayResource(data) {
+            @Override
+            public String getFilename() {
+                return secureFileUpload.getFileName();
+            }
+        };
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package net.ai.chatbot.service.dashboard;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.ai.chatbot.dto.UserChatHistory;
+import net.ai.chatbot.entity.ChatUsageDaily;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rolls raw chat history up into per-chatbot daily buckets (chat_usage_daily).
+ * <p>
+ * The dashboard time series, hourly distribution and peak-day figures read the buckets
+ * instead of re-grouping n8n_chat_session_histories on every request. Today's and yesterday's
+ * buckets are rebuilt on a fixed delay, so the current day lags by at most one interval.
+ * Upserts are idempotent, so several nodes running the job is harmless.
+ * <p>
+ * The one-time backfill of the whole history runs on its own thread, so it doesn't hold up the
+ * other scheduled jobs. Crawler workers leave the rollup to the application nodes.
+ */
+@Service
+@Slf4j
+@Profile("!crawler-worker")
+public class ChatUsageRollupService {
+
+    private static final String HISTORY_COLLECTION = "n8n_chat_session_histories";
+    private static final int BACKFILL_WINDOW_DAYS = 31;
+
+    private final MongoTemplate mongoTemplate;
+    private final AtomicBoolean backfillChecked = new AtomicBoolean(false);
+    private final ExecutorService backfillExecutor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("chat-usage-backfill-"));
+
+    public ChatUsageRollupService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Refresh yesterday's and today's buckets. On the first run, starts the backfill of the
+     * whole history if no buckets exist yet.
+     */
+    @Scheduled(fixedDelayString = "${dashboard.usage-rollup.interval-ms:300000}", initialDelay = 30_000)
+    public void rollupRecentDays() {
+        try {
+            if (backfillChecked.compareAndSet(false, true)) {
+                startBackfillIfEmpty();
+            }
+
+            LocalDate today = LocalDate.now(ZoneOffset.UTC);
+            rollup(today.minusDays(1), today);
+        } catch (Exception e) {
+            log.error("Error rolling up chat usage: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Rebuild the buckets of every chatbot for the given UTC days (inclusive).
+     * Large ranges are processed in windows so each aggregation stays small.
+     */
+    public void rollup(LocalDate from, LocalDate to) {
+        LocalDate windowStart = from;
+
+        while (!windowStart.isAfter(to)) {
+            LocalDate windowEnd = windowStart.plusDays(BACKFILL_WINDOW_DAYS - 1);
+            if (windowEnd.isAfter(to)) {
+                windowEnd = to;
+            }
+
+            rollupWindow(windowStart, windowEnd);
+            windowStart = windowEnd.plusDays(1);
+        }
+    }
+
+    /**
+     * Checked here rather than on the backfill thread, before this run writes today's buckets.
+     */
+    private void startBackfillIfEmpty() {
+        if (mongoTemplate.exists(new Query(), ChatUsageDaily.class)) {
+            return;
+        }
+
+        backfillExecutor.execute(() -> {
+            try {
+                backfill();
+            } catch (Exception e) {
+                log.error("Error backfilling chat usage: {}", e.getMessage(), e);
+            }
+        });
+    }
+
+    private void backfill() {
+        Query firstMessageQuery = new Query(Criteria.where("createdAt").ne(null))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt"))
+                .limit(1);
+        firstMessageQuery.fields().include("createdAt");
+
+        UserChatHistory firstMessage = mongoTemplate.findOne(firstMessageQuery, UserChatHistory.class);
+        if (firstMessage == null || firstMessage.getCreatedAt() == null) {
+            return;
+        }
+
+        LocalDate from = LocalDate.ofInstant(firstMessage.getCreatedAt(), ZoneOffset.UTC);
+        LocalDate to = LocalDate.now(ZoneOffset.UTC);
+
+        log.info("Backfilling chat usage buckets from {} to {}", from, to);
+        rollup(from, to);
+        log.info("Chat usage backfill completed");
+    }
+
+    private void rollupWindow(LocalDate from, LocalDate to) {
+        Date start = Date.from(from.atStartOfDay(ZoneOffset.UTC).toInstant());
+        Date end = Date.from(to.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant());
+
+        Criteria window = Criteria.where("createdAt").gte(start).lt(end)
+                .and("chatbotId").ne(null);
+
+        AggregationOptions options = AggregationOptions.builder().allowDiskUse(true).build();
+
+        // Daily totals with distinct conversations and users
+        Aggregation dailyAggregation = Aggregation.newAggregation(
+                Aggregation.match(window),
+                Aggregation.project("chatbotId", "conversationid", "email")
+                        .andExpression("dateToString('%Y-%m-%d', $createdAt)").as("date"),
+                Aggregation.group("chatbotId", "date")
+                        .count().as("messages")
+                        .addToSet("conversationid").as("conversationIds")
+                        .addToSet("email").as("emails"),
+                Aggregation.project("messages")
+                        .and("conversationIds").size().as("conversations")
+                        .and("emails").size().as("users")
+        ).withOptions(options);
+
+        // Messages per hour of day
+        Aggregation hourlyAggregation = Aggregation.newAggregation(
+                Aggregation.match(window),
+                Aggregation.project("chatbotId")
+                        .andExpression("dateToString('%Y-%m-%d', $createdAt)").as("date")
+                        .andExpression("hour($createdAt)").as("hour"),
+                Aggregation.group("chatbotId", "date", "hour")
+                        .count().as("messages")
+        ).withOptions(options);
+
+        Map<String, ChatUsageDaily> buckets = new HashMap<>();
+
+        for (Document result : mongoTemplate.aggregate(dailyAggregation, HISTORY_COLLECTION, Document.class)) {
+            Document key = result.get("_id", Document.class);
+            ChatUsageDaily bucket = bucketFor(buckets, key.getString("chatbotId"), key.getString("date"));
+            bucket.setMessages(((Number) result.get("messages")).longValue());
+            bucket.setConversations(((Number) result.get("conversations")).longValue());
+            bucket.setUsers(((Number) result.get("users")).longValue());
+        }
+
+        for (Document result : mongoTemplate.aggregate(hourlyAggregation, HISTORY_COLLECTION, Document.class)) {
+            Document key = result.get("_id", Document.class);
+            ChatUsageDaily bucket = bucketFor(buckets, key.getString("chatbotId"), key.getString("date"));
+            int hour = ((Number) key.get("hour")).intValue();
+            bucket.getHourlyMessages().set(hour, ((Number) result.get("messages")).longValue());
+        }
+
+        if (buckets.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ChatUsageDaily.class);
+        Date now = new Date();
+
+        for (ChatUsageDaily bucket : buckets.values()) {
+            bulk.upsert(
+                    new Query(Criteria.where("id").is(bucket.getId())),
+                    new Update()
+                            .set("chatbotId", bucket.getChatbotId())
+                            .set("date", bucket.getDate())
+                            .set("day", bucket.getDay())
+                            .set("conversations", bucket.getConversations())
+                            .set("messages", bucket.getMessages())
+                            .set("users", bucket.getUsers())
+                            .set("hourlyMessages", bucket.getHourlyMessages())
+                            .set("updatedAt", now)
+            );
+        }
+
+        bulk.execute();
+
+        log.debug("Rolled up {} chat usage buckets for {} to {}", buckets.size(), from, to);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backfillExecutor.shutdownNow();
+    }
+
+    private ChatUsageDaily bucketFor(Map<String, ChatUsageDaily> buckets, String chatbotId, String date) {
+        return buckets.computeIfAbsent(chatbotId + "_" + date, id -> ChatUsageDaily.builder()
+                .id(id)
+                .chatbotId(chatbotId)
+                .date(date)
+                .day(Date.from(Instant.parse(date + "T00:00:00Z")))
+                .hourlyMessages(new ArrayList<>(Collections.nCopies(24, 0L)))
+                .build());
+    }
+}
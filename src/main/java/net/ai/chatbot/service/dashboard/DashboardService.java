@@ -5,29 +5,44 @@ import net.ai.chatbot.dao.ChatBotDao;
 import net.ai.chatbot.dto.UserChatHistory;
 import net.ai.chatbot.dto.dashboard.*;
 import net.ai.chatbot.entity.ChatBot;
+import net.ai.chatbot.entity.ChatUsageDaily;
+import net.ai.chatbot.entity.KnowledgeBaseStats;
+import net.ai.chatbot.service.mongodb.MongodbVectorService;
 import net.ai.chatbot.utils.AuthUtils;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.aggregation.*;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 public class DashboardService {
 
+    private static final String USAGE_DAILY_COLLECTION = "chat_usage_daily";
+
     private final MongoTemplate mongoTemplate;
     private final ChatBotDao chatBotDao;
+    private final MongodbVectorService mongodbVectorService;
 
-    public DashboardService(MongoTemplate mongoTemplate, ChatBotDao chatBotDao) {
+    public DashboardService(MongoTemplate mongoTemplate, ChatBotDao chatBotDao,
+                            MongodbVectorService mongodbVectorService) {
         this.mongoTemplate = mongoTemplate;
         this.chatBotDao = chatBotDao;
+        this.mongodbVectorService = mongodbVectorService;
     }
 
     /**
@@ -76,13 +91,8 @@ public class DashboardService {
         long activeChatBots = getActiveChatBotsCount(currentUserEmail);
         long activeConversationsToday = getActiveConversationsToday(userChatBotIds);
         
-        // Knowledge bases for user's chatbots
-        long totalKnowledgeBases = 0;
-        for (String chatbotId : userChatBotIds) {
-            Query kbQuery = new Query();
-            // Assuming knowledge bases are stored in chatbot-specific collections
-            totalKnowledgeBases += mongoTemplate.count(kbQuery, "jade-ai-knowledgebase-" + chatbotId);
-        }
+        // Knowledge-base chunks for user's chatbots (maintained counters, no collection scans)
+        long totalKnowledgeBases = getTotalKnowledgeBaseChunks(userChatBotIds);
 
         return OverallStats.builder()
                 .totalChatBots(totalChatBots)
@@ -256,30 +266,29 @@ public class DashboardService {
                     .collect(Collectors.toList());
         }
         
-        Instant startDate = Instant.now().truncatedTo(ChronoUnit.DAYS).minus(days, ChronoUnit.DAYS);
+        Date startDate = Date.from(Instant.now().truncatedTo(ChronoUnit.DAYS).minus(days, ChronoUnit.DAYS));
         
-        // Aggregate conversations by date for user's chatbots
-        MatchOperation matchConversations = Aggregation.match(
+        // Sum the pre-aggregated daily buckets of the user's chatbots
+        MatchOperation matchBuckets = Aggregation.match(
                 Criteria.where("chatbotId").in(userChatBotIds)
-                        .and("createdAt").gte(startDate).exists(true).ne(null)
+                        .and("day").gte(startDate)
         );
         
-        ProjectionOperation projectDate = Aggregation.project()
-                .andExpression("dateToString('%Y-%m-%d', $createdAt)").as("date");
-        
         GroupOperation groupByDate = Aggregation.group("date")
-                .count().as("conversations");
+                .sum("conversations").as("conversations")
+                .sum("messages").as("messages")
+                .sum("users").as("users")
+                .count().as("chatBots");
         
         Aggregation aggregation = Aggregation.newAggregation(
-                matchConversations,
-                projectDate,
+                matchBuckets,
                 groupByDate
         );
         
         @SuppressWarnings("unchecked")
         List<Map<String, Object>> results = (List<Map<String, Object>>) (List<?>) mongoTemplate.aggregate(
                 aggregation,
-                "n8n_chat_session_histories",
+                USAGE_DAILY_COLLECTION,
                 Map.class
         ).getMappedResults();
         
@@ -301,9 +310,12 @@ public class DashboardService {
         // Fill in actual data
         for (Map<String, Object> result : results) {
             String date = (String) result.get("_id");
-            long conversations = ((Number) result.get("conversations")).longValue();
-            if (dataMap.containsKey(date)) {
-                dataMap.get(date).setConversations(conversations);
+            TimeSeriesData data = dataMap.get(date);
+            if (data != null) {
+                data.setConversations(((Number) result.get("conversations")).longValue());
+                data.setMessages(((Number) result.get("messages")).longValue());
+                data.setUsers(((Number) result.get("users")).longValue());
+                data.setChatBots(((Number) result.get("chatBots")).longValue());
             }
         }
         
@@ -313,6 +325,54 @@ public class DashboardService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Export per-chatbot daily usage of the current user's chatbots as CSV or NDJSON.
+     * Buckets are read through a cursor and written as they arrive, so multi-year
+     * ranges are never held in memory.
+     */
+    public StreamingResponseBody exportUsageOverTime(LocalDate from, LocalDate to, boolean ndjson) {
+        String currentUserEmail = AuthUtils.getEmail();
+        List<String> userChatBotIds = getUserChatBotIds(currentUserEmail);
+
+        Query query = new Query(Criteria.where("day")
+                .gte(Date.from(from.atStartOfDay(ZoneOffset.UTC).toInstant()))
+                .lt(Date.from(to.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant()))
+                .and("chatbotId").in(userChatBotIds))
+                .with(org.springframework.data.domain.Sort.by("day", "chatbotId"))
+                .cursorBatchSize(500);
+        query.fields().exclude("hourlyMessages");
+
+        return outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+
+            if (!ndjson) {
+                writer.write("date,chatbotId,conversations,messages,users\n");
+            }
+
+            if (!userChatBotIds.isEmpty()) {
+                try (Stream<ChatUsageDaily> buckets = mongoTemplate.stream(query, ChatUsageDaily.class)) {
+                    Iterator<ChatUsageDaily> iterator = buckets.iterator();
+                    while (iterator.hasNext()) {
+                        ChatUsageDaily bucket = iterator.next();
+                        if (ndjson) {
+                            writer.write("{\"date\":\"" + bucket.getDate()
+                                    + "\",\"chatbotId\":\"" + bucket.getChatbotId()
+                                    + "\",\"conversations\":" + bucket.getConversations()
+                                    + ",\"messages\":" + bucket.getMessages()
+                                    + ",\"users\":" + bucket.getUsers() + "}\n");
+                        } else {
+                            writer.write(bucket.getDate() + "," + bucket.getChatbotId() + ","
+                                    + bucket.getConversations() + "," + bucket.getMessages() + ","
+                                    + bucket.getUsers() + "\n");
+                        }
+                    }
+                }
+            }
+
+            writer.flush();
+        };
+    }
+
     /**
      * Get top chatbots by activity (filtered by current user's chatbots)
      */
@@ -473,6 +533,36 @@ public class DashboardService {
         return mongoTemplate.count(query, UserChatHistory.class);
     }
 
+    /**
+     * Sum the maintained knowledge-base chunk counters of the given chatbots.
+     * Chatbots trained before the counters existed are counted once and then cached.
+     */
+    private long getTotalKnowledgeBaseChunks(List<String> chatbotIds) {
+        if (chatbotIds.isEmpty()) {
+            return 0;
+        }
+
+        Query query = new Query(Criteria.where("chatbotId").in(chatbotIds));
+        query.fields().include("chatbotId").include("chunkCount");
+        List<KnowledgeBaseStats> stats = mongoTemplate.find(query, KnowledgeBaseStats.class);
+
+        long total = stats.stream().mapToLong(KnowledgeBaseStats::getChunkCount).sum();
+
+        if (stats.size() < chatbotIds.size()) {
+            Set<String> counted = stats.stream()
+                    .map(KnowledgeBaseStats::getChatbotId)
+                    .collect(Collectors.toSet());
+
+            for (String chatbotId : chatbotIds) {
+                if (!counted.contains(chatbotId)) {
+                    total += mongodbVectorService.refreshKnowledgebaseChunkCount(chatbotId);
+                }
+            }
+        }
+
+        return total;
+    }
+
     private long getActiveChatBotsCount(String userEmail) {
         Query query = new Query(Criteria.where("createdBy").is(userEmail)
                 .and("status").in("COMPLETED", "TRAINING"));
@@ -613,14 +703,11 @@ public class DashboardService {
         if (chatbotIds.isEmpty()) return 0;
         
         try {
-            // Group by date and count messages
-            MatchOperation matchChatbots = Aggregation.match(Criteria.where("chatbotId").in(chatbotIds)
-                    .and("createdAt").exists(true).ne(null));
-            ProjectionOperation projectDate = Aggregation.project()
-                    .andExpression("dateToString('%Y-%m-%d', $createdAt)").as("date");
+            // Sum the daily buckets per date and keep the busiest day
+            MatchOperation matchChatbots = Aggregation.match(Criteria.where("chatbotId").in(chatbotIds));
             
             GroupOperation groupByDate = Aggregation.group("date")
-                    .count().as("count");
+                    .sum("messages").as("count");
             
             SortOperation sort = Aggregation.sort(org.springframework.data.domain.Sort.by(
                     org.springframework.data.domain.Sort.Direction.DESC, "count"));
@@ -629,7 +716,6 @@ public class DashboardService {
             
             Aggregation aggregation = Aggregation.newAggregation(
                     matchChatbots,
-                    projectDate,
                     groupByDate,
                     sort,
                     limit
@@ -638,7 +724,7 @@ public class DashboardService {
             @SuppressWarnings("unchecked")
             List<Map<String, Object>> results = (List<Map<String, Object>>) (List<?>) mongoTemplate.aggregate(
                     aggregation,
-                    "n8n_chat_session_histories",
+                    USAGE_DAILY_COLLECTION,
                     Map.class
             ).getMappedResults();
             
@@ -657,24 +743,10 @@ public class DashboardService {
         if (chatbotIds.isEmpty()) return new HashMap<>();
         
         try {
-            MatchOperation matchChatbots = Aggregation.match(Criteria.where("chatbotId").in(chatbotIds)
-                    .and("createdAt").exists(true).ne(null));
-            ProjectionOperation projectHour = Aggregation.project()
-                    .andExpression("hour($createdAt)").as("hour");
-            
-            GroupOperation groupByHour = Aggregation.group("hour")
-                    .count().as("count");
-            
-            Aggregation aggregation = Aggregation.newAggregation(
-                    matchChatbots,
-                    projectHour,
-                    groupByHour
-            );
-            
             @SuppressWarnings("unchecked")
             List<Map<String, Object>> results = (List<Map<String, Object>>) (List<?>) mongoTemplate.aggregate(
-                    aggregation,
-                    "n8n_chat_session_histories",
+                    messagesByHourAggregation(chatbotIds),
+                    USAGE_DAILY_COLLECTION,
                     Map.class
             ).getMappedResults();
             
@@ -682,7 +754,9 @@ public class DashboardService {
             for (Map<String, Object> result : results) {
                 int hour = ((Number) result.get("_id")).intValue();
                 long count = ((Number) result.get("count")).longValue();
-                hourMap.put(String.valueOf(hour), count);
+                if (count > 0) {
+                    hourMap.put(String.valueOf(hour), count);
+                }
             }
             
             return hourMap;
@@ -692,6 +766,24 @@ public class DashboardService {
         }
     }
 
+    /**
+     * Unwind the 24 hourly counters of each daily bucket, keeping the array index as the hour,
+     * and sum them per hour.
+     */
+    static Aggregation messagesByHourAggregation(List<String> chatbotIds) {
+        MatchOperation matchChatbots = Aggregation.match(Criteria.where("chatbotId").in(chatbotIds));
+        UnwindOperation unwindHours = Aggregation.unwind("hourlyMessages", "hour");
+
+        GroupOperation groupByHour = Aggregation.group("hour")
+                .sum("hourlyMessages").as("count");
+
+        return Aggregation.newAggregation(
+                matchChatbots,
+                unwindHours,
+                groupByHour
+        );
+    }
+
     private long getActiveUsersCountAfter(Instant date, List<String> chatbotIds) {
         if (chatbotIds.isEmpty()) return 0;
         
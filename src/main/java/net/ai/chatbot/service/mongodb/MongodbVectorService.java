@@ -2,13 +2,24 @@ package net.ai.chatbot.service.mongodb;
 
 import com.mongodb.MongoCommandException;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
 import lombok.extern.slf4j.Slf4j;
+import net.ai.chatbot.entity.KnowledgeBaseStats;
 import org.bson.Document;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 /**
  * Service for managing MongoDB collections and vector indexes
@@ -17,8 +28,14 @@ import java.util.List;
 @Service
 public class MongodbVectorService {
 
+    private static final String KNOWLEDGEBASE_COLLECTION_PREFIX = "jade-ai-knowledgebase-";
+
     private final MongoTemplate mongoTemplate;
 
+    // Collections and "collection/index" pairs known to exist; they are never dropped by this service
+    private final Set<String> knownCollections = ConcurrentHashMap.newKeySet();
+    private final Set<String> knownVectorIndexes = ConcurrentHashMap.newKeySet();
+
     @Value("${spring.data.mongodb.database}")
     private String databaseName;
 
@@ -27,13 +44,31 @@ public class MongodbVectorService {
     }
 
     public String getKnowledgebaseCollectionName(String projectId) {
-        return "jade-ai-knowledgebase-" + projectId;
+        return KNOWLEDGEBASE_COLLECTION_PREFIX + projectId;
     }
 
     public String getKnowledgebaseVectorIndexName(String projectId) {
         return "jade-ai-vector-index-" + projectId;
     }
 
+    /**
+     * Loads the names of existing knowledge-base collections, so training tasks don't have to
+     * look them up. Only collections with the knowledge-base prefix are listed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmRegistry() {
+        try {
+            mongoTemplate.getDb()
+                    .listCollections()
+                    .filter(Filters.regex("name", "^" + Pattern.quote(KNOWLEDGEBASE_COLLECTION_PREFIX)))
+                    .forEach(collection -> knownCollections.add(collection.getString("name")));
+
+            log.info("Knowledge-base collection registry warmed with {} collections", knownCollections.size());
+        } catch (Exception e) {
+            log.warn("Could not warm knowledge-base collection registry: {}", e.getMessage());
+        }
+    }
+
     /**
      * Creates a MongoDB collection if it doesn't already exist
      *
@@ -41,19 +76,22 @@ public class MongodbVectorService {
      * @return MongoCollection instance
      */
     public boolean createMongodbCollection(String collectionName) {
+        if (knownCollections.contains(collectionName)) {
+            return true;
+        }
+
         try {
             log.info("Creating MongoDB collection: {}", collectionName);
 
-            boolean collectionExists = mongoTemplate.getCollectionNames()
-                    .contains(collectionName);
-
-            if (!collectionExists) {
+            if (!collectionExists(collectionName)) {
                 mongoTemplate.createCollection(collectionName);
                 log.info("Collection '{}' created successfully", collectionName);
             } else {
                 log.info("Collection '{}' already exists", collectionName);
             }
 
+            knownCollections.add(collectionName);
+
             return true;
 
         } catch (Exception e) {
@@ -62,6 +100,26 @@ public class MongodbVectorService {
         }
     }
 
+    /**
+     * True if the collection exists: from the registry, or by listing collections filtered on the
+     * name. MongoTemplate.collectionExists lists every collection of the database instead.
+     */
+    private boolean collectionExists(String collectionName) {
+        if (knownCollections.contains(collectionName)) {
+            return true;
+        }
+
+        boolean exists = mongoTemplate.getDb()
+                .listCollections()
+                .filter(Filters.eq("name", collectionName))
+                .first() != null;
+
+        if (exists) {
+            knownCollections.add(collectionName);
+        }
+        return exists;
+    }
+
         /**
          * Creates a vector search index on a MongoDB collection
          *
@@ -77,7 +135,18 @@ public class MongodbVectorService {
                                         int dimensions,
                                         String similarityMetric) {
 
+            String indexKey = collectionName + "/" + vectorIndexName;
+            if (knownVectorIndexes.contains(indexKey)) {
+                return;
+            }
+
             try {
+                if (mongoTemplate.getCollection(collectionName).listSearchIndexes().name(vectorIndexName).first() != null) {
+                    log.info("Vector search index '{}' already exists on collection '{}'", vectorIndexName, collectionName);
+                    knownVectorIndexes.add(indexKey);
+                    return;
+                }
+
                 log.info("Creating vector search index '{}' on collection '{}'", vectorIndexName, collectionName);
 
                 Document vectorIndexDefinition = new Document()
@@ -95,12 +164,14 @@ public class MongodbVectorService {
                         .append("indexes", List.of(vectorIndexDefinition));
 
                 mongoTemplate.getDb().runCommand(command);
-                
+                knownVectorIndexes.add(indexKey);
+
                 log.info("Vector search index '{}' created successfully on collection '{}'", vectorIndexName, collectionName);
                 
             } catch (MongoCommandException e) {
                 if (e.getErrorCode() == 68) {
                     log.info("Vector search index '{}' already exists on collection '{}'", vectorIndexName, collectionName);
+                    knownVectorIndexes.add(indexKey);
                 } else {
                     log.error("Failed to create vector search index '{}' on collection '{}': {}", 
                             vectorIndexName, collectionName, e.getMessage(), e);
@@ -112,4 +183,49 @@ public class MongodbVectorService {
                 throw e;
             }
         }
-}
\ No newline at end of file
+
+    /**
+     * Re-reads the chunk count of a chatbot's knowledge-base collection and stores it in
+     * knowledgebase_stats. Uses the collection metadata count, so it never scans the chunks, and the
+     * collection registry, so it doesn't list the database's collections either.
+     *
+     * @param chatbotId the chatbot ID
+     * @return the stored chunk count
+     */
+    public long refreshKnowledgebaseChunkCount(String chatbotId) {
+        String collectionName = getKnowledgebaseCollectionName(chatbotId);
+
+        long chunkCount = collectionExists(collectionName)
+                ? mongoTemplate.getCollection(collectionName).estimatedDocumentCount()
+                : 0;
+
+        mongoTemplate.upsert(
+                new Query().addCriteria(Criteria.where("chatbotId").is(chatbotId)),
+                new Update()
+                        .set("chunkCount", chunkCount)
+                        .set("updatedAt", new Date()),
+                KnowledgeBaseStats.class
+        );
+
+        log.info("Knowledge-base chunk count for chatbot '{}' is {}", chatbotId, chunkCount);
+
+        return chunkCount;
+    }
+
+    /**
+     * Adds freshly inserted chunks to the stored chunk count, so the dashboard follows a
+     * training run without waiting for the refresh at its end.
+     *
+     * @param chatbotId the chatbot ID
+     * @param delta     number of chunks inserted
+     */
+    public void incrementKnowledgebaseChunkCount(String chatbotId, long delta) {
+        mongoTemplate.upsert(
+                new Query().addCriteria(Criteria.where("chatbotId").is(chatbotId)),
+                new Update()
+                        .inc("chunkCount", delta)
+                        .set("updatedAt", new Date()),
+                KnowledgeBaseStats.class
+        );
+    }
+}
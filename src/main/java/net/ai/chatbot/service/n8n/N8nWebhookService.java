@@ -1,42 +1,71 @@
 package net.ai.chatbot.service.n8n;
 
 import lombok.extern.slf4j.Slf4j;
+import net.ai.chatbot.entity.KnowledgeChunk;
 import net.ai.chatbot.service.webclient.GenericWebClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.BodyInserters;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class N8nWebhookService {
 
+    // Version 2 workflows embed the "chunks" of a pre-chunked request, see N8N_KNOWLEDGEBASE_TRAINING_WORKFLOW.md
+    private static final int CHUNKS_WORKFLOW_VERSION = 2;
+
     private final GenericWebClient webClient;
+    private final int workflowVersion;
 
-    public N8nWebhookService(GenericWebClient webClient) {
+    public N8nWebhookService(GenericWebClient webClient,
+                             @Value("${n8n.webhook.knowledgebase.train.workflow-version:1}") int workflowVersion) {
         this.webClient = webClient;
+        this.workflowVersion = workflowVersion;
     }
 
+    /**
+     * @param sourceId knowledge-base source key; the workflow stores it as metadata.sourceId on every chunk
+     */
     public void submitAttachmentToN8nKnowledgebase(byte[] fileBytes, String fileName, String email,
                                                    String collectionName, String vectorIndexName,
-                                                   String dataType, String webhookUrl) {
+                                                   String dataType, String sourceId, String webhookUrl) {
+        ByteArrayResource fileResource = new ByteArrayResource(fileBytes) {
+            @Override
+            public String getFilename() {
+                return fileName;
+            }
+        };
+
+        submitAttachmentToN8nKnowledgebase(fileResource, fileName, email, collectionName, vectorIndexName,
+                dataType, sourceId, webhookUrl);
+    }
+
+    /**
+     * Submit a file as a multipart body. The resource is read in small buffers while the request
+     * is written, so a streamed resource (e.g. GridFS) is never held in memory as a whole.
+     *
+     * @param sourceId knowledge-base source key; the workflow stores it as metadata.sourceId on every chunk
+     */
+    public void submitAttachmentToN8nKnowledgebase(Resource fileResource, String fileName, String email,
+                                                   String collectionName, String vectorIndexName,
+                                                   String dataType, String sourceId, String webhookUrl) {
         try {
             log.info("Sending attachment to n8n webhook: {}", webhookUrl);
 
-            ByteArrayResource fileResource = new ByteArrayResource(fileBytes) {
-                @Override
-                public String getFilename() {
-                    return fileName;
-                }
-            };
-
             Map<String, String> headers = new HashMap<>();
             headers.put("dataType", dataType);
             headers.put("collectionName", collectionName);
             headers.put("vectorIndexName", vectorIndexName);
             headers.put("email", email);
+            headers.put("sourceId", sourceId);
 
             String response = webClient.post(webhookUrl,
                     () -> BodyInserters.fromMultipartData("body", fileResource),
@@ -51,9 +80,12 @@ public class N8nWebhookService {
         }
     }
 
+    /**
+     * @param sourceId knowledge-base source key; the workflow stores it as metadata.sourceId on every chunk
+     */
     public void submitTextContentToN8nKnowledgebase(String semanticText,  String email,
                                                     String collectionName, String vectorIndexName,
-                                                    String dataType, String webhookUrl) {
+                                                    String dataType, String sourceId, String webhookUrl) {
         try {
             log.info("Sending attachment to n8n webhook: {}", webhookUrl);
 
@@ -64,6 +96,7 @@ public class N8nWebhookService {
             headers.put("collectionName", collectionName);
             headers.put("vectorIndexName", vectorIndexName);
             headers.put("email", email);
+            headers.put("sourceId", sourceId);
 
             String response = webClient.post(webhookUrl,
                     () -> requestBody,
@@ -77,4 +110,53 @@ public class N8nWebhookService {
             throw new RuntimeException("Failed to send attachment to n8n", e);
         }
     }
+
+    /**
+     * Submit pre-chunked text. A version 2 workflow gets "chunks" only, each chunk with its sourceId
+     * and index, and embeds them as-is. Older workflows only read "body", so each source's chunks
+     * are joined and sent as text, which the workflow splits again.
+     */
+    public void submitChunksToN8nKnowledgebase(List<KnowledgeChunk> chunks, String email,
+                                               String collectionName, String vectorIndexName,
+                                               String dataType, String webhookUrl) {
+        if (workflowVersion < CHUNKS_WORKFLOW_VERSION) {
+            chunks.stream()
+                    .collect(Collectors.groupingBy(KnowledgeChunk::sourceId, LinkedHashMap::new,
+                            Collectors.mapping(KnowledgeChunk::text, Collectors.joining("\n\n"))))
+                    .forEach((sourceId, text) -> submitTextContentToN8nKnowledgebase(text, email,
+                            collectionName, vectorIndexName, dataType, sourceId, webhookUrl));
+            return;
+        }
+
+        try {
+            log.info("Sending {} chunks to n8n webhook: {}", chunks.size(), webhookUrl);
+
+            List<Map<String, Object>> chunkBodies = chunks.stream()
+                    .map(chunk -> Map.<String, Object>of(
+                            "text", chunk.text(),
+                            "sourceId", chunk.sourceId(),
+                            "chunkIndex", chunk.chunkIndex()))
+                    .toList();
+
+            Map<String, Object> requestBody = Map.of("chunks", chunkBodies);
+
+            Map<String, String> headers = new HashMap<>();
+            headers.put("dataType", dataType);
+            headers.put("collectionName", collectionName);
+            headers.put("vectorIndexName", vectorIndexName);
+            headers.put("email", email);
+            headers.put("chunked", "true");
+
+            String response = webClient.post(webhookUrl,
+                    () -> requestBody,
+                    String.class,
+                    headers);
+
+            log.info("{} chunks for '{}' successfully sent to n8n. Response: {}", chunks.size(), email, response);
+
+        } catch (Exception e) {
+            log.error("Error sending chunks to n8n webhook: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to send chunks to n8n", e);
+        }
+    }
 }
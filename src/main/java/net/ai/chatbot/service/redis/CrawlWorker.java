@@ -0,0 +1,119 @@
+package net.ai.chatbot.service.redis;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.ai.chatbot.entity.CrawlJob;
+import net.ai.chatbot.entity.CrawledPage;
+import net.ai.chatbot.service.training.CrawlOptions;
+import net.ai.chatbot.service.training.PlaywrightWebsiteCrawler;
+import net.ai.chatbot.service.training.RemoteCrawlService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.stream.ObjectRecord;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.ai.chatbot.constants.Constants.CRAWL_JOB_STREAM;
+import static net.ai.chatbot.constants.Constants.CRAWL_WORKER_GROUP;
+import static net.ai.chatbot.service.training.HtmlSanitizer.extractSemanticText;
+
+/**
+ * Runs crawl jobs from {@code crawl-job-stream} on a crawler worker, see {@link RemoteCrawlService}.
+ * Consumers are only registered where {@code crawler.worker.consumers} is above 0, i.e. under the
+ * {@code crawler-worker} profile.
+ * <p>
+ * Jobs are acknowledged when received: a crawl lost with its worker is retried by the training
+ * task, which queues a new job once the result stream goes silent.
+ */
+@Slf4j
+@Component
+public class CrawlWorker {
+
+    private final RemoteCrawlService remoteCrawlService;
+    private final PlaywrightWebsiteCrawler websiteCrawler;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final long heartbeatIntervalMs;
+    private final String workerId;
+
+    private final ScheduledExecutorService heartbeats =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("crawl-heartbeat-"));
+
+    public CrawlWorker(RemoteCrawlService remoteCrawlService,
+                       PlaywrightWebsiteCrawler websiteCrawler,
+                       RedisTemplate<String, String> redisTemplate,
+                       @Value("${crawler.worker.heartbeat-interval-ms:15000}") long heartbeatIntervalMs) throws UnknownHostException {
+        this.remoteCrawlService = remoteCrawlService;
+        this.websiteCrawler = websiteCrawler;
+        this.redisTemplate = redisTemplate;
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+        this.workerId = InetAddress.getLocalHost().getHostName();
+    }
+
+    /**
+     * Crawls the job's website on the consumer thread, publishing every page as semantic text.
+     */
+    public void onMessage(ObjectRecord<String, String> record) {
+        redisTemplate.opsForStream().acknowledge(CRAWL_JOB_STREAM, CRAWL_WORKER_GROUP, record.getId());
+
+        CrawlJob job = remoteCrawlService.findJob(record.getValue());
+        if (job == null) {
+            log.warn("Crawl job {} of event {} not found, dropping", record.getValue(), record.getId());
+            return;
+        }
+
+        remoteCrawlService.publishStarted(job, workerId);
+        ScheduledFuture<?> heartbeat = heartbeats.scheduleWithFixedDelay(() -> {
+            try {
+                remoteCrawlService.publishHeartbeat(job.getId());
+            } catch (Exception e) {
+                // A thrown exception would cancel the heartbeat for good
+                log.warn("Failed to publish heartbeat of crawl job {}: {}", job.getId(), e.getMessage());
+            }
+        }, heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+
+        Set<String> knownPages = job.getKnownPages() == null ? Set.of() : new HashSet<>(job.getKnownPages());
+        AtomicInteger pages = new AtomicInteger();
+
+        try {
+            log.info("Starting crawl job {} of {} for chatbot {}", job.getId(), job.getWebsiteUrl(), job.getChatbotId());
+
+            boolean complete = websiteCrawler.crawl(job.getWebsiteUrl(),
+                    job.getEmail(),
+                    CrawlOptions.builder()
+                            .maxDepth(job.getMaxDepth())
+                            .maxPages(job.getMaxPages())
+                            .stateScope(job.getChatbotId())
+                            .knownPage(knownPages::contains)
+                            .unchangedPage(url -> remoteCrawlService.publishUnchanged(job.getId(), url))
+                            .build(),
+                    scrappedData -> {
+                        String semanticText = extractSemanticText(scrappedData.html(), scrappedData.url());
+                        remoteCrawlService.publishPage(job.getId(), new CrawledPage(scrappedData.url(), scrappedData.title(), semanticText));
+                        pages.incrementAndGet();
+                    });
+
+            remoteCrawlService.publishDone(job.getId(), pages.get(), complete);
+            log.info("Finished crawl job {} of {}, {} pages", job.getId(), job.getWebsiteUrl(), pages.get());
+        } catch (Exception e) {
+            log.error("Crawl job {} of {} failed: {}", job.getId(), job.getWebsiteUrl(), e.getMessage(), e);
+            remoteCrawlService.publishFailed(job.getId(), e.getMessage());
+        } finally {
+            heartbeat.cancel(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+    }
+}
@@ -5,23 +5,50 @@ import net.ai.chatbot.dto.SecureFileUpload;
 import net.ai.chatbot.entity.ChatBot;
 import net.ai.chatbot.entity.ChatBotTask;
 import net.ai.chatbot.entity.KnowledgeBase;
+import net.ai.chatbot.entity.KnowledgeBaseManifestEntry;
+import net.ai.chatbot.entity.KnowledgeChunk;
+import net.ai.chatbot.entity.CrawlJob;
+import net.ai.chatbot.entity.CrawledPage;
+import net.ai.chatbot.entity.TrainingProgress;
 import net.ai.chatbot.enums.KnowledgeBaseType;
+import net.ai.chatbot.enums.TrainingLane;
+import net.ai.chatbot.enums.TrainingScope;
+import net.ai.chatbot.service.aichatbot.FileUploadService;
 import net.ai.chatbot.service.mongodb.MongodbVectorService;
 import net.ai.chatbot.service.n8n.N8nWebhookService;
+import net.ai.chatbot.service.training.CrawlOptions;
+import net.ai.chatbot.service.training.DirectEmbeddingIngestionService;
+import net.ai.chatbot.service.training.KnowledgeBaseManifestService;
+import net.ai.chatbot.service.training.KnowledgeChunker;
+import net.ai.chatbot.service.training.PageDeduplicator;
 import net.ai.chatbot.service.training.PlaywrightWebsiteCrawler;
+import net.ai.chatbot.service.training.RemoteCrawlService;
+import net.ai.chatbot.service.training.SimHash;
+import net.ai.chatbot.service.training.TrainingProgressService;
+import org.springframework.core.io.Resource;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.redis.connection.stream.ObjectRecord;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.stream.StreamListener;
 import org.springframework.util.StringUtils;
 
-import java.util.Date;
-import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
-
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Supplier;
+
+import static net.ai.chatbot.constants.Constants.REDIS_STREAM_SERVER_GROUP;
 import static net.ai.chatbot.service.training.HtmlSanitizer.*;
+import static net.ai.chatbot.service.training.KnowledgeBaseManifestService.*;
+import static net.ai.chatbot.service.training.TrainingProgressService.COMPLETED;
 
 @Slf4j
 public class KnowledgebaseProcessor implements StreamListener<String, ObjectRecord<String, String>> {
@@ -29,27 +56,121 @@ public class KnowledgebaseProcessor implements StreamListener<String, ObjectReco
     private final MongoTemplate mongoTemplate;
     private final MongodbVectorService mongodbVectorService;
     private final N8nWebhookService n8nWebhookService;
+    private final TrainingPipelineExecutor pipelineExecutor;
+    private final TenantFairScheduler tenantScheduler;
+    private final TrainingStreamHeartbeat streamHeartbeat;
+    private final KnowledgeBaseManifestService manifestService;
+    private final KnowledgeChunker knowledgeChunker;
+    private final DirectEmbeddingIngestionService directEmbedding;
+    private final TrainingProgressService progressService;
+    private final FileUploadService fileUploadService;
+    private final PlaywrightWebsiteCrawler websiteCrawler;
+    private final PageDeduplicator pageDeduplicator;
+    private final RemoteCrawlService remoteCrawlService;
+    private final RedisTemplate<String, String> redisTemplate;
     private final String knowledgeBaseTrainingWebhookUrl;
 
     public KnowledgebaseProcessor(MongoTemplate mongoTemplate,
                                   MongodbVectorService mongodbVectorService,
                                   N8nWebhookService n8nWebhookService,
+                                  TrainingPipelineExecutor pipelineExecutor,
+                                  TenantFairScheduler tenantScheduler,
+                                  TrainingStreamHeartbeat streamHeartbeat,
+                                  KnowledgeBaseManifestService manifestService,
+                                  KnowledgeChunker knowledgeChunker,
+                                  DirectEmbeddingIngestionService directEmbedding,
+                                  TrainingProgressService progressService,
+                                  FileUploadService fileUploadService,
+                                  PlaywrightWebsiteCrawler websiteCrawler,
+                                  PageDeduplicator pageDeduplicator,
+                                  RemoteCrawlService remoteCrawlService,
+                                  RedisTemplate<String, String> redisTemplate,
                                   String knowledgeBaseTrainingWebhookUrl) {
         this.mongoTemplate = mongoTemplate;
         this.mongodbVectorService = mongodbVectorService;
         this.n8nWebhookService = n8nWebhookService;
+        this.pipelineExecutor = pipelineExecutor;
+        this.tenantScheduler = tenantScheduler;
+        this.streamHeartbeat = streamHeartbeat;
+        this.manifestService = manifestService;
+        this.knowledgeChunker = knowledgeChunker;
+        this.directEmbedding = directEmbedding;
+        this.progressService = progressService;
+        this.fileUploadService = fileUploadService;
+        this.websiteCrawler = websiteCrawler;
+        this.pageDeduplicator = pageDeduplicator;
+        this.remoteCrawlService = remoteCrawlService;
+        this.redisTemplate = redisTemplate;
         this.knowledgeBaseTrainingWebhookUrl = knowledgeBaseTrainingWebhookUrl;
     }
 
+    /**
+     * Queues a training task on the {@link TenantFairScheduler} under the chatbot owner. Blocks
+     * while the lane's buffer on this node is full. The entry is heartbeated from now until the
+     * task is done, so neither a wait in the buffer nor a long crawl makes it look stale.
+     */
     @Override
     public void onMessage(ObjectRecord<String, String> record) {
         log.info("Message is consuming for website crawl event {}", record.getId());
 
         ChatBotTask chatBotTask = getChatbotTask(record);
-        if (chatBotTask == null) return;
+        if (chatBotTask == null) {
+            log.warn("Chatbot task {} of event {} not found, dropping", record.getValue(), record.getId());
+            acknowledge(record);
+            return;
+        }
 
         ChatBot chatBot = getChatbot(chatBotTask.getChatbotId());
-        if (chatBot == null) return;
+        if (chatBot == null) {
+            log.warn("Chatbot {} of event {} not found, dropping", chatBotTask.getChatbotId(), record.getId());
+            acknowledge(record);
+            return;
+        }
+
+        TrainingLane lane = chatBotTask.getLane() == null ? TrainingLane.BACKGROUND : chatBotTask.getLane();
+        String tenant = StringUtils.hasText(chatBot.getCreatedBy()) ? chatBot.getCreatedBy() : chatBot.getId();
+        Date queuedAt = new Date(record.getId().getTimestamp());
+
+        String owner = streamHeartbeat.owner(record);
+        ScheduledFuture<?> heartbeat = streamHeartbeat.start(record, owner);
+
+        try {
+            tenantScheduler.schedule(lane, tenant, queuedAt, () -> {
+                try {
+                    if (isClaimedElsewhere(record, owner)) {
+                        log.info("Training event {} was taken over by another consumer while queued, skipping", record.getId());
+                        return;
+                    }
+
+                    train(record, chatBotTask, chatBot, lane);
+                } finally {
+                    heartbeat.cancel(false);
+                }
+            });
+        } catch (InterruptedException e) {
+            // Left pending, the reclaimer delivers it again
+            heartbeat.cancel(false);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Processes a training task and acknowledges it once done. If processing throws or a source
+     * fails, the entry stays pending and is retried by {@link TrainingStreamReclaimer}; the retry
+     * resumes from the manifest and the task's progress checkpoint.
+     */
+    private void train(ObjectRecord<String, String> record, ChatBotTask chatBotTask, ChatBot chatBot, TrainingLane lane) {
+        TrainingProgress previousProgress = progressService.getProgress(chatBotTask.getId());
+        if (previousProgress != null && COMPLETED.equals(previousProgress.getStatus())) {
+            log.info("Training task {} already completed, acknowledging duplicate event {}", chatBotTask.getId(), record.getId());
+            acknowledge(record);
+            return;
+        }
+
+        TrainingProgress progress = progressService.start(chatBotTask.getId(), chatBot.getId());
+        Set<String> completedWebsites = progress.getCompletedWebsites() == null
+                ? Set.of()
+                : new HashSet<>(progress.getCompletedWebsites());
 
         String knowledgebaseCollectionName = mongodbVectorService.getKnowledgebaseCollectionName(chatBot.getId());
 //        String knowledgebaseCollectionName = "test-db";
@@ -65,123 +186,437 @@ public class KnowledgebaseProcessor implements StreamListener<String, ObjectReco
                 "cosine"
         );
 
-        //Training PDF Files
-        if (Objects.nonNull(chatBotTask.getFileIds()) && !chatBotTask.getFileIds().isEmpty()) {
-            getFileList(chatBotTask.getFileIds())
-                    .forEach(secureFileUpload -> {
-                        n8nWebhookService.submitAttachmentToN8nKnowledgebase(
-                                secureFileUpload.getData(),
-                                secureFileUpload.getFileName(),
-                                secureFileUpload.getEmail(),
-                                knowledgebaseCollectionName,
-                                knowledgebaseVectorIndexName,
-                                secureFileUpload.getContentType(),
-                                knowledgeBaseTrainingWebhookUrl
-                        );
+        TrainingScope scope = chatBotTask.getScope() == null ? TrainingScope.ALL : chatBotTask.getScope();
+        boolean trainContent = scope != TrainingScope.WEBSITES;
+        boolean trainWebsites = scope != TrainingScope.CONTENT;
 
-                        KnowledgeBase knowledgeBase = KnowledgeBase.builder()
-                                .knowledgeOf(secureFileUpload.getFileName())
-                                .chatbotId(chatBot.getId())
-                                .knowledgeType(KnowledgeBaseType.PDF)
-                                .created(new Date().toInstant())
-                                .createdBy(chatBot.getEmail())
-                                .build();
+        TrainingTarget target = new TrainingTarget(
+                chatBotTask.getId(),
+                lane,
+                chatBot,
+                knowledgebaseCollectionName,
+                knowledgebaseVectorIndexName,
+                manifestService.loadManifest(chatBot.getId())
+        );
 
-                        mongoTemplate.save(knowledgeBase);
+        // Sources still part of the chatbot; anything else in the manifest is removed afterwards
+        Set<String> activeSourceKeys = new HashSet<>();
+        Set<String> activeWebsites = new HashSet<>();
+
+        // Every source runs through the pipeline: fetch stage (file load, crawl) -> submit stage (extract, submit)
+        List<CompletableFuture<Void>> trainingStages = new ArrayList<>();
+        List<String> websitesToCrawl = new ArrayList<>();
+
+        //Training PDF Files. Uploads are immutable, so a file id already in the manifest is never re-read.
+        //The fetch stage loads metadata only; content is streamed in the submit stage, one file per submit thread
+        if (trainContent && Objects.nonNull(chatBotTask.getFileIds()) && !chatBotTask.getFileIds().isEmpty()) {
+            chatBotTask.getFileIds()
+                    .forEach(fileId -> {
+                        String sourceKey = fileKey(fileId);
+                        activeSourceKeys.add(sourceKey);
+
+                        if (target.manifest().containsKey(sourceKey)) return;
+
+                        trainingStages.add(
+                                pipelineExecutor.fetch(lane, () -> fileUploadService.loadMetadata(fileId))
+                                        .thenCompose(secureFileUpload -> {
+                                            if (secureFileUpload == null) {
+                                                log.warn("File {} of chatbot {} not found, skipping", fileId, chatBot.getId());
+                                                return CompletableFuture.<Void>completedFuture(null);
+                                            }
+
+                                            return pipelineExecutor.submit(lane, chatBot.getId(), () -> trainFile(target, sourceKey, secureFileUpload));
+                                        })
+                                        .thenRun(() -> progressService.sourceDone(target.taskId()))
+                        );
                     });
         }
 
-        String knowledgebase = "";
+        //Training Textual Knowledegebase, one source per QA pair and per text block
+        Map<String, String> changedQaPairs = new LinkedHashMap<>();
+        Map<String, String> changedTexts = new LinkedHashMap<>();
 
-        if (Objects.nonNull(chatBotTask.getQaPairs()) && !chatBotTask.getQaPairs().isEmpty()) {
-            knowledgebase += chatBotTask.getQaPairs()
+        if (trainContent && Objects.nonNull(chatBotTask.getQaPairs())) {
+            chatBotTask.getQaPairs()
                     .stream()
                     .map(qaPair -> "If user Question is: " + qaPair.getQuestion() + ", Your Answer should be: " + qaPair.getAnswer())
-                    .collect(Collectors.joining(";"));
+                    .forEach(qaText -> {
+                        String sourceKey = qaKey(qaText);
+                        activeSourceKeys.add(sourceKey);
 
-            KnowledgeBase knowledgeBase = KnowledgeBase.builder()
-                    .knowledgeOf("QA PAIR")
-                    .chatbotId(chatBot.getId())
-                    .knowledgeType(KnowledgeBaseType.QA)
-                    .created(new Date().toInstant())
-                    .createdBy(chatBot.getEmail())
-                    .build();
+                        if (!target.manifest().containsKey(sourceKey)) {
+                            changedQaPairs.put(sourceKey, qaText);
+                        }
+                    });
+        }
 
-            mongoTemplate.save(knowledgeBase);
+        if (trainContent && Objects.nonNull(chatBotTask.getAddedTexts())) {
+            chatBotTask.getAddedTexts()
+                    .stream()
+                    .filter(StringUtils::hasText)
+                    .forEach(text -> {
+                        String sourceKey = textKey(text);
+                        activeSourceKeys.add(sourceKey);
+
+                        if (!target.manifest().containsKey(sourceKey)) {
+                            changedTexts.put(sourceKey, "Another Knowledge base List: " + text);
+                        }
+                    });
         }
 
-        if (Objects.nonNull(chatBotTask.getAddedTexts()) && !chatBotTask.getAddedTexts().isEmpty()) {
-            knowledgebase += "Another Knowledge base List: " + String.join(";", chatBotTask.getAddedTexts());
+        if (!changedQaPairs.isEmpty()) {
+            saveKnowledgeBase(chatBot, "QA PAIR", KnowledgeBaseType.QA, chatBot.getEmail());
         }
 
-        //Training Textual Knowledegebase
-        if (StringUtils.hasLength(knowledgebase)) {
-            n8nWebhookService.submitTextContentToN8nKnowledgebase(
-                    knowledgebase,
-                    chatBot.getEmail(),
-                    knowledgebaseCollectionName,
-                    knowledgebaseVectorIndexName,
-                    "other knowledge base",
-                    knowledgeBaseTrainingWebhookUrl
-            );
+        if (!changedTexts.isEmpty()) {
+            saveKnowledgeBase(chatBot, "Textual Data", KnowledgeBaseType.TEXT, chatBot.getEmail());
+        }
+
+        int pendingFiles = trainingStages.size();
+
+        trainingStages.addAll(trainTextSources(target, changedQaPairs, KnowledgeBaseType.QA));
+        trainingStages.addAll(trainTextSources(target, changedTexts, KnowledgeBaseType.TEXT));
+
+        // Websites finished by an earlier delivery of this task are not crawled again.
+        // A content-only task still lists the websites, so their pages are kept; a companion task crawls them when a re-crawl is due
+        if (Objects.nonNull(chatBotTask.getAddedWebsites())) {
+            activeWebsites.addAll(chatBotTask.getAddedWebsites());
+
+            if (trainWebsites) {
+                activeWebsites.stream()
+                        .filter(websiteUrl -> !completedWebsites.contains(websiteUrl))
+                        .forEach(websitesToCrawl::add);
+            }
+        }
+
+        int sourcesTotal = activeSourceKeys.size() + (trainWebsites ? activeWebsites.size() : 0);
+        int sourcesPending = pendingFiles + changedQaPairs.size() + changedTexts.size() + websitesToCrawl.size();
+        progressService.setSources(target.taskId(), sourcesTotal, sourcesTotal - sourcesPending);
+
+        websitesToCrawl.forEach(websiteUrl -> trainingStages.add(
+                pipelineExecutor.fetch(lane, () -> crawlWebsite(record, target, websiteUrl))
+                        .thenCompose(pageSubmissions -> pageSubmissions)
+                        .thenRun(() -> progressService.websiteDone(target.taskId(), websiteUrl))
+        ));
 
-            KnowledgeBase knowledgeBase = KnowledgeBase.builder()
-                    .knowledgeOf("Textual Data")
-                    .chatbotId(chatBot.getId())
-                    .knowledgeType(KnowledgeBaseType.TEXT)
-                    .created(new Date().toInstant())
-                    .createdBy(chatBot.getEmail())
-                    .build();
+        int failedStages = awaitTrainingStages(record, target, trainingStages);
+
+        // First incremental run: drop the chunks trained before the manifest, once the new ones are confirmed tagged
+        if (target.manifest().isEmpty()) {
+            manifestService.purgeUntaggedChunks(chatBot.getId(), manifestService.findTrainedSources(chatBot.getId())
+                    .stream()
+                    .map(KnowledgeBaseManifestEntry::getSourceKey)
+                    .toList());
+        }
 
-            mongoTemplate.save(knowledgeBase);
+        // A websites-only task doesn't list the chatbot's other sources, so it must not remove them
+        if (trainContent) {
+            manifestService.removeStaleSources(chatBot.getId(), target.manifest(), activeSourceKeys, activeWebsites);
         }
 
-        if (Objects.nonNull(chatBotTask.getAddedWebsites())
-                && !chatBotTask.getAddedWebsites().isEmpty()) {
+        mongodbVectorService.refreshKnowledgebaseChunkCount(chatBot.getId());
 
-            chatBotTask.getAddedWebsites()
-                    .forEach(websiteUrl -> crawlWebsite(record, chatBot, websiteUrl, knowledgebaseCollectionName, knowledgebaseVectorIndexName));
+        if (failedStages > 0) {
+            // Left pending: the reclaimer retries the failed sources, or dead-letters the task and marks it FAILED
+            throw new IllegalStateException(failedStages + " training sources failed for task " + chatBotTask.getId());
         }
 
+        progressService.complete(target.taskId(), chatBot.getId());
+
+        acknowledge(record);
     }
 
-    private void crawlWebsite(ObjectRecord<String, String> record,
-                              ChatBot chatBot,
-                              String websiteUrl,
-                              String knowledgebaseCollectionName,
-                              String knowledgebaseVectorIndexName) {
-        try {
-            log.info("Starting Playwright crawl for website: {}", websiteUrl);
-            PlaywrightWebsiteCrawler.crawl(websiteUrl,
-                    chatBot.getEmail(),
-                    15,
-                    1000,
-                    scrappedData -> {
-                        n8nWebhookService.submitTextContentToN8nKnowledgebase(
-                                mapToSemanticText(extractStructuredContent(scrappedData.html(), scrappedData.url())),
-                                chatBot.getEmail(),
-                                knowledgebaseCollectionName,
-                                knowledgebaseVectorIndexName,
-                                "other knowledgebase",
-                                knowledgeBaseTrainingWebhookUrl
-                        );
+    private void acknowledge(ObjectRecord<String, String> record) {
+        redisTemplate.opsForStream().acknowledge(REDIS_STREAM_SERVER_GROUP, record);
+    }
 
-                        KnowledgeBase knowledgeBase = KnowledgeBase.builder()
-                                .knowledgeOf(scrappedData.url())
-                                .chatbotId(chatBot.getId())
-                                .knowledgeType(KnowledgeBaseType.WEBSITE)
-                                .created(new Date().toInstant())
-                                .createdBy("system")
-                                .build();
+    /**
+     * True if the entry was acknowledged or re-claimed since this node received it, e.g. because
+     * the node missed heartbeats while the task was queued.
+     */
+    private boolean isClaimedElsewhere(ObjectRecord<String, String> record, String owner) {
+        return owner == null || !owner.equals(streamHeartbeat.owner(record));
+    }
 
-                        mongoTemplate.save(knowledgeBase);
-                    }
+    private void trainFile(TrainingTarget target, String sourceKey, SecureFileUpload secureFileUpload) {
+        Resource fileContent = fileUploadService.openContent(secureFileUpload);
+
+        if (directEmbedding.isEnabled()) {
+            // Extract in-process; the file's batches go out one after another on this submit thread
+            String fileText;
+            try {
+                fileText = directEmbedding.extractText(fileContent.getInputStream());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            for (List<KnowledgeChunk> batch : batches(knowledgeChunker.chunk(sourceKey, fileText))) {
+                submitChunks(target, batch, secureFileUpload.getContentType());
+            }
+        } else {
+            n8nWebhookService.submitAttachmentToN8nKnowledgebase(
+                    fileContent,
+                    secureFileUpload.getFileName(),
+                    secureFileUpload.getEmail(),
+                    target.collectionName(),
+                    target.vectorIndexName(),
+                    secureFileUpload.getContentType(),
+                    sourceKey,
+                    knowledgeBaseTrainingWebhookUrl
+            );
+        }
+
+        // Uploads stored before GridFS have no content hash; their id identifies the content
+        String contentHash = secureFileUpload.getContentHash() != null
+                ? secureFileUpload.getContentHash()
+                : hash(secureFileUpload.getId());
+
+        manifestService.record(target.chatBot().getId(), sourceKey, KnowledgeBaseType.PDF, contentHash, null);
 
+        saveKnowledgeBase(target.chatBot(), secureFileUpload.getFileName(), KnowledgeBaseType.PDF, target.chatBot().getEmail());
+    }
+
+    /**
+     * Chunks text sources locally and submits the chunks in parallel, uniformly sized batches.
+     * A source is recorded in the manifest once every batch holding one of its chunks went through.
+     */
+    private List<CompletableFuture<Void>> trainTextSources(TrainingTarget target,
+                                                           Map<String, String> sources,
+                                                           KnowledgeBaseType sourceType) {
+        String chatbotId = target.chatBot().getId();
+
+        List<KnowledgeChunk> chunks = new ArrayList<>();
+        sources.forEach((sourceKey, text) -> chunks.addAll(knowledgeChunker.chunk(sourceKey, text)));
+
+        Map<String, List<CompletableFuture<Void>>> submissionsBySource = new HashMap<>();
+
+        for (List<KnowledgeChunk> batch : batches(chunks)) {
+            CompletableFuture<Void> submission = pipelineExecutor.submit(target.lane(), chatbotId, () -> submitChunks(target, batch, "other knowledge base"));
+
+            batch.stream()
+                    .map(KnowledgeChunk::sourceId)
+                    .distinct()
+                    .forEach(sourceKey -> submissionsBySource.computeIfAbsent(sourceKey, key -> new ArrayList<>()).add(submission));
+        }
+
+        return submissionsBySource.entrySet()
+                .stream()
+                .map(entry -> CompletableFuture.allOf(entry.getValue().toArray(new CompletableFuture[0]))
+                        .thenRun(() -> {
+                            manifestService.record(chatbotId, entry.getKey(), sourceType, hash(sources.get(entry.getKey())), null);
+                            progressService.sourceDone(target.taskId());
+                        }))
+                .toList();
+    }
+
+    /**
+     * Direct ingestion embeds up to 2048 chunks per call; N8N takes smaller webhook-sized batches.
+     */
+    private List<List<KnowledgeChunk>> batches(List<KnowledgeChunk> chunks) {
+        return directEmbedding.isEnabled() ? directEmbedding.batch(chunks) : knowledgeChunker.batch(chunks);
+    }
+
+    private void submitChunks(TrainingTarget target, List<KnowledgeChunk> batch, String dataType) {
+        if (directEmbedding.isEnabled()) {
+            directEmbedding.ingest(target.chatBot().getId(), target.collectionName(), batch, target.chatBot().getEmail(), dataType);
+        } else {
+            n8nWebhookService.submitChunksToN8nKnowledgebase(
+                    batch,
+                    target.chatBot().getEmail(),
+                    target.collectionName(),
+                    target.vectorIndexName(),
+                    dataType,
+                    knowledgeBaseTrainingWebhookUrl
             );
-            log.info("Successfully completed Playwright crawl for website: {}", websiteUrl);
+        }
+
+        progressService.chunksEmbedded(target.taskId(), batch.size());
+    }
+
+    /**
+     * Crawls a website on the calling fetch thread, or on a crawler worker if remote crawling is
+     * enabled, and hands every page to the submit stage. A failed crawl fails the stage, so the
+     * website is crawled again on retry.
+     * <p>
+     * When the crawl reached every page of the website, trained pages it neither scraped nor
+     * skipped as unchanged are gone from the website and removed once the submissions finished.
+     *
+     * @return a future that completes once every page submission has finished
+     */
+    private CompletableFuture<Void> crawlWebsite(ObjectRecord<String, String> record,
+                                                 TrainingTarget target,
+                                                 String websiteUrl) {
+        Queue<CompletableFuture<Void>> pageSubmissions = new ConcurrentLinkedQueue<>();
+        PageDeduplicator.Index duplicates = pageDeduplicator.newIndex(target.manifest(), websiteUrl);
+        Set<String> crawledPageKeys = ConcurrentHashMap.newKeySet();
+        boolean complete;
+
+        try {
+            if (remoteCrawlService.isEnabled()) {
+                log.info("Queueing remote crawl for website: {}", websiteUrl);
+                complete = remoteCrawlService.crawl(
+                        CrawlJob.builder()
+                                .chatbotId(target.chatBot().getId())
+                                .websiteUrl(websiteUrl)
+                                .email(target.chatBot().getEmail())
+                                .maxDepth(15)
+                                .maxPages(1000)
+                                .knownPages(knownPages(target, websiteUrl))
+                                .build(),
+                        page -> {
+                            crawledPageKeys.add(pageKey(page.url()));
+                            submitWebsitePage(target, websiteUrl, page.url(), () -> page, duplicates, pageSubmissions);
+                        },
+                        url -> crawledPageKeys.add(pageKey(url))
+                );
+            } else {
+                log.info("Starting Playwright crawl for website: {}", websiteUrl);
+                complete = websiteCrawler.crawl(websiteUrl,
+                        target.chatBot().getEmail(),
+                        CrawlOptions.builder()
+                                .maxDepth(15)
+                                .maxPages(1000)
+                                .stateScope(target.chatBot().getId())
+                                // Pages never embedded (first crawl, failed page) are always handed over
+                                .knownPage(url -> target.manifest().containsKey(pageKey(url)))
+                                .unchangedPage(url -> crawledPageKeys.add(pageKey(url)))
+                                .build(),
+                        // Sanitized on the submit thread, so the crawl keeps loading pages
+                        scrappedData -> {
+                            crawledPageKeys.add(pageKey(scrappedData.url()));
+                            submitWebsitePage(target, websiteUrl, scrappedData.url(),
+                                    () -> new CrawledPage(scrappedData.url(), scrappedData.title(),
+                                            extractSemanticText(scrappedData.html(), scrappedData.url())),
+                                    duplicates, pageSubmissions);
+                        }
+                );
+            }
+            log.info("Successfully completed crawl for website: {}", websiteUrl);
         } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
             log.error("Message is failed to process for website crawl event {}: {}", record.getId(), e.getMessage(), e);
+            throw new RuntimeException("Failed to crawl " + websiteUrl, e);
+        }
+
+        CompletableFuture<Void> submissions = CompletableFuture.allOf(pageSubmissions.toArray(new CompletableFuture[0]));
+        if (!complete) {
+            log.info("Crawl of {} did not reach every page, keeping pages it did not find", websiteUrl);
+            return submissions;
         }
+
+        return submissions.thenRun(() ->
+                manifestService.removeVanishedPages(target.chatBot().getId(), target.manifest(), websiteUrl, crawledPageKeys));
+    }
+
+    private void submitWebsitePage(TrainingTarget target,
+                                   String websiteUrl,
+                                   String pageUrl,
+                                   Supplier<CrawledPage> page,
+                                   PageDeduplicator.Index duplicates,
+                                   Queue<CompletableFuture<Void>> pageSubmissions) {
+        progressService.pageCrawled(target.taskId());
+
+        pageSubmissions.add(
+                pipelineExecutor.submit(target.lane(), target.chatBot().getId(), () -> trainWebsitePage(target, websiteUrl, page.get(), duplicates))
+                        .exceptionally(e -> {
+                            log.warn("Failed to train page {}: {}", pageUrl, e.getMessage());
+                            return null;
+                        })
+        );
+    }
+
+    /**
+     * URLs of the website's pages already in the knowledge base; only these may be skipped as unchanged.
+     */
+    private List<String> knownPages(TrainingTarget target, String websiteUrl) {
+        return target.manifest().values().stream()
+                .filter(entry -> entry.getSourceType() == KnowledgeBaseType.WEBSITE && websiteUrl.equals(entry.getWebsiteUrl()))
+                .map(entry -> pageUrl(entry.getSourceKey()))
+                .toList();
+    }
+
+    /**
+     * Pages the crawler reports are only embedded again when their extracted text changed, and
+     * not at all when they are near-duplicates of another page of the website.
+     */
+    private void trainWebsitePage(TrainingTarget target,
+                                  String websiteUrl,
+                                  CrawledPage page,
+                                  PageDeduplicator.Index duplicates) {
+        String semanticText = page.semanticText();
+        String sourceKey = pageKey(page.url());
+        String contentHash = hash(semanticText);
+        long simHash = SimHash.of(semanticText);
+
+        String duplicateOf = semanticText.isBlank() ? null : duplicates.addIfDistinct(sourceKey, simHash);
+        if (duplicateOf != null) {
+            log.debug("Page {} is a near-duplicate of {}, skipping", page.url(), duplicateOf);
+            if (target.manifest().containsKey(sourceKey)) {
+                manifestService.remove(target.chatBot().getId(), sourceKey);
+            }
+            return;
+        }
+
+        if (manifestService.isUnchanged(target.manifest(), sourceKey, contentHash)) {
+            // Entries from before near-duplicate detection get their fingerprint
+            if (target.manifest().get(sourceKey).getSimHash() == null) {
+                manifestService.record(target.chatBot().getId(), sourceKey, KnowledgeBaseType.WEBSITE, contentHash, websiteUrl, simHash);
+            }
+            log.debug("Page {} unchanged, skipping", page.url());
+            return;
+        }
+
+        if (target.manifest().containsKey(sourceKey)) {
+            manifestService.deleteChunks(target.chatBot().getId(), sourceKey);
+        }
+
+        // Already on a submit thread, so a page's batches go out one after another
+        for (List<KnowledgeChunk> batch : batches(knowledgeChunker.chunk(sourceKey, semanticText))) {
+            submitChunks(target, batch, "other knowledgebase");
+        }
+
+        manifestService.record(target.chatBot().getId(), sourceKey, KnowledgeBaseType.WEBSITE, contentHash, websiteUrl, simHash);
+
+        saveKnowledgeBase(target.chatBot(), page.url(), KnowledgeBaseType.WEBSITE, "system");
+    }
+
+    private void saveKnowledgeBase(ChatBot chatBot, String knowledgeOf, KnowledgeBaseType knowledgeType, String createdBy) {
+        KnowledgeBase knowledgeBase = KnowledgeBase.builder()
+                .knowledgeOf(knowledgeOf)
+                .chatbotId(chatBot.getId())
+                .knowledgeType(knowledgeType)
+                .created(new Date().toInstant())
+                .createdBy(createdBy)
+                .build();
+
+        mongoTemplate.save(knowledgeBase);
+    }
+
+    /**
+     * Waits for every training stage of a task. A failed source is logged and does not stop the others.
+     *
+     * @return number of failed stages
+     */
+    private int awaitTrainingStages(ObjectRecord<String, String> record,
+                                    TrainingTarget target,
+                                    List<CompletableFuture<Void>> trainingStages) {
+        int failedStages = 0;
+
+        for (CompletableFuture<Void> stage : trainingStages) {
+            try {
+                stage.join();
+            } catch (CompletionException | CancellationException e) {
+                failedStages++;
+                log.error("Training stage failed for event {}: {}", record.getId(), e.getMessage(), e);
+                progressService.sourceFailed(target.taskId(), e.getMessage());
+            }
+        }
+
+        log.info("Training event {} finished: {} stages, {} failed", record.getId(), trainingStages.size(), failedStages);
+
+        return failedStages;
     }
 
     private ChatBot getChatbot(String chatbotId) {
@@ -200,10 +635,11 @@ public class KnowledgebaseProcessor implements StreamListener<String, ObjectReco
         );
     }
 
-    private List<SecureFileUpload> getFileList(List<String> fileIdList) {
-        return mongoTemplate.find(
-                new Query().addCriteria(Criteria.where("id").in(fileIdList)),
-                SecureFileUpload.class
-        );
+    private record TrainingTarget(String taskId,
+                                  TrainingLane lane,
+                                  ChatBot chatBot,
+                                  String collectionName,
+                                  String vectorIndexName,
+                                  Map<String, KnowledgeBaseManifestEntry> manifest) {
     }
-}
\ No newline at end of file
+}
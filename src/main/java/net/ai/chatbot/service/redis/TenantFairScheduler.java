@@ -0,0 +1,266 @@
+package net.ai.chatbot.service.redis;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.ai.chatbot.enums.TrainingLane;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs training tasks with a fair share of workers per tenant ({@code ChatBot.createdBy}).
+ * <p>
+ * Stream consumers only read and queue tasks; each lane has its own workers that take tasks
+ * round-robin across tenants, so a tenant with dozens of queued chatbots gets one task per turn
+ * like everyone else. The last {@code training.scheduler.reserved-workers} idle workers are only
+ * given to tenants with nothing running, so a tenant's first task starts as soon as it is read
+ * even while another tenant's backlog keeps every other worker busy.
+ * <p>
+ * A lane queues at most as many tasks on a node as it has workers; when the buffer is full the
+ * consumer blocks, leaving further entries in the stream for idle nodes and for tenants that come
+ * later. Queued entries are kept from going stale by {@link TrainingStreamHeartbeat}.
+ */
+@Slf4j
+@Component
+public class TenantFairScheduler {
+
+    private final Map<TrainingLane, LaneQueue> lanes = new EnumMap<>(TrainingLane.class);
+    private final int reservedWorkers;
+
+    public TenantFairScheduler(MeterRegistry meterRegistry,
+                               @Value("${training.scheduler.background-workers:${training.stream.consumers:4}}") int backgroundWorkers,
+                               @Value("${training.scheduler.interactive-workers:${training.stream.interactive-consumers:4}}") int interactiveWorkers,
+                               @Value("${training.scheduler.reserved-workers:1}") int reservedWorkers) {
+        this.reservedWorkers = reservedWorkers;
+
+        lanes.put(TrainingLane.BACKGROUND, new LaneQueue(TrainingLane.BACKGROUND, backgroundWorkers, meterRegistry));
+        lanes.put(TrainingLane.INTERACTIVE, new LaneQueue(TrainingLane.INTERACTIVE, interactiveWorkers, meterRegistry));
+
+        log.info("Tenant fair scheduler started with {} background and {} interactive workers, {} reserved for idle tenants",
+                backgroundWorkers, interactiveWorkers, reservedWorkers);
+    }
+
+    /**
+     * Queue a task for a tenant. Blocks while the lane's buffer is full.
+     *
+     * @param queuedAt when the task entered the stream, used for the wait-time metric
+     */
+    public void schedule(TrainingLane lane, String tenant, Date queuedAt, Runnable task) throws InterruptedException {
+        lanes.get(lane).add(tenant, new QueuedTask(task, queuedAt));
+    }
+
+    /**
+     * Queue depth, running tasks and wait times per tenant and lane on this node.
+     */
+    public Map<TrainingLane, List<TenantQueueStats>> getStats() {
+        Map<TrainingLane, List<TenantQueueStats>> stats = new EnumMap<>(TrainingLane.class);
+        lanes.forEach((lane, queue) -> stats.put(lane, queue.stats()));
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${training.scheduler.report-interval-ms:60000}", initialDelay = 60_000)
+    public void reportQueues() {
+        getStats().forEach((lane, tenants) -> tenants.forEach(tenant -> log.info(
+                "Training queue {} tenant {}: {} queued, {} running, oldest waiting {}s, average wait {}s",
+                lane, tenant.tenant(), tenant.queued(), tenant.running(),
+                tenant.oldestWaitSeconds(), tenant.averageWaitSeconds())));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lanes.values().forEach(LaneQueue::shutdown);
+    }
+
+    public record TenantQueueStats(String tenant, int queued, int running, long oldestWaitSeconds, long averageWaitSeconds) {
+    }
+
+    private record QueuedTask(Runnable task, Date queuedAt) {
+    }
+
+    private static class TenantQueue {
+        private final Deque<QueuedTask> tasks = new ArrayDeque<>();
+        private int running;
+        private long started;
+        private long totalWaitMillis;
+    }
+
+    private class LaneQueue {
+
+        private final TrainingLane lane;
+        private final int workers;
+        private final ExecutorService workerPool;
+        private final Timer waitTimer;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition taskAvailable = lock.newCondition();
+        private final Condition spaceAvailable = lock.newCondition();
+
+        // Tenants with queued tasks, in turn order
+        private final Deque<String> rotation = new ArrayDeque<>();
+        private final Map<String, TenantQueue> tenants = new HashMap<>();
+        private int buffered;
+        private int running;
+
+        LaneQueue(TrainingLane lane, int workers, MeterRegistry meterRegistry) {
+            this.lane = lane;
+            this.workers = workers;
+            this.workerPool = Executors.newFixedThreadPool(workers,
+                    new CustomizableThreadFactory("kb-" + lane.name().toLowerCase() + "-worker-"));
+
+            String laneTag = lane.name().toLowerCase();
+            this.waitTimer = Timer.builder("training.queue.wait")
+                    .description("Time from enqueue until a training task starts")
+                    .tag("lane", laneTag)
+                    .register(meterRegistry);
+            Gauge.builder("training.queue.depth", this, queue -> queue.buffered)
+                    .tag("lane", laneTag)
+                    .register(meterRegistry);
+            Gauge.builder("training.queue.tenants", this, queue -> queue.tenants.size())
+                    .tag("lane", laneTag)
+                    .register(meterRegistry);
+
+            for (int i = 0; i < workers; i++) {
+                workerPool.execute(this::work);
+            }
+        }
+
+        void add(String tenant, QueuedTask task) throws InterruptedException {
+            lock.lock();
+            try {
+                while (buffered >= workers) {
+                    spaceAvailable.await();
+                }
+
+                TenantQueue queue = tenants.computeIfAbsent(tenant, id -> new TenantQueue());
+                if (queue.tasks.isEmpty()) {
+                    rotation.addLast(tenant);
+                }
+                queue.tasks.addLast(task);
+                buffered++;
+
+                taskAvailable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void work() {
+            while (!Thread.currentThread().isInterrupted()) {
+                QueuedTask next;
+                String tenant;
+
+                lock.lock();
+                try {
+                    while ((tenant = nextTenant()) == null) {
+                        taskAvailable.await();
+                    }
+
+                    TenantQueue queue = tenants.get(tenant);
+                    next = queue.tasks.pollFirst();
+                    if (!queue.tasks.isEmpty()) {
+                        rotation.addLast(tenant);
+                    }
+
+                    long waitMillis = System.currentTimeMillis() - next.queuedAt().getTime();
+                    queue.running++;
+                    queue.started++;
+                    queue.totalWaitMillis += Math.max(waitMillis, 0);
+                    running++;
+                    buffered--;
+
+                    waitTimer.record(Duration.ofMillis(Math.max(waitMillis, 0)));
+                    spaceAvailable.signal();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } finally {
+                    lock.unlock();
+                }
+
+                try {
+                    next.task().run();
+                } catch (Exception e) {
+                    log.error("Training task of tenant {} failed: {}", tenant, e.getMessage(), e);
+                } finally {
+                    finished(tenant);
+                }
+            }
+        }
+
+        /**
+         * Next tenant in turn that may take an idle worker, removed from the rotation.
+         * Busy tenants are skipped while only reserved workers are idle.
+         */
+        private String nextTenant() {
+            boolean reservedOnly = workers - running <= reservedWorkers;
+
+            Iterator<String> turns = rotation.iterator();
+            while (turns.hasNext()) {
+                String tenant = turns.next();
+                if (!reservedOnly || tenants.get(tenant).running == 0) {
+                    turns.remove();
+                    return tenant;
+                }
+            }
+
+            return null;
+        }
+
+        private void finished(String tenant) {
+            lock.lock();
+            try {
+                TenantQueue queue = tenants.get(tenant);
+                queue.running--;
+                running--;
+
+                if (queue.running == 0 && queue.tasks.isEmpty()) {
+                    tenants.remove(tenant);
+                }
+
+                // A worker freed up, so busy tenants may be eligible again
+                taskAvailable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        List<TenantQueueStats> stats() {
+            long now = System.currentTimeMillis();
+            List<TenantQueueStats> stats = new ArrayList<>();
+
+            lock.lock();
+            try {
+                tenants.forEach((tenant, queue) -> {
+                    QueuedTask oldest = queue.tasks.peekFirst();
+                    long oldestWait = oldest == null ? 0 : now - oldest.queuedAt().getTime();
+                    long averageWait = queue.started == 0 ? 0 : queue.totalWaitMillis / queue.started;
+
+                    stats.add(new TenantQueueStats(tenant, queue.tasks.size(), queue.running,
+                            TimeUnit.MILLISECONDS.toSeconds(Math.max(oldestWait, 0)),
+                            TimeUnit.MILLISECONDS.toSeconds(averageWait)));
+                });
+            } finally {
+                lock.unlock();
+            }
+
+            return stats;
+        }
+
+        void shutdown() {
+            workerPool.shutdownNow();
+            log.info("Stopped {} training workers", lane);
+        }
+    }
+}
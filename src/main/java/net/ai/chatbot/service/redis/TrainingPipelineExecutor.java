@@ -0,0 +1,143 @@
+package net.ai.chatbot.service.redis;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.ai.chatbot.enums.TrainingLane;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Bounded thread pools for the knowledge-base training pipeline.
+ * <p>
+ * The fetch stage loads files and crawls websites; the submit stage extracts, chunks and posts
+ * content to N8N. The submit pool is sized to the N8N worker count and has a bounded queue with
+ * caller-runs back-pressure, so a fast crawler can never queue unbounded work. Each chatbot is
+ * additionally limited to a fixed number of in-flight submissions, so one large task cannot take
+ * every submit thread. A chatbot's permits are dropped once none are held or awaited, so the
+ * map only holds chatbots with submissions in flight.
+ * <p>
+ * Every training lane has its own fetch and submit pools, so background crawls never delay
+ * interactive re-training.
+ * <p>
+ * Pools are plain executors rather than Spring TaskExecutor beans so they don't replace the
+ * default executor used by {@code @Async} services.
+ */
+@Slf4j
+@Component
+public class TrainingPipelineExecutor {
+
+    private final Map<TrainingLane, ThreadPoolExecutor> fetchExecutors = new EnumMap<>(TrainingLane.class);
+    private final Map<TrainingLane, ThreadPoolExecutor> submitExecutors = new EnumMap<>(TrainingLane.class);
+    private final int submissionsPerChatbot;
+    private final Map<String, ChatbotPermits> chatbotPermits = new ConcurrentHashMap<>();
+
+    public TrainingPipelineExecutor(@Value("${training.pipeline.fetch-threads:4}") int fetchThreads,
+                                    @Value("${training.pipeline.submit-threads:8}") int submitThreads,
+                                    @Value("${training.pipeline.submit-queue-capacity:64}") int submitQueueCapacity,
+                                    @Value("${training.pipeline.interactive.fetch-threads:2}") int interactiveFetchThreads,
+                                    @Value("${training.pipeline.interactive.submit-threads:4}") int interactiveSubmitThreads,
+                                    @Value("${training.pipeline.submissions-per-chatbot:4}") int submissionsPerChatbot) {
+
+        createPools(TrainingLane.BACKGROUND, fetchThreads, submitThreads, submitQueueCapacity);
+        createPools(TrainingLane.INTERACTIVE, interactiveFetchThreads, interactiveSubmitThreads, submitQueueCapacity);
+
+        this.submissionsPerChatbot = submissionsPerChatbot;
+
+        log.info("Training pipeline started with {}/{} background and {}/{} interactive fetch/submit threads, {} submissions per chatbot",
+                fetchThreads, submitThreads, interactiveFetchThreads, interactiveSubmitThreads, submissionsPerChatbot);
+    }
+
+    private void createPools(TrainingLane lane, int fetchThreads, int submitThreads, int submitQueueCapacity) {
+        String prefix = "kb-" + lane.name().toLowerCase() + "-";
+
+        fetchExecutors.put(lane, new ThreadPoolExecutor(fetchThreads, fetchThreads,
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory(prefix + "fetch-")));
+
+        submitExecutors.put(lane, new ThreadPoolExecutor(submitThreads, submitThreads,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(submitQueueCapacity),
+                new CustomizableThreadFactory(prefix + "submit-"),
+                new ThreadPoolExecutor.CallerRunsPolicy()));
+    }
+
+    /**
+     * Run a fetch-stage step (file load, website crawl).
+     */
+    public <T> CompletableFuture<T> fetch(TrainingLane lane, Supplier<T> step) {
+        return CompletableFuture.supplyAsync(step, fetchExecutors.get(lane));
+    }
+
+    /**
+     * Run a submit-stage step for a chatbot. Blocks the caller while the chatbot already has the
+     * maximum number of submissions in flight.
+     */
+    public CompletableFuture<Void> submit(TrainingLane lane, String chatbotId, Runnable step) {
+        String key = lane + ":" + chatbotId;
+        Semaphore permits = acquirePermits(key);
+
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            releasePermits(key, false);
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        try {
+            return CompletableFuture.runAsync(step, submitExecutors.get(lane))
+                    .whenComplete((result, error) -> releasePermits(key, true));
+        } catch (RuntimeException e) {
+            releasePermits(key, true);
+            throw e;
+        }
+    }
+
+    /**
+     * Register a caller that holds or waits for one of the chatbot's permits.
+     */
+    private Semaphore acquirePermits(String key) {
+        return chatbotPermits.compute(key, (id, permits) -> {
+            ChatbotPermits entry = permits != null ? permits : new ChatbotPermits(new Semaphore(submissionsPerChatbot));
+            entry.users++;
+            return entry;
+        }).semaphore;
+    }
+
+    /**
+     * Unregister a caller, releasing its permit if it got one; the entry is removed with its last caller.
+     */
+    private void releasePermits(String key, boolean acquired) {
+        chatbotPermits.computeIfPresent(key, (id, permits) -> {
+            if (acquired) {
+                permits.semaphore.release();
+            }
+            return --permits.users == 0 ? null : permits;
+        });
+    }
+
+    /**
+     * Only read and written inside {@code compute} on the permits map, which serializes access per key.
+     */
+    private static final class ChatbotPermits {
+        private final Semaphore semaphore;
+        private int users;
+
+        private ChatbotPermits(Semaphore semaphore) {
+            this.semaphore = semaphore;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fetchExecutors.values().forEach(ThreadPoolExecutor::shutdown);
+        submitExecutors.values().forEach(ThreadPoolExecutor::shutdown);
+    }
+}
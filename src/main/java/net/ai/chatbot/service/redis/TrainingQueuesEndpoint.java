@@ -0,0 +1,37 @@
+package net.ai.chatbot.service.redis;
+
+import net.ai.chatbot.enums.TrainingLane;
+import net.ai.chatbot.utils.AuthUtils;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code /actuator/trainingqueues}: the {@link TenantFairScheduler} queues of this node per lane and
+ * tenant, read on demand instead of kept as per-tenant meters. Tenants are chatbot owners, so only
+ * the admin may read it.
+ */
+@Component
+@WebEndpoint(id = "trainingqueues")
+public class TrainingQueuesEndpoint {
+
+    private final TenantFairScheduler tenantScheduler;
+
+    public TrainingQueuesEndpoint(TenantFairScheduler tenantScheduler) {
+        this.tenantScheduler = tenantScheduler;
+    }
+
+    @ReadOperation
+    public WebEndpointResponse<Map<TrainingLane, List<TenantFairScheduler.TenantQueueStats>>> queues() {
+        if (!AuthUtils.isAdmin()) {
+            return new WebEndpointResponse<>(HttpStatus.FORBIDDEN.value());
+        }
+
+        return new WebEndpointResponse<>(tenantScheduler.getStats());
+    }
+}
@@ -0,0 +1,92 @@
+package net.ai.chatbot.service.redis;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisStreamCommands.XClaimOptions;
+import org.springframework.data.redis.connection.stream.ObjectRecord;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static net.ai.chatbot.constants.Constants.REDIS_STREAM_SERVER_GROUP;
+
+/**
+ * Keeps the pending entry of a queued or running training task from looking stale to
+ * {@link TrainingStreamReclaimer}.
+ * <p>
+ * From the moment a task is read until it is acknowledged, including while it waits in the
+ * {@link TenantFairScheduler}, its owner re-claims the entry to itself every
+ * {@code training.stream.heartbeat-interval-ms} with {@code XCLAIM ... JUSTID}, which resets the
+ * entry's idle time without counting a delivery. Only entries idle for the reclaimer's threshold
+ * are reclaimed, so a long crawl is never taken over while its node is alive; a crashed node
+ * stops heartbeating and its entries are reclaimed as before.
+ */
+@Slf4j
+@Component
+public class TrainingStreamHeartbeat {
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final long intervalMs;
+
+    private final ScheduledExecutorService heartbeats =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("kb-heartbeat-"));
+
+    public TrainingStreamHeartbeat(RedisTemplate<String, String> redisTemplate,
+                                   @Value("${training.stream.heartbeat-interval-ms:60000}") long intervalMs) {
+        this.redisTemplate = redisTemplate;
+        this.intervalMs = intervalMs;
+    }
+
+    /**
+     * Start heartbeating the record's entry on behalf of {@code owner}; cancel the returned future
+     * once the task is acknowledged or given up. Stops claiming once the entry has another owner.
+     */
+    public ScheduledFuture<?> start(ObjectRecord<String, String> record, String owner) {
+        return heartbeats.scheduleWithFixedDelay(() -> {
+            try {
+                beat(record, owner);
+            } catch (Exception e) {
+                // A thrown exception would cancel the heartbeat for good
+                log.warn("Failed to heartbeat training event {}: {}", record.getId(), e.getMessage());
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void beat(ObjectRecord<String, String> record, String owner) {
+        // Acknowledged, or taken over after all: the entry is no longer ours to keep alive
+        if (owner == null || !owner.equals(owner(record))) {
+            return;
+        }
+
+        redisTemplate.execute(connection -> connection.streamCommands().xClaimJustId(
+                record.getStream().getBytes(StandardCharsets.UTF_8),
+                REDIS_STREAM_SERVER_GROUP,
+                owner,
+                XClaimOptions.minIdle(Duration.ZERO).ids(record.getId())), true);
+    }
+
+    /**
+     * Consumer the record's entry is pending for, or null if it is acknowledged.
+     */
+    public String owner(ObjectRecord<String, String> record) {
+        PendingMessages pending = redisTemplate.opsForStream()
+                .pending(record.getStream(), REDIS_STREAM_SERVER_GROUP, Range.just(record.getId().getValue()), 1);
+
+        return pending.isEmpty() ? null : pending.get(0).getConsumerName();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+    }
+}
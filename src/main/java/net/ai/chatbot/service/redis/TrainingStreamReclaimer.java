@@ -0,0 +1,193 @@
+package net.ai.chatbot.service.redis;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.ai.chatbot.enums.TrainingLane;
+import net.ai.chatbot.service.training.TrainingProgressService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.*;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.stream.StreamListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static net.ai.chatbot.constants.Constants.*;
+
+/**
+ * Recovers training tasks left pending by a crashed or failing consumer, on every lane's stream.
+ * <p>
+ * Entries idle for longer than {@code training.stream.reclaim-min-idle-ms} are claimed by this
+ * node and processed again. Running tasks are heartbeated by their owner
+ * ({@link TrainingStreamHeartbeat}), so only entries of crashed or stuck consumers go idle. Entries delivered {@code training.stream.max-deliveries} times are
+ * moved to the dead-letter stream, acknowledged and their training marked FAILED. Claiming is
+ * atomic in Redis, so every node can run the job.
+ */
+@Slf4j
+@Component
+public class TrainingStreamReclaimer {
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final StreamListener<String, ObjectRecord<String, String>> trainingListener;
+    private final TrainingProgressService trainingProgressService;
+    private final Duration minIdle;
+    private final long maxDeliveries;
+    private final int reclaimBatchSize;
+    private final String consumerName;
+    private final boolean enabled;
+
+    // Reclaimed tasks run off the shared scheduler thread, one at a time per node
+    private final ExecutorService reclaimExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("kb-reclaim-"));
+    private final AtomicBoolean reclaiming = new AtomicBoolean(false);
+
+    public TrainingStreamReclaimer(RedisTemplate<String, String> redisTemplate,
+                                   StreamListener<String, ObjectRecord<String, String>> purchaseStreamListener,
+                                   TrainingProgressService trainingProgressService,
+                                   @Value("${training.stream.reclaim-min-idle-ms:900000}") long minIdleMs,
+                                   @Value("${training.stream.max-deliveries:3}") long maxDeliveries,
+                                   @Value("${training.stream.reclaim-batch-size:10}") int reclaimBatchSize,
+                                   @Value("${training.stream.reclaim-enabled:true}") boolean enabled) throws UnknownHostException {
+        this.redisTemplate = redisTemplate;
+        this.trainingListener = purchaseStreamListener;
+        this.trainingProgressService = trainingProgressService;
+        this.minIdle = Duration.ofMillis(minIdleMs);
+        this.maxDeliveries = maxDeliveries;
+        this.reclaimBatchSize = reclaimBatchSize;
+        this.consumerName = InetAddress.getLocalHost().getHostName() + "-reclaimer";
+        this.enabled = enabled;
+    }
+
+    @Scheduled(fixedDelayString = "${training.stream.reclaim-interval-ms:60000}", initialDelay = 60_000)
+    public void reclaimStaleTasks() {
+        // Off on crawler workers, which must not train
+        if (!enabled || !reclaiming.compareAndSet(false, true)) {
+            return;
+        }
+
+        reclaimExecutor.execute(() -> {
+            try {
+                reclaimBatch();
+            } catch (Exception e) {
+                log.error("Error reclaiming pending training tasks: {}", e.getMessage(), e);
+            } finally {
+                reclaiming.set(false);
+            }
+        });
+    }
+
+    private void reclaimBatch() {
+        for (TrainingLane lane : TrainingLane.values()) {
+            reclaimBatch(lane.getStreamKey());
+        }
+    }
+
+    /**
+     * Walks the stream's whole pending entries list, {@code reclaimBatchSize} entries per XPENDING,
+     * so stale entries behind a page of running tasks are still found.
+     */
+    private void reclaimBatch(String streamKey) {
+        Range<String> page = Range.unbounded();
+
+        while (true) {
+            PendingMessages pendingMessages = redisTemplate.opsForStream()
+                    .pending(streamKey, REDIS_STREAM_SERVER_GROUP, page, reclaimBatchSize);
+
+            for (PendingMessage pendingMessage : pendingMessages) {
+                reclaim(streamKey, pendingMessage);
+            }
+
+            if (pendingMessages.size() < reclaimBatchSize) {
+                return;
+            }
+
+            RecordId lastId = pendingMessages.get(pendingMessages.size() - 1).getId();
+            page = Range.rightUnbounded(Range.Bound.inclusive(RecordId.of(lastId.getTimestamp(), lastId.getSequence() + 1).getValue()));
+        }
+    }
+
+    private void reclaim(String streamKey, PendingMessage pendingMessage) {
+        // Running tasks are kept fresh by their owner's TrainingStreamHeartbeat
+        if (pendingMessage.getElapsedTimeSinceLastDelivery().compareTo(minIdle) < 0) {
+            return;
+        }
+
+        if (pendingMessage.getTotalDeliveryCount() >= maxDeliveries) {
+            deadLetter(streamKey, pendingMessage);
+            return;
+        }
+
+        // Returns nothing if another node claimed it first
+        List<MapRecord<String, Object, Object>> claimed = redisTemplate.opsForStream()
+                .claim(streamKey, REDIS_STREAM_SERVER_GROUP, consumerName, minIdle, pendingMessage.getId());
+
+        for (MapRecord<String, Object, Object> record : claimed) {
+            log.info("Retrying training event {} (delivery {}) previously owned by {}",
+                    record.getId(), pendingMessage.getTotalDeliveryCount() + 1, pendingMessage.getConsumerName());
+
+            try {
+                trainingListener.onMessage(toTaskRecord(record));
+            } catch (Exception e) {
+                log.error("Retry of training event {} failed: {}", record.getId(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private void deadLetter(String streamKey, PendingMessage pendingMessage) {
+        List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream()
+                .range(streamKey, Range.just(pendingMessage.getIdAsString()));
+
+        Map<String, String> deadLetter = new LinkedHashMap<>();
+        deadLetter.put("stream", streamKey);
+        deadLetter.put("originalId", pendingMessage.getIdAsString());
+        deadLetter.put("taskId", records.isEmpty() ? "" : taskId(records.get(0)));
+        deadLetter.put("deliveries", String.valueOf(pendingMessage.getTotalDeliveryCount()));
+        deadLetter.put("lastConsumer", pendingMessage.getConsumerName());
+
+        redisTemplate.opsForStream().add(StreamRecords.newRecord()
+                .in(CHAT_BOT_CREATE_DEAD_LETTER_STREAM)
+                .ofMap(deadLetter));
+
+        redisTemplate.opsForStream().acknowledge(streamKey, REDIS_STREAM_SERVER_GROUP, pendingMessage.getId());
+
+        if (!records.isEmpty()) {
+            trainingProgressService.fail(taskId(records.get(0)),
+                    "Gave up after " + pendingMessage.getTotalDeliveryCount() + " deliveries");
+        }
+
+        log.error("Training event {} moved to {} after {} deliveries",
+                pendingMessage.getIdAsString(), CHAT_BOT_CREATE_DEAD_LETTER_STREAM, pendingMessage.getTotalDeliveryCount());
+    }
+
+    /**
+     * Training events carry the task id as their only field.
+     */
+    private ObjectRecord<String, String> toTaskRecord(MapRecord<String, Object, Object> record) {
+        return StreamRecords.newRecord()
+                .in(record.getStream())
+                .withId(record.getId())
+                .ofObject(taskId(record));
+    }
+
+    private String taskId(MapRecord<String, Object, Object> record) {
+        return record.getValue().values().stream()
+                .findFirst()
+                .map(String::valueOf)
+                .orElse("");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reclaimExecutor.shutdown();
+    }
+}
@@ -5,6 +5,7 @@ import lombok.extern.slf4j.Slf4j;
 import net.ai.chatbot.dao.SocialPostDao;
 import net.ai.chatbot.entity.social.SocialPost;
 import net.ai.chatbot.service.social.publisher.SocialPostPublisher;
+import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
@@ -18,9 +19,11 @@ import java.util.List;
  * Facebook posts use native scheduling API and don't need this cron job.
  * 
  * Runs every 60 seconds to check for Twitter posts with scheduledAt <= now.
+ * Not on crawler workers: the job takes no lock, so every node running it would publish each post.
  */
 @Service
 @Slf4j
+@Profile("!crawler-worker")
 @RequiredArgsConstructor
 public class SocialPostScheduler {
 
@@ -0,0 +1,42 @@
+package net.ai.chatbot.service.training;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Per-crawl settings for {@link PlaywrightWebsiteCrawler}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CrawlOptions {
+
+    @Builder.Default
+    private int maxDepth = 15;
+
+    @Builder.Default
+    private int maxPages = 1000;
+
+    // Playwright resource types to load even though they are blocked by default, e.g. "image"
+    @Builder.Default
+    private Set<String> allowedResourceTypes = Set.of();
+
+    // Key under which page states are remembered between crawls (the chatbot id); null keeps none
+    private String stateScope;
+
+    // Pages the caller already holds; only these may be skipped when unchanged
+    @Builder.Default
+    private Predicate<String> knownPage = url -> false;
+
+    // Called with every known page skipped as unchanged, which the caller keeps as it is
+    @Builder.Default
+    private Consumer<String> unchangedPage = url -> {
+    };
+}
@@ -0,0 +1,82 @@
+package net.ai.chatbot.service.training;
+
+import lombok.extern.slf4j.Slf4j;
+import net.ai.chatbot.entity.CrawlPageState;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Per-page crawl state (crawl_page_state): HTTP validators, SHA-256 of the extracted text and the
+ * page's links. A page counts as unchanged only if its text is identical to the last crawl; any
+ * edit, however small, is retrained. Near-duplicate detection across pages is left to
+ * {@link PageDeduplicator}.
+ */
+@Service
+@Slf4j
+public class CrawlPageStateService {
+
+    private final MongoTemplate mongoTemplate;
+
+    public CrawlPageStateService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * States of every page of a host crawled in this scope, by URL.
+     */
+    public Map<String, CrawlPageState> load(String scope, String host) {
+        if (scope == null) {
+            return Map.of();
+        }
+
+        return mongoTemplate.find(
+                        new Query(Criteria.where("scope").is(scope).and("host").is(host)),
+                        CrawlPageState.class)
+                .stream()
+                .collect(Collectors.toMap(CrawlPageState::getUrl, Function.identity(), (first, second) -> first));
+    }
+
+    /**
+     * Store what was seen of a page.
+     *
+     * @return true if the text changed since the previous crawl, or there was none
+     */
+    public boolean record(String scope,
+                          CrawlPageState previous,
+                          String url,
+                          String host,
+                          String etag,
+                          String lastModified,
+                          String text,
+                          Collection<String> links,
+                          boolean rendered) {
+        String textHash = KnowledgeBaseManifestService.hash(text);
+        // States stored before the text hash have none and count as changed once
+        boolean changed = previous == null || !textHash.equals(previous.getTextHash());
+
+        if (scope == null) {
+            return changed;
+        }
+
+        mongoTemplate.upsert(
+                new Query(Criteria.where("scope").is(scope).and("host").is(host).and("url").is(url)),
+                new Update()
+                        .set("etag", etag)
+                        .set("lastModified", lastModified)
+                        .set("textHash", textHash)
+                        .set("rendered", rendered)
+                        .set("links", new ArrayList<>(links))
+                        .set("updatedAt", new Date()),
+                CrawlPageState.class
+        );
+
+        return changed;
+    }
+}
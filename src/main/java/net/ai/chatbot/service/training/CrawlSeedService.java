@@ -0,0 +1,315 @@
+package net.ai.chatbot.service.training;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads robots.txt and the sitemaps of a site before it is crawled.
+ * <p>
+ * Sitemaps come from the robots.txt {@code Sitemap:} lines, or {@code /sitemap.xml} if there are
+ * none; sitemap indexes are followed up to {@code crawler.seeding.max-sitemaps} files. Page URLs
+ * are returned most recently modified first, so a page budget smaller than the site covers the
+ * freshest content.
+ * <p>
+ * Sitemaps are streamed through StAX rather than parsed into a DOM. Each file is read up to
+ * {@code crawler.seeding.max-sitemap-bytes} uncompressed, and reading stops once
+ * {@code crawler.seeding.urls-read-per-page} URLs per page of the crawl budget were read, so a
+ * site with millions of URLs costs about as much as the pages that will be crawled.
+ */
+@Slf4j
+@Service
+public class CrawlSeedService {
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = newXmlInputFactory();
+
+    private final boolean enabled;
+    private final boolean respectRobots;
+    private final int maxSitemaps;
+    private final int maxSitemapBytes;
+    private final int urlsReadPerPage;
+    private final long maxCrawlDelayMs;
+    private final int timeoutMs;
+
+    public CrawlSeedService(@Value("${crawler.seeding.enabled:true}") boolean enabled,
+                            @Value("${crawler.seeding.respect-robots:true}") boolean respectRobots,
+                            @Value("${crawler.seeding.max-sitemaps:50}") int maxSitemaps,
+                            @Value("${crawler.seeding.max-sitemap-bytes:10485760}") int maxSitemapBytes,
+                            @Value("${crawler.seeding.urls-read-per-page:10}") int urlsReadPerPage,
+                            @Value("${crawler.seeding.max-crawl-delay-ms:10000}") long maxCrawlDelayMs,
+                            @Value("${crawler.seeding.timeout-ms:15000}") int timeoutMs) {
+        this.enabled = enabled;
+        this.respectRobots = respectRobots;
+        this.maxSitemaps = maxSitemaps;
+        this.maxSitemapBytes = maxSitemapBytes;
+        this.urlsReadPerPage = urlsReadPerPage;
+        this.maxCrawlDelayMs = maxCrawlDelayMs;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * @param baseUrl  scheme, host and port of the site
+     * @param maxUrls  maximum number of page URLs to return
+     */
+    public CrawlSeed seed(String baseUrl, String userAgent, int maxUrls) {
+        if (!enabled) {
+            return new CrawlSeed(RobotsRules.ALLOW_ALL, 0, List.of());
+        }
+
+        String robotsTxt = fetchText(baseUrl + "/robots.txt", userAgent);
+
+        RobotsRules robots = RobotsRules.ALLOW_ALL;
+        long crawlDelayMs = 0;
+        List<String> sitemapUrls = new ArrayList<>();
+
+        if (robotsTxt != null) {
+            if (respectRobots) {
+                robots = RobotsRules.parse(robotsTxt, userAgent);
+                crawlDelayMs = Math.min(RobotsRules.parseCrawlDelayMs(robotsTxt), maxCrawlDelayMs);
+            }
+
+            for (String line : robotsTxt.split("\\r?\\n")) {
+                if (line.regionMatches(true, 0, "sitemap:", 0, 8)) {
+                    sitemapUrls.add(line.substring(8).trim());
+                }
+            }
+        }
+
+        if (sitemapUrls.isEmpty()) {
+            sitemapUrls.add(baseUrl + "/sitemap.xml");
+        }
+
+        List<String> pageUrls = readSitemaps(sitemapUrls, userAgent, maxUrls);
+
+        log.info("Seeded crawl of {} with {} sitemap URLs, crawl-delay {} ms", baseUrl, pageUrls.size(), crawlDelayMs);
+
+        return new CrawlSeed(robots, crawlDelayMs, pageUrls);
+    }
+
+    private List<String> readSitemaps(List<String> sitemapUrls, String userAgent, int maxUrls) {
+        Deque<String> pending = new ArrayDeque<>(sitemapUrls);
+        Set<String> seenSitemaps = new HashSet<>();
+        Map<String, Instant> pages = new LinkedHashMap<>();
+        long maxUrlsRead = (long) maxUrls * urlsReadPerPage;
+        int sitemapsRead = 0;
+
+        while (!pending.isEmpty() && sitemapsRead < maxSitemaps && pages.size() < maxUrlsRead) {
+            String sitemapUrl = pending.pollFirst();
+            if (!seenSitemaps.add(sitemapUrl)) {
+                continue;
+            }
+
+            readSitemap(sitemapUrl, userAgent, pending, pages, maxUrlsRead);
+            sitemapsRead++;
+        }
+
+        // Most recently modified first; pages without lastmod keep sitemap order after them
+        return pages.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue(Comparator.nullsLast(Comparator.<Instant>reverseOrder())))
+                .limit(maxUrls)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * Stream one sitemap: child sitemaps of an index are queued on {@code pending}, page URLs are
+     * added to {@code pages} until it holds {@code maxUrlsRead}. A truncated or malformed file
+     * keeps what was read before the error.
+     */
+    private void readSitemap(String sitemapUrl, String userAgent, Deque<String> pending,
+                             Map<String, Instant> pages, long maxUrlsRead) {
+        Connection.Response response = execute(sitemapUrl, userAgent);
+        if (response == null) {
+            return;
+        }
+
+        try (InputStream content = decompress(response.bodyStream())) {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(content);
+            try {
+                // <url> or <sitemap> being read, and the depth of its element
+                String entry = null;
+                int entryDepth = 0;
+                int depth = 0;
+                String loc = null;
+                String lastmod = null;
+
+                while (reader.hasNext()) {
+                    int event = reader.next();
+
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        depth++;
+                        String name = reader.getLocalName();
+
+                        if (entry == null && (name.equals("url") || name.equals("sitemap"))) {
+                            entry = name;
+                            entryDepth = depth;
+                            loc = null;
+                            lastmod = null;
+                        } else if (entry != null && depth == entryDepth + 1 && (name.equals("loc") || name.equals("lastmod"))) {
+                            // Reads up to and including the end tag
+                            String text = reader.getElementText().trim();
+                            depth--;
+
+                            if (name.equals("loc")) {
+                                loc = text;
+                            } else {
+                                lastmod = text;
+                            }
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        if (entry != null && depth == entryDepth) {
+                            if (loc != null && !loc.isEmpty()) {
+                                if (entry.equals("sitemap")) {
+                                    pending.addLast(loc);
+                                } else {
+                                    pages.putIfAbsent(loc, lastmod == null ? null : parseLastmod(lastmod));
+                                    if (pages.size() >= maxUrlsRead) {
+                                        return;
+                                    }
+                                }
+                            }
+                            entry = null;
+                        }
+                        depth--;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | XMLStreamException e) {
+            log.debug("Unreadable sitemap {}: {}", sitemapUrl, e.getMessage());
+        }
+    }
+
+    /**
+     * .xml.gz sitemaps, unless the server already decoded them through Content-Encoding; capped at
+     * {@code maxSitemapBytes} uncompressed either way.
+     */
+    private InputStream decompress(InputStream body) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(body);
+        buffered.mark(2);
+        boolean gzipped = buffered.read() == 0x1f && buffered.read() == 0x8b;
+        buffered.reset();
+
+        return new LimitedInputStream(gzipped ? new GZIPInputStream(buffered) : buffered, maxSitemapBytes);
+    }
+
+    private Instant parseLastmod(String lastmod) {
+        try {
+            return OffsetDateTime.parse(lastmod).toInstant();
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDate.parse(lastmod.length() > 10 ? lastmod.substring(0, 10) : lastmod)
+                        .atStartOfDay(ZoneOffset.UTC).toInstant();
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    private String fetchText(String url, String userAgent) {
+        Connection.Response response = execute(url, userAgent);
+        if (response == null) {
+            return null;
+        }
+
+        try {
+            return new String(response.bodyAsBytes(), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            log.debug("Failed to fetch {}: {}", url, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * GET a URL, returning the response before its body is read, or null unless it is a 200.
+     */
+    private Connection.Response execute(String url, String userAgent) {
+        try {
+            Connection.Response response = Jsoup.connect(url)
+                    .userAgent(userAgent)
+                    .timeout(timeoutMs)
+                    .maxBodySize(maxSitemapBytes)
+                    .ignoreContentType(true)
+                    .ignoreHttpErrors(true)
+                    .followRedirects(true)
+                    .execute();
+
+            return response.statusCode() == 200 ? response : null;
+        } catch (Exception e) {
+            log.debug("Failed to fetch {}: {}", url, e.getMessage());
+            return null;
+        }
+    }
+
+    private static XMLInputFactory newXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // Sitemaps come from arbitrary sites: no DTDs, no external entities
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * Ends the stream after {@code remaining} bytes, as if the content stopped there.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        private LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read();
+            if (read != -1) {
+                remaining--;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+    }
+
+    /**
+     * @param crawlDelayMs robots.txt crawl-delay, capped, 0 if none
+     * @param urls         sitemap page URLs, most recently modified first
+     */
+    public record CrawlSeed(RobotsRules robots, long crawlDelayMs, List<String> urls) {
+    }
+}
@@ -1,18 +1,186 @@
 package net.ai.chatbot.service.training;
 
-import java.io.Serializable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
-public class CrawlerStatistics implements Serializable {
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-    private int processedPageCount = 0;
-    private int totalLinksCount = 0;
+/**
+ * Statistics of one crawl. Every event is counted for the crawl's summary and recorded into
+ * Micrometer meters, exported through {@code /actuator/metrics} of the node that ran the crawl: a
+ * crawler worker when {@code crawler.remote.enabled} is set (open on the worker's internal port),
+ * otherwise the API node (authenticated there):
+ * <ul>
+ *     <li>{@code crawler.pages} pages fetched, by fetch mode</li>
+ *     <li>{@code crawler.page.render} time to fetch or render a page until its content is extracted, by fetch mode</li>
+ *     <li>{@code crawler.bytes} bytes downloaded, by fetch mode</li>
+ *     <li>{@code crawler.pages.skipped} pages not handed to the consumer, by reason</li>
+ *     <li>{@code crawler.errors} failed pages, by exception type</li>
+ *     <li>{@code crawler.crawl.duration}, {@code crawler.crawl.throughput} (pages/s) and
+ *     {@code crawler.crawl.depth} (deepest page fetched) per finished crawl</li>
+ * </ul>
+ * All meters are tagged with the crawler; none with the site or chatbot, to keep the series bounded.
+ * Slow sites are found through the summary logged at the end of each crawl. Thread-safe.
+ */
+public class CrawlerStatistics {
 
-    public void incrementProcessedPageCount() {
-        processedPageCount++;
+    public enum FetchMode {STATIC, BROWSER}
+
+    public enum SkipReason {
+        /** 304 to a conditional request */
+        NOT_MODIFIED,
+        /** Text identical to the last crawl */
+        UNCHANGED,
+        /** Declares a canonical URL that is already crawled */
+        DUPLICATE,
+        /** Disallowed by robots.txt */
+        DISALLOWED,
+        /** Off-site or a static asset */
+        EXCLUDED
+    }
+
+    private final String crawler;
+    private final MeterRegistry meterRegistry;
+    private final long startedAt = System.nanoTime();
+
+    private final AtomicInteger processedPageCount = new AtomicInteger();
+    private final AtomicInteger totalLinksCount = new AtomicInteger();
+    private final AtomicLong bytesDownloaded = new AtomicLong();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private final Map<SkipReason, AtomicInteger> skipped = new EnumMap<>(SkipReason.class);
+    private final Map<String, AtomicInteger> errors = new ConcurrentHashMap<>();
+
+    private final Map<FetchMode, Counter> pageCounters = new EnumMap<>(FetchMode.class);
+    private final Map<FetchMode, Timer> renderTimers = new EnumMap<>(FetchMode.class);
+    private final Map<FetchMode, Counter> byteCounters = new EnumMap<>(FetchMode.class);
+    private final Map<SkipReason, Counter> skipCounters = new EnumMap<>(SkipReason.class);
+
+    /**
+     * @param crawler name of the crawler, the {@code crawler} tag of every meter
+     */
+    public CrawlerStatistics(String crawler, MeterRegistry meterRegistry) {
+        this.crawler = crawler;
+        this.meterRegistry = meterRegistry;
+
+        for (FetchMode mode : FetchMode.values()) {
+            String tag = tagValue(mode);
+            pageCounters.put(mode, Counter.builder("crawler.pages")
+                    .tag("crawler", crawler)
+                    .tag("mode", tag)
+                    .register(meterRegistry));
+            renderTimers.put(mode, Timer.builder("crawler.page.render")
+                    .tag("crawler", crawler)
+                    .tag("mode", tag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            byteCounters.put(mode, Counter.builder("crawler.bytes")
+                    .baseUnit("bytes")
+                    .tag("crawler", crawler)
+                    .tag("mode", tag)
+                    .register(meterRegistry));
+        }
+
+        for (SkipReason reason : SkipReason.values()) {
+            skipped.put(reason, new AtomicInteger());
+            skipCounters.put(reason, Counter.builder("crawler.pages.skipped")
+                    .tag("crawler", crawler)
+                    .tag("reason", tagValue(reason))
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * A page was fetched at {@code depth} (0 for the start page).
+     *
+     * @param renderNanos time from the start of the request until the content was extracted, 0 if unknown
+     */
+    public void pageFetched(FetchMode mode, int depth, long renderNanos) {
+        processedPageCount.incrementAndGet();
+        maxDepth.accumulateAndGet(depth, Math::max);
+        pageCounters.get(mode).increment();
+        if (renderNanos > 0) {
+            renderTimers.get(mode).record(renderNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void bytesDownloaded(FetchMode mode, long bytes) {
+        if (bytes <= 0) {
+            return;
+        }
+        bytesDownloaded.addAndGet(bytes);
+        byteCounters.get(mode).increment(bytes);
+    }
+
+    public void pageSkipped(SkipReason reason) {
+        skipped.get(reason).incrementAndGet();
+        skipCounters.get(reason).increment();
+    }
+
+    public void pageFailed(Throwable error) {
+        String type = error.getClass().getSimpleName();
+        errors.computeIfAbsent(type, key -> new AtomicInteger()).incrementAndGet();
+        Counter.builder("crawler.errors")
+                .tag("crawler", crawler)
+                .tag("type", type)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public boolean hasFailures() {
+        return !errors.isEmpty();
     }
 
     public void incrementTotalLinksCount(int linksCount) {
-        totalLinksCount += linksCount;
+        totalLinksCount.addAndGet(linksCount);
     }
 
-}
\ No newline at end of file
+    /**
+     * Record the crawl's duration, throughput and depth; call once, when the crawl ends.
+     *
+     * @return a one-line summary of the crawl, for the log
+     */
+    public String finish() {
+        long durationNanos = System.nanoTime() - startedAt;
+        double seconds = durationNanos / 1e9;
+        double pagesPerSecond = seconds > 0 ? processedPageCount.get() / seconds : 0;
+
+        Timer.builder("crawler.crawl.duration")
+                .tag("crawler", crawler)
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("crawler.crawl.throughput")
+                .baseUnit("pages/s")
+                .tag("crawler", crawler)
+                .register(meterRegistry)
+                .record(pagesPerSecond);
+        DistributionSummary.builder("crawler.crawl.depth")
+                .tag("crawler", crawler)
+                .register(meterRegistry)
+                .record(maxDepth.get());
+
+        Map<SkipReason, Integer> skippedPages = new EnumMap<>(SkipReason.class);
+        skipped.forEach((reason, count) -> {
+            if (count.get() > 0) {
+                skippedPages.put(reason, count.get());
+            }
+        });
+        Map<String, Integer> failedPages = new TreeMap<>();
+        errors.forEach((type, count) -> failedPages.put(type, count.get()));
+
+        return String.format("%d pages in %.1f s (%.2f pages/s), %d KiB downloaded, depth %d, %d links, skipped %s, errors %s",
+                processedPageCount.get(), seconds, pagesPerSecond, bytesDownloaded.get() / 1024, maxDepth.get(),
+                totalLinksCount.get(), skippedPages, failedPages);
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase();
+    }
+}
@@ -0,0 +1,159 @@
+package net.ai.chatbot.service.training;
+
+import com.mongodb.client.model.InsertManyOptions;
+import lombok.extern.slf4j.Slf4j;
+import net.ai.chatbot.entity.KnowledgeChunk;
+import net.ai.chatbot.service.mongodb.MongodbVectorService;
+import org.apache.tika.Tika;
+import org.bson.Document;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.openai.OpenAiEmbeddingModel;
+import org.springframework.ai.openai.OpenAiEmbeddingOptions;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * In-service ingestion path: embeds chunks with the OpenAI embeddings API and bulk-inserts them
+ * into the chatbot's knowledge-base collection, skipping the N8N webhook.
+ * <p>
+ * Disabled unless {@code training.direct-embedding.enabled} is true and {@code openai.api.key}
+ * is set. Batches hold up to 2048 inputs (the API limit) and a character cap that keeps each
+ * request under the per-request token limit. Chunk documents use the layout the vector index
+ * expects: text, embedding and metadata.sourceId.
+ * <p>
+ * Uploaded files are extracted in-process, up to {@code training.direct-embedding.max-text-chars}
+ * characters of text per file, so a huge document can't exhaust the heap.
+ */
+@Service
+@Slf4j
+public class DirectEmbeddingIngestionService {
+
+    private static final int MAX_INPUTS_PER_REQUEST = 2048;
+
+    private final MongoTemplate mongoTemplate;
+    private final MongodbVectorService mongodbVectorService;
+    private final KnowledgeChunker knowledgeChunker;
+    private final OpenAiEmbeddingModel embeddingModel;
+    private final int batchMaxChunks;
+    private final int batchMaxChars;
+    private final int maxTextChars;
+
+    public DirectEmbeddingIngestionService(MongoTemplate mongoTemplate,
+                                           MongodbVectorService mongodbVectorService,
+                                           KnowledgeChunker knowledgeChunker,
+                                           @Value("${training.direct-embedding.enabled:false}") boolean enabled,
+                                           @Value("${openai.api.key:}") String openAiApiKey,
+                                           @Value("${training.direct-embedding.model:text-embedding-3-small}") String model,
+                                           @Value("${training.direct-embedding.batch-max-chunks:2048}") int batchMaxChunks,
+                                           @Value("${training.direct-embedding.batch-max-chars:800000}") int batchMaxChars,
+                                           @Value("${training.direct-embedding.max-text-chars:5000000}") int maxTextChars) {
+        this.mongoTemplate = mongoTemplate;
+        this.mongodbVectorService = mongodbVectorService;
+        this.knowledgeChunker = knowledgeChunker;
+        this.batchMaxChunks = Math.min(batchMaxChunks, MAX_INPUTS_PER_REQUEST);
+        this.batchMaxChars = batchMaxChars;
+        this.maxTextChars = maxTextChars;
+
+        if (enabled && StringUtils.hasText(openAiApiKey)) {
+            this.embeddingModel = new OpenAiEmbeddingModel(
+                    OpenAiApi.builder().apiKey(openAiApiKey).build(),
+                    MetadataMode.EMBED,
+                    OpenAiEmbeddingOptions.builder().model(model).build()
+            );
+            log.info("Direct embedding ingestion enabled with model {}", model);
+        } else {
+            this.embeddingModel = null;
+            if (enabled) {
+                log.warn("training.direct-embedding.enabled is set but openai.api.key is empty, using N8N ingestion");
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return embeddingModel != null;
+    }
+
+    /**
+     * Group chunks into embedding requests of up to 2048 inputs.
+     */
+    public List<List<KnowledgeChunk>> batch(List<KnowledgeChunk> chunks) {
+        return knowledgeChunker.batch(chunks, batchMaxChunks, batchMaxChars);
+    }
+
+    /**
+     * Extract the text of an uploaded file, so it can be chunked and embedded like any other text.
+     * Tika stops writing after {@code training.direct-embedding.max-text-chars} characters; the
+     * rest of the file is not trained.
+     */
+    public String extractText(InputStream fileContent) {
+        try (InputStream content = fileContent) {
+            Tika tika = new Tika();
+            tika.setMaxStringLength(maxTextChars);
+
+            String text = tika.parseToString(content);
+            if (text.length() >= maxTextChars) {
+                log.warn("Extracted text reached training.direct-embedding.max-text-chars ({}), the rest of the file is not trained",
+                        maxTextChars);
+            }
+            return text;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to extract text from file", e);
+        }
+    }
+
+    /**
+     * Embed one batch and insert it into the knowledge-base collection.
+     *
+     * @return number of chunks inserted
+     */
+    public int ingest(String chatbotId, String collectionName, List<KnowledgeChunk> batch, String email, String dataType) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<float[]> embeddings = embeddingModel.embed(batch.stream().map(KnowledgeChunk::text).toList());
+
+        Date now = new Date();
+        List<Document> documents = new ArrayList<>(batch.size());
+
+        for (int i = 0; i < batch.size(); i++) {
+            KnowledgeChunk chunk = batch.get(i);
+
+            documents.add(new Document()
+                    .append("text", chunk.text())
+                    .append("embedding", toList(embeddings.get(i)))
+                    .append("metadata", new Document()
+                            .append("sourceId", chunk.sourceId())
+                            .append("chunkIndex", chunk.chunkIndex())
+                            .append("chatbotId", chatbotId)
+                            .append("email", email)
+                            .append("dataType", dataType)
+                            .append("createdAt", now)));
+        }
+
+        mongoTemplate.getCollection(collectionName)
+                .insertMany(documents, new InsertManyOptions().ordered(false));
+
+        mongodbVectorService.incrementKnowledgebaseChunkCount(chatbotId, documents.size());
+
+        log.info("Embedded and stored {} chunks in {}", documents.size(), collectionName);
+
+        return documents.size();
+    }
+
+    private List<Double> toList(float[] embedding) {
+        List<Double> values = new ArrayList<>(embedding.length);
+        for (float value : embedding) {
+            values.add((double) value);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,82 @@
+package net.ai.chatbot.service.training;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-host request limits shared by every crawl on this node: at most
+ * {@code crawler.politeness.max-concurrent-per-host} page loads in flight per host, started at
+ * least {@code crawler.politeness.min-delay-ms} apart. Two chatbots crawling the same site share
+ * one budget. A host with a robots.txt crawl-delay gets one request at a time, spaced by that delay.
+ */
+@Component
+public class HostPolitenessLimiter {
+
+    private final int maxConcurrentPerHost;
+    private final long minDelayMs;
+    private final Map<String, HostState> hosts = new ConcurrentHashMap<>();
+
+    public HostPolitenessLimiter(@Value("${crawler.politeness.max-concurrent-per-host:4}") int maxConcurrentPerHost,
+                                 @Value("${crawler.politeness.min-delay-ms:250}") long minDelayMs) {
+        this.maxConcurrentPerHost = maxConcurrentPerHost;
+        this.minDelayMs = minDelayMs;
+    }
+
+    /**
+     * Take a request slot for the host if one is free and the minimum delay has passed.
+     *
+     * @return 0 if the slot was taken, otherwise the suggested wait in milliseconds before retrying
+     */
+    public long tryAcquire(String host) {
+        HostState state = hosts.computeIfAbsent(host, h -> new HostState());
+
+        synchronized (state) {
+            long now = System.currentTimeMillis();
+            long delayMs = Math.max(minDelayMs, state.crawlDelayMs);
+            long nextAllowedAt = state.lastStartedAt + delayMs;
+            int maxConcurrent = state.crawlDelayMs > 0 ? 1 : maxConcurrentPerHost;
+
+            if (state.inFlight >= maxConcurrent) {
+                return Math.max(delayMs, 50);
+            }
+            if (now < nextAllowedAt) {
+                return nextAllowedAt - now;
+            }
+
+            state.inFlight++;
+            state.lastStartedAt = now;
+            return 0;
+        }
+    }
+
+    /**
+     * Apply a robots.txt crawl-delay to the host; 0 removes it.
+     */
+    public void setCrawlDelay(String host, long crawlDelayMs) {
+        HostState state = hosts.computeIfAbsent(host, h -> new HostState());
+
+        synchronized (state) {
+            state.crawlDelayMs = crawlDelayMs;
+        }
+    }
+
+    public void release(String host) {
+        HostState state = hosts.get(host);
+        if (state == null) {
+            return;
+        }
+
+        synchronized (state) {
+            state.inFlight = Math.max(0, state.inFlight - 1);
+        }
+    }
+
+    private static class HostState {
+        private int inFlight;
+        private long lastStartedAt;
+        private long crawlDelayMs;
+    }
+}
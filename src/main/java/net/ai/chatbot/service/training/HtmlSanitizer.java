@@ -3,213 +3,146 @@ package net.ai.chatbot.service.training;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
+import org.jsoup.nodes.Node;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.NodeFilter;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.QueryParser;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 import static org.jsoup.internal.Normalizer.normalize;
 
+/**
+ * Semantic text of a crawled page, as embedded into the knowledge base.
+ * <p>
+ * The body is walked once: noise elements (scripts, navigation, forms, ...) are removed as they
+ * are reached, and the headings, paragraphs, list items, product cards, images and links of the
+ * main content root ({@code main} or {@code article}, else the body) are collected by reference.
+ * The text is then written into one builder reused per thread.
+ */
 public final class HtmlSanitizer {
 
-    public static Map<String, Object> extractStructuredContent(String html, String baseUrl) {
+    private static final Set<String> NOISE_TAGS = Set.of(
+            "script", "style", "noscript", "iframe", "canvas", "svg", "form", "input",
+            "nav", "footer", "header", "aside", "ads", "dialog"
+    );
 
-        Document doc = Jsoup.parse(html, baseUrl);
+    private static final Set<String> BLOCK_TAGS = Set.of("h1", "h2", "h3", "h4", "h5", "h6", "p", "li");
 
-        // --------------------------------------------------
-        // 1. REMOVE HARD-NOISE ELEMENTS (BUT KEEP IMAGES!)
-        // --------------------------------------------------
-        doc.select(
-                "script, style, noscript, iframe, canvas, svg, form, input, button[type='submit'], " +
-                        "nav, footer, header, aside, ads, dialog"
-        ).remove();
+    // Common product card selectors, most specific first; the first that yields products wins
+    private static final List<Evaluator> PRODUCT_SELECTORS = List.of(
+            QueryParser.parse(".product, .product-card, .product-item, .woocommerce-LoopProduct-link, .item"),
+            QueryParser.parse("[class*='product'], [class*='item-card'], [data-product]"),
+            QueryParser.parse(".card, .grid-item, .shop-item")
+    );
 
+    // Builders that grew past this are dropped rather than kept by the thread
+    private static final int MAX_RETAINED_CAPACITY = 1 << 20;
 
-        // --------------------------------------------------
-        // 2. FIND MAIN CONTENT ROOT
-        // --------------------------------------------------
-        Element root = doc.selectFirst("main, article");
-        if (root == null) root = doc.body();
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(16 * 1024));
 
-        // --------------------------------------------------
-        // 3. EXTRACT PRODUCT CARDS/ITEMS (CRITICAL FOR E-COMMERCE)
-        // --------------------------------------------------
-        List<Map<String, Object>> products = extractProducts(root, baseUrl);
+    private HtmlSanitizer() {
+    }
 
-        // --------------------------------------------------
-        // 4. EXTRACT STRUCTURED CONTENT (HEADINGS + TEXT)
-        // --------------------------------------------------
-        List<Map<String, Object>> sections = new ArrayList<>();
-        Map<String, Object> currentSection = null;
+    public static String extractSemanticText(String html, String baseUrl) {
+        Document doc = Jsoup.parse(html, baseUrl);
 
-        for (Element el : root.select("h1, h2, h3, h4, h5, h6, p, li")) {
+        PageWalk walk = new PageWalk(doc.body());
+        NodeTraversor.filter(walk, doc.body());
 
-            String text = normalize(el.text());
-            if (text.isEmpty()) continue;
+        List<Product> products = extractProducts(walk);
+        List<Section> sections = extractSections(walk.inRoot(walk.blocks, PageWalk.BLOCKS));
 
-            if (el.tagName().matches("h[1-6]")) {
-                currentSection = new LinkedHashMap<>();
-                currentSection.put("heading", text);
-                currentSection.put("content", new ArrayList<String>());
-                sections.add(currentSection);
-            } else {
-                if (currentSection == null) {
-                    currentSection = new LinkedHashMap<>();
-                    currentSection.put("heading", "Introduction");
-                    currentSection.put("content", new ArrayList<String>());
-                    sections.add(currentSection);
+        StringBuilder sb = BUILDER.get();
+        sb.setLength(0);
+
+        try {
+            appendProducts(sb, products);
+            appendImages(sb, walk.inRoot(walk.images, PageWalk.IMAGES));
+
+            sb.append("URL:\n").append(baseUrl).append("\n\n");
+
+            sb.append("TEXT:\n");
+            appendFlatText(sb, products, sections);
+            sb.append("\n\n");
+
+            sb.append("SECTIONS:\n");
+            for (Section section : sections) {
+                sb.append("- {heading=").append(section.heading()).append(", content=[");
+                for (int i = 0; i < section.content().size(); i++) {
+                    if (i > 0) sb.append(", ");
+                    sb.append(section.content().get(i));
                 }
-                @SuppressWarnings("unchecked")
-                List<String> content = (List<String>) currentSection.get("content");
-                content.add(text);
+                sb.append("]}\n");
             }
-        }
+            sb.append('\n');
 
-        // --------------------------------------------------
-        // 5. POST-FILTER LOW-VALUE SECTIONS
-        // --------------------------------------------------
-        sections.removeIf(section -> {
-            @SuppressWarnings("unchecked")
-            List<String> content = (List<String>) section.get("content");
-            int totalLength = content.stream().mapToInt(String::length).sum();
-            return totalLength < 80; // safe threshold
-        });
-
-        // --------------------------------------------------
-        // 6. EXTRACT ALL IMAGES (NOT JUST PRODUCTS)
-        // --------------------------------------------------
-        List<Map<String, String>> images = extractImages(root, baseUrl);
-
-        // --------------------------------------------------
-        // 7. FLATTEN CLEAN TEXT (FOR VECTOR DB)
-        // --------------------------------------------------
-        StringBuilder flatText = new StringBuilder();
-
-        // Add product information to flat text
-        if (!products.isEmpty()) {
-            flatText.append("PRODUCTS:\n");
-            for (Map<String, Object> product : products) {
-                flatText.append("Product: ").append(product.get("name")).append("\n");
-                if (product.get("price") != null) {
-                    flatText.append("Price: ").append(product.get("price")).append("\n");
-                }
-                if (product.get("description") != null) {
-                    flatText.append("Description: ").append(product.get("description")).append("\n");
-                }
-                if (product.get("image") != null) {
-                    flatText.append("Image: ").append(product.get("image")).append("\n");
-                }
-                if (product.get("link") != null) {
-                    flatText.append("Link: ").append(product.get("link")).append("\n");
-                }
-                flatText.append("\n");
+            sb.append("LINKS:\n");
+            for (String link : links(walk.inRoot(walk.anchors, PageWalk.ANCHORS))) {
+                sb.append("- ").append(link).append('\n');
             }
-            flatText.append("\n");
-        }
 
-        // Add sections
-        for (Map<String, Object> sec : sections) {
-            flatText.append(sec.get("heading")).append("\n");
-            @SuppressWarnings("unchecked")
-            List<String> content = (List<String>) sec.get("content");
-            content.forEach(c -> flatText.append(c).append("\n"));
-            flatText.append("\n");
+            trimTrailing(sb, 0);
+            return sb.toString();
+        } finally {
+            if (sb.capacity() > MAX_RETAINED_CAPACITY) {
+                BUILDER.remove();
+            }
         }
-
-        // --------------------------------------------------
-        // 8. EXTRACT INTERNAL LINKS
-        // --------------------------------------------------
-        List<String> links = root.select("a[href]").stream()
-                .map(a -> a.absUrl("href"))
-                .filter(h -> !h.isEmpty())
-                .distinct()
-                .toList();
-
-        // --------------------------------------------------
-        // 9. BUILD FINAL JSON STRUCTURE
-        // --------------------------------------------------
-        Map<String, Object> result = new LinkedHashMap<>();
-        result.put("url", baseUrl);
-        result.put("text", flatText.toString().trim());
-        result.put("sections", sections);
-        result.put("products", products); // CRITICAL: Include products
-        result.put("images", images); // CRITICAL: Include all images
-        result.put("links", links);
-
-        return result;
     }
 
     /**
-     * Extract product information from common e-commerce patterns
+     * Product cards of the first selector group that yields any, keeping those with a name or image.
      */
-    private static List<Map<String, Object>> extractProducts(Element root, String baseUrl) {
-        List<Map<String, Object>> products = new ArrayList<>();
-
-        // Common product card selectors
-        String[] productSelectors = {
-                ".product, .product-card, .product-item, .woocommerce-LoopProduct-link, .item",
-                "[class*='product'], [class*='item-card'], [data-product]",
-                ".card, .grid-item, .shop-item"
-        };
-
-        for (String selector : productSelectors) {
-            Elements productElements = root.select(selector);
-
-            for (Element productEl : productElements) {
-                Map<String, Object> product = new LinkedHashMap<>();
+    private static List<Product> extractProducts(PageWalk walk) {
+        List<Product> products = new ArrayList<>();
 
-                // Extract product name
+        for (int group = 0; group < PRODUCT_SELECTORS.size(); group++) {
+            for (Element productEl : walk.inRoot(walk.productCandidates.get(group), PageWalk.PRODUCTS + group)) {
                 Element nameEl = productEl.selectFirst("h1, h2, h3, h4, .title, .product-title, .product-name, [class*='name']");
-                if (nameEl != null) {
-                    product.put("name", normalize(nameEl.text()));
-                }
+                String name = nameEl != null ? normalize(nameEl.text()) : null;
 
-                // Extract price
                 Element priceEl = productEl.selectFirst(".price, .product-price, [class*='price'], .amount, .cost");
-                if (priceEl != null) {
-                    product.put("price", normalize(priceEl.text()));
-                }
+                String price = priceEl != null ? normalize(priceEl.text()) : null;
 
-                // Extract description
+                String description = null;
                 Element descEl = productEl.selectFirst("p, .description, .product-description, [class*='desc']");
                 if (descEl != null) {
                     String desc = normalize(descEl.text());
-                    if (!desc.isEmpty() && desc.length() > 10) {
-                        product.put("description", desc);
+                    if (desc.length() > 10) {
+                        description = desc;
                     }
                 }
 
-                // Extract image
+                String image = null;
+                String imageAlt = null;
                 Element imgEl = productEl.selectFirst("img");
                 if (imgEl != null) {
-                    String imgSrc = imgEl.absUrl("src");
-                    if (imgSrc.isEmpty()) imgSrc = imgEl.absUrl("data-src");
-                    if (imgSrc.isEmpty()) imgSrc = imgEl.absUrl("data-lazy-src");
+                    String imgSrc = imageSource(imgEl);
                     if (!imgSrc.isEmpty()) {
-                        product.put("image", imgSrc);
-                        product.put("image_alt", imgEl.attr("alt"));
+                        image = imgSrc;
+                        imageAlt = imgEl.attr("alt");
                     }
                 }
 
-                // Extract product link
+                String link = null;
                 Element linkEl = productEl.selectFirst("a[href]");
                 if (linkEl != null) {
-                    String link = linkEl.absUrl("href");
-                    if (!link.isEmpty()) {
-                        product.put("link", link);
+                    String href = linkEl.absUrl("href");
+                    if (!href.isEmpty()) {
+                        link = href;
                     }
                 }
 
-                // Only add if we found at least a name or image
-                if (product.containsKey("name") || product.containsKey("image")) {
-                    products.add(product);
+                if (name != null || image != null) {
+                    products.add(new Product(name, price, description, image, imageAlt, link));
                 }
             }
 
-            // If we found products, don't check other selectors
             if (!products.isEmpty()) break;
         }
 
@@ -217,96 +150,225 @@ public final class HtmlSanitizer {
     }
 
     /**
-     * Extract all images with context
+     * Headings open sections; paragraphs and list items fill them. Sections with under 80
+     * characters of content are dropped.
      */
-    private static List<Map<String, String>> extractImages(Element root, String baseUrl) {
-        List<Map<String, String>> images = new ArrayList<>();
-
-        Elements imgElements = root.select("img");
-        for (Element img : imgElements) {
-            Map<String, String> imageData = new LinkedHashMap<>();
-
-            String src = img.absUrl("src");
-            if (src.isEmpty()) src = img.absUrl("data-src");
-            if (src.isEmpty()) src = img.absUrl("data-lazy-src");
-
-            if (!src.isEmpty()) {
-                imageData.put("url", src);
-                imageData.put("alt", img.attr("alt"));
-                imageData.put("title", img.attr("title"));
-
-                // Get surrounding context
-                Element parent = img.parent();
-                if (parent != null) {
-                    String context = normalize(parent.text());
-                    if (!context.isEmpty() && context.length() < 200) {
-                        imageData.put("context", context);
-                    }
+    private static List<Section> extractSections(List<Element> blocks) {
+        List<Section> sections = new ArrayList<>();
+        Section current = null;
+
+        for (Element el : blocks) {
+            String text = normalize(el.text());
+            if (text.isEmpty()) continue;
+
+            if (el.tagName().charAt(0) == 'h') {
+                current = new Section(text, new ArrayList<>());
+                sections.add(current);
+            } else {
+                if (current == null) {
+                    current = new Section("Introduction", new ArrayList<>());
+                    sections.add(current);
                 }
+                current.content().add(text);
+            }
+        }
 
-                images.add(imageData);
+        sections.removeIf(section -> section.content().stream().mapToInt(String::length).sum() < 80);
+        return sections;
+    }
+
+    private static void appendProducts(StringBuilder sb, List<Product> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+
+        sb.append("PRODUCTS:\n");
+        for (Product product : products) {
+            sb.append("---\n");
+            appendField(sb, "NAME: ", product.name());
+            appendField(sb, "PRICE: ", product.price());
+            appendField(sb, "DESCRIPTION: ", product.description());
+            appendField(sb, "IMAGE: ", product.image());
+            appendField(sb, "IMAGE_ALT: ", product.imageAlt());
+            appendField(sb, "LINK: ", product.link());
+        }
+        sb.append('\n');
+    }
+
+    private static void appendImages(StringBuilder sb, List<Element> images) {
+        int start = sb.length();
+        sb.append("IMAGES:\n");
+        boolean any = false;
+
+        for (Element img : images) {
+            String src = imageSource(img);
+            if (src.isEmpty()) continue;
+
+            any = true;
+            sb.append("Image URL: ").append(src).append('\n');
+            String alt = img.attr("alt");
+            if (!alt.isEmpty()) {
+                sb.append("Alt text: ").append(alt).append('\n');
             }
         }
 
-        return images;
+        if (any) {
+            sb.append('\n');
+        } else {
+            sb.setLength(start);
+        }
     }
 
-    public static String mapToSemanticText(Map<String, Object> content) {
-        StringBuilder sb = new StringBuilder();
-
-        // Handle products specially
-        if (content.containsKey("products")) {
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> products = (List<Map<String, Object>>) content.get("products");
-
-            if (!products.isEmpty()) {
-                sb.append("PRODUCTS:\n");
-                for (Map<String, Object> product : products) {
-                    sb.append("---\n");
-                    product.forEach((key, value) -> {
-                        sb.append(key.toUpperCase()).append(": ").append(value).append("\n");
-                    });
-                }
-                sb.append("\n");
+    /**
+     * Products and sections as plain lines, trimmed.
+     */
+    private static void appendFlatText(StringBuilder sb, List<Product> products, List<Section> sections) {
+        int start = sb.length();
+
+        if (!products.isEmpty()) {
+            sb.append("PRODUCTS:\n");
+            for (Product product : products) {
+                sb.append("Product: ").append(product.name()).append('\n');
+                appendField(sb, "Price: ", product.price());
+                appendField(sb, "Description: ", product.description());
+                appendField(sb, "Image: ", product.image());
+                appendField(sb, "Link: ", product.link());
+                sb.append('\n');
             }
+            sb.append('\n');
         }
 
-        // Handle images specially
-        if (content.containsKey("images")) {
-            @SuppressWarnings("unchecked")
-            List<Map<String, String>> images = (List<Map<String, String>>) content.get("images");
-
-            if (!images.isEmpty()) {
-                sb.append("IMAGES:\n");
-                for (Map<String, String> image : images) {
-                    sb.append("Image URL: ").append(image.get("url")).append("\n");
-                    if (image.get("alt") != null && !image.get("alt").isEmpty()) {
-                        sb.append("Alt text: ").append(image.get("alt")).append("\n");
-                    }
-                }
-                sb.append("\n");
+        for (Section section : sections) {
+            sb.append(section.heading()).append('\n');
+            for (String content : section.content()) {
+                sb.append(content).append('\n');
             }
+            sb.append('\n');
         }
 
-        // Handle other content
-        content.forEach((key, value) -> {
-            if (key.equals("products") || key.equals("images")) {
-                return; // Already handled above
+        trimTrailing(sb, start);
+    }
+
+    private static Set<String> links(List<Element> anchors) {
+        Set<String> links = new LinkedHashSet<>();
+        for (Element anchor : anchors) {
+            String href = anchor.absUrl("href");
+            if (!href.isEmpty()) {
+                links.add(href);
             }
+        }
+        return links;
+    }
+
+    private static String imageSource(Element img) {
+        String src = img.absUrl("src");
+        if (src.isEmpty()) src = img.absUrl("data-src");
+        if (src.isEmpty()) src = img.absUrl("data-lazy-src");
+        return src;
+    }
+
+    private static void appendField(StringBuilder sb, String label, String value) {
+        if (value != null) {
+            sb.append(label).append(value).append('\n');
+        }
+    }
 
-            sb.append(key.toUpperCase()).append(":\n");
+    private static void trimTrailing(StringBuilder sb, int start) {
+        int end = sb.length();
+        while (end > start && sb.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        sb.setLength(end);
+    }
+
+    /**
+     * One pass over the body. Elements are collected in document order; the main content root's
+     * subtree is contiguous in that order, so the root's elements are a range of each list.
+     */
+    private static final class PageWalk implements NodeFilter {
+
+        private static final int BLOCKS = 0;
+        private static final int IMAGES = 1;
+        private static final int ANCHORS = 2;
+        private static final int PRODUCTS = 3;
+
+        private final Element body;
+        private final List<Element> blocks = new ArrayList<>();
+        private final List<Element> images = new ArrayList<>();
+        private final List<Element> anchors = new ArrayList<>();
+        private final List<List<Element>> productCandidates = new ArrayList<>();
+        private final int[] rootFrom = new int[PRODUCTS + PRODUCT_SELECTORS.size()];
+        private final int[] rootTo = new int[PRODUCTS + PRODUCT_SELECTORS.size()];
+        private Element root;
+
+        private PageWalk(Element body) {
+            this.body = body;
+            for (int group = 0; group < PRODUCT_SELECTORS.size(); group++) {
+                productCandidates.add(new ArrayList<>());
+            }
+        }
 
-            if (value instanceof List<?> list) {
-                for (Object item : list) {
-                    sb.append("- ").append(item.toString()).append("\n");
+        @Override
+        public FilterResult head(Node node, int depth) {
+            if (!(node instanceof Element el)) {
+                return FilterResult.CONTINUE;
+            }
+
+            String tag = el.tagName();
+            if (NOISE_TAGS.contains(tag) || (tag.equals("button") && "submit".equalsIgnoreCase(el.attr("type").trim()))) {
+                return FilterResult.REMOVE;
+            }
+
+            if (root == null && (tag.equals("main") || tag.equals("article"))) {
+                root = el;
+                markRoot(rootFrom);
+            }
+
+            if (BLOCK_TAGS.contains(tag)) {
+                blocks.add(el);
+            } else if (tag.equals("img")) {
+                images.add(el);
+            } else if (tag.equals("a") && el.hasAttr("href")) {
+                anchors.add(el);
+            }
+
+            for (int group = 0; group < PRODUCT_SELECTORS.size(); group++) {
+                if (PRODUCT_SELECTORS.get(group).matches(body, el)) {
+                    productCandidates.get(group).add(el);
                 }
-            } else {
-                sb.append(value.toString()).append("\n");
             }
 
-            sb.append("\n");
-        });
+            return FilterResult.CONTINUE;
+        }
+
+        @Override
+        public FilterResult tail(Node node, int depth) {
+            if (node == root) {
+                markRoot(rootTo);
+            }
+            return FilterResult.CONTINUE;
+        }
+
+        private void markRoot(int[] marks) {
+            marks[BLOCKS] = blocks.size();
+            marks[IMAGES] = images.size();
+            marks[ANCHORS] = anchors.size();
+            for (int group = 0; group < PRODUCT_SELECTORS.size(); group++) {
+                marks[PRODUCTS + group] = productCandidates.get(group).size();
+            }
+        }
+
+        /**
+         * The part of a collected list inside the main content root.
+         */
+        private List<Element> inRoot(List<Element> collected, int list) {
+            return root == null ? collected : collected.subList(rootFrom[list], rootTo[list]);
+        }
+    }
+
+    private record Product(String name, String price, String description, String image, String imageAlt, String link) {
+    }
 
-        return sb.toString().trim();
+    private record Section(String heading, List<String> content) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,263 @@
+package net.ai.chatbot.service.training;
+
+import lombok.extern.slf4j.Slf4j;
+import net.ai.chatbot.entity.KnowledgeBaseManifestEntry;
+import net.ai.chatbot.enums.KnowledgeBaseType;
+import net.ai.chatbot.service.mongodb.MongodbVectorService;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Per-chatbot manifest of trained sources, used to re-train only what changed.
+ * <p>
+ * A source is skipped when its key is already in the manifest with the same content hash.
+ * Chunks of changed or removed sources are deleted from the knowledge-base collection by
+ * their metadata.sourceId before the manifest entry is replaced or dropped.
+ */
+@Service
+@Slf4j
+public class KnowledgeBaseManifestService {
+
+    public static final String SOURCE_ID_FIELD = "metadata.sourceId";
+
+    private static final String PAGE_KEY_PREFIX = "url:";
+
+    private final MongoTemplate mongoTemplate;
+    private final MongodbVectorService mongodbVectorService;
+
+    public KnowledgeBaseManifestService(MongoTemplate mongoTemplate, MongodbVectorService mongodbVectorService) {
+        this.mongoTemplate = mongoTemplate;
+        this.mongodbVectorService = mongodbVectorService;
+    }
+
+    public static String fileKey(String fileId) {
+        return "file:" + fileId;
+    }
+
+    public static String qaKey(String qaText) {
+        return "qa:" + hash(qaText);
+    }
+
+    public static String textKey(String text) {
+        return "text:" + hash(text);
+    }
+
+    public static String pageKey(String pageUrl) {
+        return PAGE_KEY_PREFIX + pageUrl;
+    }
+
+    /**
+     * The page URL of a {@link #pageKey(String)}.
+     */
+    public static String pageUrl(String pageKey) {
+        return pageKey.substring(PAGE_KEY_PREFIX.length());
+    }
+
+    public static String hash(String content) {
+        return hash(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String hash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Load the manifest of a chatbot, keyed by source key.
+     */
+    public Map<String, KnowledgeBaseManifestEntry> loadManifest(String chatbotId) {
+        List<KnowledgeBaseManifestEntry> entries = mongoTemplate.find(
+                new Query(Criteria.where("chatbotId").is(chatbotId)),
+                KnowledgeBaseManifestEntry.class
+        );
+
+        return entries.stream()
+                .collect(Collectors.toMap(KnowledgeBaseManifestEntry::getSourceKey, Function.identity(), (a, b) -> a));
+    }
+
+    /**
+     * Purge the chunks without a sourceId, left by training before the manifest existed, which
+     * could never be replaced or removed. Call after the first incremental run of a chatbot.
+     * <p>
+     * Chunks submitted through N8N are only tagged if the workflow stores the sourceId (see
+     * N8N_KNOWLEDGEBASE_TRAINING_WORKFLOW.md). Unless a chunk of {@code submittedSourceKeys} is
+     * found tagged, nothing is purged: an untagged chunk could just as well be one submitted by
+     * this run.
+     *
+     * @return number of chunks purged
+     */
+    public long purgeUntaggedChunks(String chatbotId, Collection<String> submittedSourceKeys) {
+        if (submittedSourceKeys.isEmpty()) {
+            return 0;
+        }
+
+        String collectionName = mongodbVectorService.getKnowledgebaseCollectionName(chatbotId);
+
+        if (!mongoTemplate.exists(new Query(Criteria.where(SOURCE_ID_FIELD).in(submittedSourceKeys)), collectionName)) {
+            log.warn("No chunk of chatbot {} carries a sourceId after training, keeping its untagged chunks; "
+                    + "the N8N training workflow must store metadata.sourceId", chatbotId);
+            return 0;
+        }
+
+        long purged = mongoTemplate.remove(new Query(Criteria.where(SOURCE_ID_FIELD).exists(false)), collectionName)
+                .getDeletedCount();
+
+        if (purged > 0) {
+            log.info("Purged {} untagged chunks of chatbot {} after its first incremental training", purged, chatbotId);
+        }
+
+        return purged;
+    }
+
+    /**
+     * Trained sources of a chatbot, without content hashes. Used to plan a task before it is queued.
+     */
+    public List<KnowledgeBaseManifestEntry> findTrainedSources(String chatbotId) {
+        Query query = new Query(Criteria.where("chatbotId").is(chatbotId));
+        query.fields().include("sourceKey", "sourceType", "websiteUrl");
+
+        return mongoTemplate.find(query, KnowledgeBaseManifestEntry.class);
+    }
+
+    public boolean isUnchanged(Map<String, KnowledgeBaseManifestEntry> manifest, String sourceKey, String contentHash) {
+        KnowledgeBaseManifestEntry entry = manifest.get(sourceKey);
+        return entry != null && Objects.equals(entry.getContentHash(), contentHash);
+    }
+
+    /**
+     * Delete the chunks previously embedded for a source recorded in the manifest, before it is
+     * submitted again or dropped.
+     * <p>
+     * Matching no chunk is expected for a source too short to embed, but not when the collection
+     * holds chunks and none of them carries a sourceId: the N8N workflow then does not store it,
+     * and the old chunks stay in the knowledge base next to the new ones.
+     *
+     * @return number of chunks deleted
+     */
+    public long deleteChunks(String chatbotId, String sourceKey) {
+        String collectionName = mongodbVectorService.getKnowledgebaseCollectionName(chatbotId);
+
+        long deleted = mongoTemplate.remove(new Query(Criteria.where(SOURCE_ID_FIELD).is(sourceKey)), collectionName)
+                .getDeletedCount();
+
+        if (deleted == 0
+                && mongoTemplate.exists(new Query(), collectionName)
+                && !mongoTemplate.exists(new Query(Criteria.where(SOURCE_ID_FIELD).exists(true)), collectionName)) {
+            log.error("Deleting the chunks of trained source {} of chatbot {} matched none, and no chunk of the "
+                    + "chatbot carries a sourceId; its old chunks are kept. The N8N training workflow must store "
+                    + "metadata.sourceId (see N8N_KNOWLEDGEBASE_TRAINING_WORKFLOW.md)", sourceKey, chatbotId);
+        }
+
+        return deleted;
+    }
+
+    /**
+     * Record a source as trained. Call only after its content was submitted successfully.
+     */
+    public void record(String chatbotId, String sourceKey, KnowledgeBaseType sourceType,
+                       String contentHash, String websiteUrl) {
+        record(chatbotId, sourceKey, sourceType, contentHash, websiteUrl, null);
+    }
+
+    /**
+     * Record a source as trained, with the SimHash of a crawled page's text for near-duplicate detection.
+     */
+    public void record(String chatbotId, String sourceKey, KnowledgeBaseType sourceType,
+                       String contentHash, String websiteUrl, Long simHash) {
+        mongoTemplate.upsert(
+                new Query(Criteria.where("chatbotId").is(chatbotId).and("sourceKey").is(sourceKey)),
+                new Update()
+                        .set("sourceType", sourceType)
+                        .set("contentHash", contentHash)
+                        .set("websiteUrl", websiteUrl)
+                        .set("simHash", simHash)
+                        .set("updatedAt", new Date()),
+                KnowledgeBaseManifestEntry.class
+        );
+    }
+
+    /**
+     * Drop a source and its chunks, e.g. a page that became a near-duplicate of another.
+     */
+    public void remove(String chatbotId, String sourceKey) {
+        deleteChunks(chatbotId, sourceKey);
+        mongoTemplate.remove(
+                new Query(Criteria.where("chatbotId").is(chatbotId).and("sourceKey").is(sourceKey)),
+                KnowledgeBaseManifestEntry.class
+        );
+    }
+
+    /**
+     * Remove every source that is no longer part of the chatbot: files, QA pairs and texts not in
+     * {@code activeSourceKeys}, and crawled pages whose website is not in {@code activeWebsites}.
+     *
+     * @return number of sources removed
+     */
+    public int removeStaleSources(String chatbotId,
+                                  Map<String, KnowledgeBaseManifestEntry> manifest,
+                                  Set<String> activeSourceKeys,
+                                  Set<String> activeWebsites) {
+        int removed = 0;
+
+        for (KnowledgeBaseManifestEntry entry : manifest.values()) {
+            boolean active = entry.getSourceType() == KnowledgeBaseType.WEBSITE
+                    ? activeWebsites.contains(entry.getWebsiteUrl())
+                    : activeSourceKeys.contains(entry.getSourceKey());
+
+            if (active) continue;
+
+            deleteChunks(chatbotId, entry.getSourceKey());
+            mongoTemplate.remove(new Query(Criteria.where("id").is(entry.getId())), KnowledgeBaseManifestEntry.class);
+            removed++;
+        }
+
+        if (removed > 0) {
+            log.info("Removed {} stale knowledge-base sources of chatbot {}", removed, chatbotId);
+        }
+
+        return removed;
+    }
+
+    /**
+     * Remove the pages of a website that a complete crawl no longer found: every page in the
+     * manifest under {@code websiteUrl} whose key is not in {@code crawledPageKeys}, the pages the
+     * crawl scraped or skipped as unchanged.
+     *
+     * @return number of pages removed
+     */
+    public int removeVanishedPages(String chatbotId,
+                                   Map<String, KnowledgeBaseManifestEntry> manifest,
+                                   String websiteUrl,
+                                   Set<String> crawledPageKeys) {
+        int removed = 0;
+
+        for (KnowledgeBaseManifestEntry entry : manifest.values()) {
+            if (entry.getSourceType() != KnowledgeBaseType.WEBSITE
+                    || !websiteUrl.equals(entry.getWebsiteUrl())
+                    || crawledPageKeys.contains(entry.getSourceKey())) continue;
+
+            deleteChunks(chatbotId, entry.getSourceKey());
+            mongoTemplate.remove(new Query(Criteria.where("id").is(entry.getId())), KnowledgeBaseManifestEntry.class);
+            removed++;
+        }
+
+        if (removed > 0) {
+            log.info("Removed {} pages of {} no longer found on the website for chatbot {}", removed, websiteUrl, chatbotId);
+        }
+
+        return removed;
+    }
+}
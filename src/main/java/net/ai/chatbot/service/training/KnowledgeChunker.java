@@ -0,0 +1,111 @@
+package net.ai.chatbot.service.training;
+
+import net.ai.chatbot.entity.KnowledgeChunk;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits knowledge-base text into token-bounded chunks and groups them into submission batches.
+ * <p>
+ * Chunks come from Spring AI's {@link TokenTextSplitter}, which has no overlap setting, so the
+ * last {@code training.chunking.overlap-words} words of each chunk are carried into the next one
+ * to keep context across chunk boundaries. Batches are capped by chunk count and characters, so
+ * every embedding call is roughly the same size.
+ */
+@Component
+public class KnowledgeChunker {
+
+    private static final int MIN_CHUNK_SIZE_CHARS = 350;
+    private static final int MIN_CHUNK_LENGTH_TO_EMBED = 5;
+    private static final int MAX_NUM_CHUNKS = 10_000;
+
+    private final TokenTextSplitter splitter;
+    private final int overlapWords;
+    private final int batchMaxChunks;
+    private final int batchMaxChars;
+
+    public KnowledgeChunker(@Value("${training.chunking.chunk-tokens:512}") int chunkTokens,
+                            @Value("${training.chunking.overlap-words:40}") int overlapWords,
+                            @Value("${training.chunking.batch-max-chunks:32}") int batchMaxChunks,
+                            @Value("${training.chunking.batch-max-chars:60000}") int batchMaxChars) {
+        this.splitter = new TokenTextSplitter(chunkTokens, MIN_CHUNK_SIZE_CHARS, MIN_CHUNK_LENGTH_TO_EMBED, MAX_NUM_CHUNKS, true);
+        this.overlapWords = overlapWords;
+        this.batchMaxChunks = batchMaxChunks;
+        this.batchMaxChars = batchMaxChars;
+    }
+
+    public List<KnowledgeChunk> chunk(String sourceId, String text) {
+        List<KnowledgeChunk> chunks = new ArrayList<>();
+        if (!StringUtils.hasText(text)) {
+            return chunks;
+        }
+
+        String previousTail = "";
+
+        for (Document document : splitter.apply(List.of(new Document(text)))) {
+            String chunkText = document.getText();
+            if (!StringUtils.hasText(chunkText)) continue;
+
+            String withOverlap = previousTail.isEmpty() ? chunkText : previousTail + " " + chunkText;
+            chunks.add(new KnowledgeChunk(sourceId, chunks.size(), withOverlap));
+
+            previousTail = tail(chunkText);
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Group chunks into batches of at most {@code batch-max-chunks} chunks and {@code batch-max-chars}
+     * characters. A single chunk larger than the character cap gets a batch of its own.
+     */
+    public List<List<KnowledgeChunk>> batch(List<KnowledgeChunk> chunks) {
+        return batch(chunks, batchMaxChunks, batchMaxChars);
+    }
+
+    public List<List<KnowledgeChunk>> batch(List<KnowledgeChunk> chunks, int batchMaxChunks, int batchMaxChars) {
+        List<List<KnowledgeChunk>> batches = new ArrayList<>();
+        List<KnowledgeChunk> current = new ArrayList<>();
+        int currentChars = 0;
+
+        for (KnowledgeChunk chunk : chunks) {
+            int chunkChars = chunk.text().length();
+
+            if (!current.isEmpty()
+                    && (current.size() >= batchMaxChunks || currentChars + chunkChars > batchMaxChars)) {
+                batches.add(current);
+                current = new ArrayList<>();
+                currentChars = 0;
+            }
+
+            current.add(chunk);
+            currentChars += chunkChars;
+        }
+
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+
+        return batches;
+    }
+
+    private String tail(String text) {
+        if (overlapWords <= 0) {
+            return "";
+        }
+
+        String[] words = text.trim().split("\\s+");
+        if (words.length <= overlapWords) {
+            return String.join(" ", words);
+        }
+
+        return String.join(" ", Arrays.copyOfRange(words, words.length - overlapWords, words.length));
+    }
+}
@@ -0,0 +1,105 @@
+package net.ai.chatbot.service.training;
+
+import net.ai.chatbot.entity.KnowledgeBaseManifestEntry;
+import net.ai.chatbot.enums.KnowledgeBaseType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Near-duplicate detection for crawled pages (pagination, tag archives, query-string variants),
+ * on the SimHash of the sanitized page text. A page within {@code crawler.dedupe.simhash-max-distance}
+ * bits of another page of the same website is not embedded.
+ */
+@Component
+public class PageDeduplicator {
+
+    private final boolean enabled;
+    private final int maxDistance;
+
+    public PageDeduplicator(@Value("${crawler.dedupe.enabled:true}") boolean enabled,
+                            @Value("${crawler.dedupe.simhash-max-distance:3}") int maxDistance) {
+        this.enabled = enabled;
+        this.maxDistance = Math.max(0, Math.min(maxDistance, 63));
+    }
+
+    /**
+     * Index for one crawl of a website, seeded with the pages of it that are already embedded, so
+     * those win over duplicates found in this crawl even when they are skipped as unchanged.
+     */
+    public Index newIndex(Map<String, KnowledgeBaseManifestEntry> manifest, String websiteUrl) {
+        Index index = new Index(enabled, maxDistance);
+
+        for (KnowledgeBaseManifestEntry entry : manifest.values()) {
+            if (entry.getSourceType() == KnowledgeBaseType.WEBSITE
+                    && websiteUrl.equals(entry.getWebsiteUrl())
+                    && entry.getSimHash() != null) {
+                index.addIfDistinct(entry.getSourceKey(), entry.getSimHash());
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Thread-safe set of page SimHashes. Hashes are split into maxDistance + 1 bands; two hashes
+     * at most maxDistance bits apart agree on at least one band, so a page is only compared with
+     * pages sharing a band value.
+     */
+    public static class Index {
+
+        private final boolean enabled;
+        private final int maxDistance;
+        private final int bands;
+        private final List<Map<Long, Set<String>>> bandTables = new ArrayList<>();
+        private final Map<String, Long> hashes = new HashMap<>();
+
+        private Index(boolean enabled, int maxDistance) {
+            this.enabled = enabled;
+            this.maxDistance = maxDistance;
+            this.bands = maxDistance + 1;
+
+            for (int band = 0; band < bands; band++) {
+                bandTables.add(new HashMap<>());
+            }
+        }
+
+        /**
+         * Add a page unless another page in the index is a near-duplicate of it. A page added
+         * again under the same key replaces its previous hash.
+         *
+         * @return key of the page this one duplicates, or null if it was added
+         */
+        public synchronized String addIfDistinct(String key, long simHash) {
+            if (!enabled) {
+                return null;
+            }
+
+            for (int band = 0; band < bands; band++) {
+                for (String candidate : bandTables.get(band).getOrDefault(bandValue(simHash, band), Set.of())) {
+                    if (!candidate.equals(key) && SimHash.distance(hashes.get(candidate), simHash) <= maxDistance) {
+                        return candidate;
+                    }
+                }
+            }
+
+            Long previous = hashes.put(key, simHash);
+            for (int band = 0; band < bands; band++) {
+                if (previous != null) {
+                    bandTables.get(band).getOrDefault(bandValue(previous, band), new HashSet<>()).remove(key);
+                }
+                bandTables.get(band).computeIfAbsent(bandValue(simHash, band), value -> new HashSet<>()).add(key);
+            }
+
+            return null;
+        }
+
+        private long bandValue(long simHash, int band) {
+            int from = band * 64 / bands;
+            int to = (band + 1) * 64 / bands;
+            long mask = to - from == 64 ? -1L : (1L << (to - from)) - 1;
+            return (simHash >>> from) & mask;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package net.ai.chatbot.service.training;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Playwright;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Pool of long-lived headless Chromium instances shared by website crawls.
+ * <p>
+ * A crawl leases a whole browser and gets a fresh {@link BrowserContext}, so cookies and storage
+ * never leak between crawls. At most {@code crawler.browser-pool.max-browsers} browsers run on a
+ * node; further crawls wait for a lease. A browser is relaunched after
+ * {@code crawler.browser-pool.recycle-after-pages} pages to bound renderer memory growth, and idle
+ * browsers are checked periodically and closed when disconnected or unused for too long.
+ * <p>
+ * Playwright objects are not thread-safe. Each pooled browser owns its own {@link Playwright}
+ * instance and is only used by the thread holding its lease.
+ */
+@Slf4j
+@Component
+public class PlaywrightBrowserPool {
+
+    private static final List<String> LAUNCH_ARGS = List.of(
+            "--no-sandbox",
+            "--disable-setuid-sandbox",
+            "--disable-blink-features=AutomationControlled",
+            "--disable-dev-shm-usage"
+    );
+
+    private final Semaphore browserPermits;
+    private final int recycleAfterPages;
+    private final long acquireTimeoutMs;
+    private final long idleTimeoutMs;
+
+    // Launched browsers not currently leased, most recently used first
+    private final Deque<PooledBrowser> idleBrowsers = new ArrayDeque<>();
+    private volatile boolean closed;
+
+    public PlaywrightBrowserPool(@Value("${crawler.browser-pool.max-browsers:2}") int maxBrowsers,
+                                 @Value("${crawler.browser-pool.recycle-after-pages:500}") int recycleAfterPages,
+                                 @Value("${crawler.browser-pool.acquire-timeout-ms:600000}") long acquireTimeoutMs,
+                                 @Value("${crawler.browser-pool.idle-timeout-ms:600000}") long idleTimeoutMs) {
+        this.browserPermits = new Semaphore(maxBrowsers, true);
+        this.recycleAfterPages = recycleAfterPages;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    /**
+     * Lease a browser with a new isolated context. Blocks while every browser is leased.
+     */
+    public BrowserLease acquire(Browser.NewContextOptions contextOptions) throws InterruptedException, TimeoutException {
+        if (closed) {
+            throw new IllegalStateException("Browser pool is shut down");
+        }
+
+        if (!browserPermits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+            throw new TimeoutException("No browser available after " + acquireTimeoutMs + " ms");
+        }
+
+        PooledBrowser pooledBrowser = null;
+
+        try {
+            pooledBrowser = takeIdleBrowser();
+            if (pooledBrowser == null) {
+                pooledBrowser = launch();
+            }
+
+            return new BrowserLease(pooledBrowser, pooledBrowser.browser.newContext(contextOptions));
+        } catch (RuntimeException e) {
+            if (pooledBrowser != null) {
+                pooledBrowser.close();
+            }
+            browserPermits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Close idle browsers that lost their connection or have not been used for a while.
+     */
+    @Scheduled(fixedDelayString = "${crawler.browser-pool.health-check-interval-ms:60000}", initialDelay = 60_000)
+    public void checkIdleBrowsers() {
+        List<PooledBrowser> expired = new ArrayList<>();
+        long now = System.currentTimeMillis();
+
+        synchronized (idleBrowsers) {
+            idleBrowsers.removeIf(pooledBrowser -> {
+                boolean unhealthy = !pooledBrowser.browser.isConnected();
+                boolean unused = now - pooledBrowser.lastReleasedAt > idleTimeoutMs;
+
+                if (unhealthy || unused) {
+                    expired.add(pooledBrowser);
+                    return true;
+                }
+                return false;
+            });
+        }
+
+        expired.forEach(PooledBrowser::close);
+
+        if (!expired.isEmpty()) {
+            log.info("Closed {} idle or disconnected browsers", expired.size());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        closed = true;
+
+        synchronized (idleBrowsers) {
+            idleBrowsers.forEach(PooledBrowser::close);
+            idleBrowsers.clear();
+        }
+    }
+
+    private PooledBrowser takeIdleBrowser() {
+        while (true) {
+            PooledBrowser pooledBrowser;
+            synchronized (idleBrowsers) {
+                pooledBrowser = idleBrowsers.pollFirst();
+            }
+
+            if (pooledBrowser == null || pooledBrowser.browser.isConnected()) {
+                return pooledBrowser;
+            }
+
+            log.warn("Discarding disconnected browser");
+            pooledBrowser.close();
+        }
+    }
+
+    private PooledBrowser launch() {
+        long start = System.currentTimeMillis();
+
+        Playwright playwright = Playwright.create();
+        try {
+            Browser browser = playwright.chromium().launch(new BrowserType.LaunchOptions()
+                    .setHeadless(true)
+                    .setArgs(LAUNCH_ARGS));
+
+            log.info("Launched pooled browser in {} ms", System.currentTimeMillis() - start);
+
+            return new PooledBrowser(playwright, browser);
+        } catch (RuntimeException e) {
+            playwright.close();
+            throw e;
+        }
+    }
+
+    private void release(PooledBrowser pooledBrowser) {
+        try {
+            if (closed || !pooledBrowser.browser.isConnected() || pooledBrowser.pagesOpened >= recycleAfterPages) {
+                log.info("Recycling browser after {} pages", pooledBrowser.pagesOpened);
+                pooledBrowser.close();
+                return;
+            }
+
+            pooledBrowser.lastReleasedAt = System.currentTimeMillis();
+
+            synchronized (idleBrowsers) {
+                idleBrowsers.addFirst(pooledBrowser);
+            }
+        } finally {
+            browserPermits.release();
+        }
+    }
+
+    private static class PooledBrowser {
+        private final Playwright playwright;
+        private final Browser browser;
+        private int pagesOpened;
+        private long lastReleasedAt;
+
+        PooledBrowser(Playwright playwright, Browser browser) {
+            this.playwright = playwright;
+            this.browser = browser;
+        }
+
+        void close() {
+            try {
+                browser.close();
+            } catch (Exception e) {
+                log.debug("Error closing browser: {}", e.getMessage());
+            }
+            try {
+                playwright.close();
+            } catch (Exception e) {
+                log.debug("Error closing Playwright: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Exclusive use of one pooled browser through an isolated context. Closing the lease closes
+     * the context and returns the browser to the pool.
+     */
+    public final class BrowserLease implements AutoCloseable {
+
+        private final PooledBrowser pooledBrowser;
+        private final BrowserContext context;
+        private boolean released;
+
+        private BrowserLease(PooledBrowser pooledBrowser, BrowserContext context) {
+            this.pooledBrowser = pooledBrowser;
+            this.context = context;
+        }
+
+        public BrowserContext context() {
+            return context;
+        }
+
+        /**
+         * Open a page in this lease's context; counts towards the browser's recycle limit.
+         */
+        public Page newPage() {
+            pooledBrowser.pagesOpened++;
+            return context.newPage();
+        }
+
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+
+            try {
+                context.close();
+            } catch (Exception e) {
+                log.debug("Error closing browser context: {}", e.getMessage());
+            }
+
+            release(pooledBrowser);
+        }
+    }
+}
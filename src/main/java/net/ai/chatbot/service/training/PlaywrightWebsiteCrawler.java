@@ -2,169 +2,567 @@ package net.ai.chatbot.service.training;
 
 import com.microsoft.playwright.Browser;
 import com.microsoft.playwright.BrowserContext;
-import com.microsoft.playwright.BrowserType;
 import com.microsoft.playwright.Page;
-import com.microsoft.playwright.Playwright;
+import com.microsoft.playwright.Request;
+import com.microsoft.playwright.TimeoutError;
 import com.microsoft.playwright.options.LoadState;
+import com.microsoft.playwright.options.Sizes;
+import com.microsoft.playwright.options.WaitUntilState;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import net.ai.chatbot.entity.CrawlPageState;
 import net.ai.chatbot.entity.ScrappedData;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 @Slf4j
+@Component
 public class PlaywrightWebsiteCrawler {
 
     private static final Pattern EXCLUSIONS = Pattern.compile(".*(\\.(css|js|xml|gif|jpg|png|mp3|mp4|zip|gz|pdf))$");
     private static final int DEFAULT_WAIT_TIMEOUT = 30000; // 30 seconds
     private static final int DEFAULT_NAVIGATION_TIMEOUT = 60000; // 60 seconds
 
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) " +
+            "AppleWebKit/537.36 (KHTML, like Gecko) " +
+            "Chrome/122.0.0.0 Safari/537.36";
+
+    // Records the time of the last DOM mutation from the moment the document is created
+    private static final String MUTATION_TRACKER = """
+            (() => {
+                window.__crawlerLastMutation = Date.now();
+                new MutationObserver(() => window.__crawlerLastMutation = Date.now())
+                    .observe(document, {childList: true, subtree: true, characterData: true});
+            })();
+            """;
+
+    // Analytics, tag managers and ad trackers; subdomains are blocked too
+    private static final String DEFAULT_BLOCKED_HOSTS = "google-analytics.com,googletagmanager.com,doubleclick.net,"
+            + "googlesyndication.com,facebook.net,hotjar.com,clarity.ms,segment.com,segment.io,mixpanel.com,"
+            + "hs-analytics.net,hs-scripts.com,fullstory.com,js-agent.newrelic.com,nr-data.net,amplitude.com,heap.io,"
+            + "analytics.tiktok.com,ads-twitter.com,px.ads.linkedin.com,bat.bing.com";
+
+    private static final String CRAWLER_NAME = "playwright";
+
+    private static final String DOM_STABLE = "quietMs => Date.now() - (window.__crawlerLastMutation || 0) >= quietMs";
+
+    private final PlaywrightBrowserPool browserPool;
+    private final HostPolitenessLimiter politenessLimiter;
+    private final StaticPageFetcher staticPageFetcher;
+    private final CrawlSeedService crawlSeedService;
+    private final CrawlPageStateService pageStateService;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger activeCrawls = new AtomicInteger();
+    private final int pagesInFlight;
+    private final int domQuietMs;
+    private final int domStableTimeoutMs;
+    private final int browserOnlyAfterEscalations;
+    private final boolean resourceBlockingEnabled;
+    private final List<String> blockedResourceTypes;
+    private final List<String> blockedHosts;
+
+    public PlaywrightWebsiteCrawler(PlaywrightBrowserPool browserPool,
+                                    HostPolitenessLimiter politenessLimiter,
+                                    StaticPageFetcher staticPageFetcher,
+                                    CrawlSeedService crawlSeedService,
+                                    CrawlPageStateService pageStateService,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${crawler.pages-in-flight:4}") int pagesInFlight,
+                                    @Value("${crawler.render.dom-quiet-ms:500}") int domQuietMs,
+                                    @Value("${crawler.render.dom-stable-timeout-ms:5000}") int domStableTimeoutMs,
+                                    @Value("${crawler.hybrid.browser-only-after-escalations:3}") int browserOnlyAfterEscalations,
+                                    @Value("${crawler.blocking.enabled:true}") boolean resourceBlockingEnabled,
+                                    @Value("${crawler.blocking.resource-types:image,media,font}") List<String> blockedResourceTypes,
+                                    @Value("${crawler.blocking.hosts:" + DEFAULT_BLOCKED_HOSTS + "}") List<String> blockedHosts) {
+        this.browserPool = browserPool;
+        this.politenessLimiter = politenessLimiter;
+        this.staticPageFetcher = staticPageFetcher;
+        this.crawlSeedService = crawlSeedService;
+        this.pageStateService = pageStateService;
+        this.meterRegistry = meterRegistry;
+        this.pagesInFlight = pagesInFlight;
+        this.domQuietMs = domQuietMs;
+        this.domStableTimeoutMs = domStableTimeoutMs;
+        this.browserOnlyAfterEscalations = browserOnlyAfterEscalations;
+        this.resourceBlockingEnabled = resourceBlockingEnabled;
+        this.blockedResourceTypes = blockedResourceTypes;
+        this.blockedHosts = blockedHosts;
+
+        Gauge.builder("crawler.crawls.active", activeCrawls, AtomicInteger::get)
+                .tag("crawler", CRAWLER_NAME)
+                .register(meterRegistry);
+    }
+
     /**
-     * Crawl a website using Playwright, which can handle React and other JavaScript-rendered websites
+     * Crawl a website using Playwright, which can handle React and other JavaScript-rendered websites.
+     * Runs in an isolated context of a pooled browser. Up to {@code crawler.pages-in-flight} pages
+     * load in parallel, within the host's {@link HostPolitenessLimiter} budget; Playwright is driven
+     * from the calling thread only, the browser loads the pages concurrently.
+     * <p>
+     * Each page is first fetched with a plain HTTP GET ({@link StaticPageFetcher}) and only loaded in
+     * the browser when it looks client-rendered. GETs run off the calling thread and take a place in
+     * the same {@code crawler.pages-in-flight} window as browser pages; an escalated page keeps its place. After {@code crawler.hybrid.browser-only-after-escalations}
+     * consecutive escalations the site is treated as an SPA and the GET is skipped.
+     * <p>
+     * The frontier is seeded with the site's sitemap URLs (most recently modified first) after the
+     * start page, robots.txt disallow rules are applied to every URL and its crawl-delay to the host.
+     * <p>
+     * With a {@link CrawlOptions#getStateScope()}, pages are remembered in crawl_page_state. On the
+     * next crawl, a page the caller already holds ({@link CrawlOptions#getKnownPage()}) is requested
+     * conditionally and skipped on 304, or skipped after fetching when its text hasn't
+     * changed; the links stored for a skipped page are still followed.
+     * <p>
+     * Each crawl is measured in a {@link CrawlerStatistics}, recorded into the {@code crawler.*}
+     * meters and logged as a summary when the crawl ends.
      *
      * @param websiteUrl The base URL to start crawling from
      * @param email Email identifier for storage paths
      * @param maxDepthOfCrawling Maximum depth to crawl
      * @param maxPagesToFetch Maximum number of pages to fetch
      * @param consumer Consumer to process each scraped page
+     * @return true if the crawl reached every page in scope: no page failed and it did not stop at
+     * {@code maxPagesToFetch}. Only then do pages it neither scraped nor skipped as unchanged no longer exist
      */
-    public static void crawl(String websiteUrl,
-                             String email,
-                             int maxDepthOfCrawling,
-                             int maxPagesToFetch,
-                             Consumer<ScrappedData> consumer) throws Exception {
-        
-        Playwright playwright = null;
-        Browser browser = null;
-        
-        try {
-            playwright = Playwright.create();
-
-            BrowserType.LaunchOptions launchOptions = new BrowserType.LaunchOptions()
-                    .setHeadless(true)
-                    .setArgs(java.util.Arrays.asList(
-                            "--no-sandbox",
-                            "--disable-setuid-sandbox",
-                            "--disable-blink-features=AutomationControlled",
-                            "--disable-dev-shm-usage"
-                    ));
-
-            browser = playwright.chromium().launch(launchOptions);
-
-            // Create context with options using the correct API
-            BrowserContext context = browser.newContext(new Browser.NewContextOptions()
-                    .setViewportSize(1920, 1080)
-                    .setUserAgent(
-                            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) " +
-                                    "AppleWebKit/537.36 (KHTML, like Gecko) " +
-                                    "Chrome/122.0.0.0 Safari/537.36"
-                    )
-                    .setLocale("en-US")
-                    .setTimezoneId("Asia/Dhaka")
-                    .setJavaScriptEnabled(true)
-            );
+    public boolean crawl(String websiteUrl,
+                         String email,
+                         int maxDepthOfCrawling,
+                         int maxPagesToFetch,
+                         Consumer<ScrappedData> consumer) throws Exception {
+        return crawl(websiteUrl, email, CrawlOptions.builder()
+                .maxDepth(maxDepthOfCrawling)
+                .maxPages(maxPagesToFetch)
+                .build(), consumer);
+    }
+
+    /**
+     * Crawl a website with explicit options, see {@link #crawl(String, String, int, int, Consumer)}.
+     * Images, media, fonts and known analytics requests are aborted in the browser unless the
+     * resource type is in {@link CrawlOptions#getAllowedResourceTypes()}; pages skipped as
+     * unchanged are reported to {@link CrawlOptions#getUnchangedPage()}.
+     *
+     * @return true if the crawl reached every page in scope
+     */
+    public boolean crawl(String websiteUrl,
+                         String email,
+                         CrawlOptions options,
+                         Consumer<ScrappedData> consumer) throws Exception {
+
+        int maxDepthOfCrawling = options.getMaxDepth();
+        int maxPagesToFetch = options.getMaxPages();
+
+        Browser.NewContextOptions contextOptions = new Browser.NewContextOptions()
+                .setViewportSize(1920, 1080)
+                .setUserAgent(USER_AGENT)
+                .setLocale("en-US")
+                .setTimezoneId("Asia/Dhaka")
+                .setJavaScriptEnabled(true);
+
+        CrawlerStatistics stats = new CrawlerStatistics(CRAWLER_NAME, meterRegistry);
+        activeCrawls.incrementAndGet();
+
+        try (PlaywrightBrowserPool.BrowserLease lease = browserPool.acquire(contextOptions)) {
+            BrowserContext context = lease.context();
 
             context.setDefaultNavigationTimeout(DEFAULT_NAVIGATION_TIMEOUT);
             context.setDefaultTimeout(DEFAULT_WAIT_TIMEOUT);
-
-            Set<String> visitedUrls = new HashSet<>();
-            Set<String> urlsToVisit = new HashSet<>();
-            urlsToVisit.add(websiteUrl);
-            
-            int pagesFetched = 0;
-            int currentDepth = 0;
+            context.addInitScript(MUTATION_TRACKER);
+            blockHeavyResources(context, options);
+            countDownloadedBytes(context, stats);
 
             // Normalize base URL
-            URI baseUri = new URI(websiteUrl);
+            String startUrl = UrlCanonicalizer.canonicalize(websiteUrl);
+            URI baseUri = new URI(startUrl);
             String baseUrl = baseUri.getScheme() + "://" + baseUri.getHost();
             if (baseUri.getPort() != -1) {
                 baseUrl += ":" + baseUri.getPort();
             }
 
-            while (!urlsToVisit.isEmpty() && pagesFetched < maxPagesToFetch && currentDepth <= maxDepthOfCrawling) {
-                Set<String> nextLevelUrls = new HashSet<>();
-                
-                for (String url : urlsToVisit) {
-                    if (visitedUrls.contains(url) || pagesFetched >= maxPagesToFetch) {
-                        continue;
-                    }
+            CrawlSeedService.CrawlSeed seed = crawlSeedService.seed(baseUrl, USER_AGENT, maxPagesToFetch);
+            politenessLimiter.setCrawlDelay(baseUri.getHost(), seed.crawlDelayMs());
 
-                    try {
-                        if (!isValidUrl(url, baseUrl)) {
+            String stateScope = options.getStateScope();
+            Map<String, CrawlPageState> pageStates = pageStateService.load(stateScope, baseUri.getHost());
+
+            // Breadth-first frontier; a URL is marked visited when queued, so it is loaded once
+            Set<String> visitedUrls = new HashSet<>();
+            Deque<FrontierEntry> frontier = new ArrayDeque<>();
+            Deque<InFlightPage> inFlight = new ArrayDeque<>();
+
+            visitedUrls.add(startUrl);
+            frontier.add(new FrontierEntry(startUrl, 0));
+
+            // Sitemap pages count as linked from the start page
+            for (String sitemapUrl : seed.urls()) {
+                String canonicalUrl = UrlCanonicalizer.canonicalize(sitemapUrl);
+                if (visitedUrls.add(canonicalUrl)) {
+                    frontier.add(new FrontierEntry(canonicalUrl, 1));
+                }
+            }
+
+            int pagesFetched = 0;
+            int consecutiveEscalations = 0;
+            boolean browserOnly = !staticPageFetcher.isEnabled();
+
+            try {
+                while (pagesFetched < maxPagesToFetch && (!frontier.isEmpty() || !inFlight.isEmpty())) {
+
+                    // Keep up to pagesInFlight pages loading, over HTTP or in the browser, within the host's budget
+                    long politenessWait = 0;
+                    while (!frontier.isEmpty()
+                            && inFlight.size() < pagesInFlight
+                            && pagesFetched + inFlight.size() < maxPagesToFetch) {
+
+                        FrontierEntry entry = frontier.peekFirst();
+                        if (!isCrawlable(entry.url(), baseUrl)) {
+                            frontier.pollFirst();
+                            stats.pageSkipped(CrawlerStatistics.SkipReason.EXCLUDED);
+                            continue;
+                        }
+                        if (!seed.robots().isAllowed(entry.url())) {
+                            frontier.pollFirst();
+                            stats.pageSkipped(CrawlerStatistics.SkipReason.DISALLOWED);
                             continue;
                         }
 
-                        visitedUrls.add(url);
-                        Page page = context.newPage();
-
-                        try {
-                            log.info("Crawling URL: {}", url);
-                            
-                            // Navigate to the page
-                            page.navigate(url);
-                            
-                            // Wait for page to be fully loaded (crucial for React apps)
-                            // Wait for DOM content to be loaded first
-                            page.waitForLoadState(LoadState.DOMCONTENTLOADED);
-                            
-                            // Then wait for network to be idle (ensures all async requests complete)
-                            page.waitForLoadState(LoadState.NETWORKIDLE);
-                            
-                            // Additional wait for React content to fully render
-                            page.waitForTimeout(1500);
-
-                            // Extract page content
-                            String title = page.title();
-                            String html = page.content();
-                            String text = page.textContent("body");
-
-                            // Extract links for next level crawling
-                            if (currentDepth < maxDepthOfCrawling) {
-                                Set<String> links = extractLinks(page, baseUrl);
-                                for (String link : links) {
-                                    if (!visitedUrls.contains(link) && isValidUrl(link, baseUrl)) {
-                                        nextLevelUrls.add(link);
-                                    }
-                                }
-                            }
+                        String host = URI.create(entry.url()).getHost();
+                        politenessWait = politenessLimiter.tryAcquire(host);
+                        if (politenessWait > 0) {
+                            break;
+                        }
+
+                        frontier.pollFirst();
+
+                        // Only pages the caller still holds may be skipped as unchanged
+                        CrawlPageState previous = options.getKnownPage().test(entry.url()) ? pageStates.get(entry.url()) : null;
+
+                        if (browserOnly) {
+                            startPage(lease, entry, host, previous, stats).ifPresent(inFlight::addLast);
+                        } else {
+                            inFlight.addLast(new InFlightPage(entry, null,
+                                    staticPageFetcher.fetchAsync(entry.url(), USER_AGENT, previous), host, previous, System.nanoTime()));
+                        }
+                    }
+
+                    if (inFlight.isEmpty()) {
+                        if (politenessWait > 0) {
+                            Thread.sleep(politenessWait);
+                        }
+                        continue;
+                    }
+
+                    // Finish the oldest page while the others keep loading
+                    InFlightPage inFlightPage = inFlight.pollFirst();
 
-                            // Process the scraped data
-                            consumer.accept(new ScrappedData(url, title, text != null ? text : "", html));
+                    if (inFlightPage.staticFetch() != null) {
+                        StaticPageFetcher.StaticFetchResult fetched = inFlightPage.staticFetch().join();
+                        stats.bytesDownloaded(CrawlerStatistics.FetchMode.STATIC, fetched.bytes());
+
+                        if (fetched.notModified() || fetched.document() != null) {
+                            politenessLimiter.release(inFlightPage.host());
                             pagesFetched++;
+                            consecutiveEscalations = 0;
 
-                            log.info("Successfully scraped page: {} (Total: {})", url, pagesFetched);
+                            PageOutcome outcome = finishStaticPage(inFlightPage, fetched, baseUrl, maxDepthOfCrawling, visitedUrls, frontier, stateScope, stats, consumer);
+                            if (outcome == PageOutcome.SCRAPED) {
+                                log.info("Successfully scraped static page: {} (Total: {})", inFlightPage.entry().url(), pagesFetched);
+                            } else if (outcome == PageOutcome.UNCHANGED) {
+                                options.getUnchangedPage().accept(inFlightPage.entry().url());
+                            }
+                            continue;
+                        }
 
-                        } catch (Exception e) {
-                            log.warn("Failed to crawl URL: {} - {}", url, e.getMessage());
-                        } finally {
-                            page.close();
+                        if (++consecutiveEscalations >= browserOnlyAfterEscalations && !browserOnly) {
+                            log.info("{} consecutive pages of {} needed a browser, skipping static fetches", consecutiveEscalations, baseUrl);
+                            browserOnly = true;
                         }
 
-                    } catch (URISyntaxException e) {
-                        log.warn("Invalid URL format: {} - {}", url, e.getMessage());
-                    } catch (Exception e) {
-                        log.warn("Error processing URL: {} - {}", url, e.getMessage());
+                        // Keeps its place in the window and its host permit, now loading in the browser
+                        startPage(lease, inFlightPage.entry(), inFlightPage.host(), inFlightPage.previous(), stats).ifPresent(inFlight::addLast);
+                        continue;
+                    }
+
+                    try {
+                        PageOutcome outcome = finishPage(inFlightPage, baseUrl, maxDepthOfCrawling, visitedUrls, frontier, stateScope, stats, consumer);
+
+                        if (outcome != PageOutcome.FAILED) {
+                            pagesFetched++;
+                        }
+                        if (outcome == PageOutcome.SCRAPED) {
+                            log.info("Successfully scraped page: {} (Total: {})", inFlightPage.entry().url(), pagesFetched);
+                        } else if (outcome == PageOutcome.UNCHANGED) {
+                            stats.pageSkipped(CrawlerStatistics.SkipReason.UNCHANGED);
+                            options.getUnchangedPage().accept(inFlightPage.entry().url());
+                        } else if (outcome == PageOutcome.DUPLICATE) {
+                            stats.pageSkipped(CrawlerStatistics.SkipReason.DUPLICATE);
+                        }
+                    } finally {
+                        closePage(inFlightPage);
                     }
                 }
 
-                urlsToVisit = nextLevelUrls;
-                currentDepth++;
+                // Cut short by maxPages, or a page that may still exist could not be loaded
+                return frontier.isEmpty() && inFlight.isEmpty() && !stats.hasFailures();
+            } finally {
+                inFlight.forEach(this::closePage);
             }
+        } finally {
+            activeCrawls.decrementAndGet();
+            log.info("Crawling of {} completed: {}", websiteUrl, stats.finish());
+        }
+    }
+
+    /**
+     * Start loading a page without waiting for it; returns once the navigation is committed.
+     */
+    private Optional<InFlightPage> startPage(PlaywrightBrowserPool.BrowserLease lease,
+                                             FrontierEntry entry,
+                                             String host,
+                                             CrawlPageState previous,
+                                             CrawlerStatistics stats) {
+        Page page = null;
+        long startedAt = System.nanoTime();
 
-            log.info("Crawling completed. Total pages fetched: {}", pagesFetched);
+        try {
+            log.info("Crawling URL: {}", entry.url());
 
-        } finally {
-            if (browser != null) {
-                browser.close();
+            page = lease.newPage();
+            page.navigate(entry.url(), new Page.NavigateOptions().setWaitUntil(WaitUntilState.COMMIT));
+
+            return Optional.of(new InFlightPage(entry, page, null, host, previous, startedAt));
+        } catch (Exception e) {
+            log.warn("Failed to crawl URL: {} - {}", entry.url(), e.getMessage());
+            stats.pageFailed(e);
+            if (page != null) {
+                page.close();
+            }
+            politenessLimiter.release(host);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Queue the links of a statically fetched page and hand it to the consumer, like
+     * {@link #finishPage}; a 304 only queues the links stored for the page.
+     */
+    private PageOutcome finishStaticPage(InFlightPage inFlightPage,
+                                         StaticPageFetcher.StaticFetchResult fetched,
+                                         String baseUrl,
+                                         int maxDepthOfCrawling,
+                                         Set<String> visitedUrls,
+                                         Deque<FrontierEntry> frontier,
+                                         String stateScope,
+                                         CrawlerStatistics stats,
+                                         Consumer<ScrappedData> consumer) {
+        FrontierEntry entry = inFlightPage.entry();
+
+        if (fetched.notModified()) {
+            queueLinks(entry, new HashSet<>(inFlightPage.previous().getLinks()), maxDepthOfCrawling, visitedUrls, frontier);
+            stats.pageSkipped(CrawlerStatistics.SkipReason.NOT_MODIFIED);
+
+            log.debug("Page {} not modified, skipping", entry.url());
+            return PageOutcome.UNCHANGED;
+        }
+
+        Document document = fetched.document();
+        Set<String> links = linksOf(document, baseUrl);
+        queueLinks(entry, links, maxDepthOfCrawling, visitedUrls, frontier);
+        stats.pageFetched(CrawlerStatistics.FetchMode.STATIC, entry.depth(), System.nanoTime() - inFlightPage.startedAt());
+        stats.incrementTotalLinksCount(links.size());
+
+        Element canonicalLink = document.selectFirst("link[rel=canonical]");
+        String canonicalUrl = declaredCanonical(canonicalLink == null ? null : canonicalLink.absUrl("href"), entry.url(), baseUrl);
+        if (canonicalUrl != null && !visitedUrls.add(canonicalUrl)) {
+            stats.pageSkipped(CrawlerStatistics.SkipReason.DUPLICATE);
+            log.debug("Page {} declares already crawled canonical {}, skipping", entry.url(), canonicalUrl);
+            return PageOutcome.DUPLICATE;
+        }
+
+        String text = document.body().text();
+        if (!pageStateService.record(stateScope, inFlightPage.previous(), entry.url(), inFlightPage.host(),
+                fetched.etag(), fetched.lastModified(), text, links, false)) {
+            stats.pageSkipped(CrawlerStatistics.SkipReason.UNCHANGED);
+            log.debug("Page {} text unchanged, skipping", entry.url());
+            return PageOutcome.UNCHANGED;
+        }
+
+        consumer.accept(new ScrappedData(canonicalUrl != null ? canonicalUrl : entry.url(), document.title(), text, document.outerHtml()));
+        return PageOutcome.SCRAPED;
+    }
+
+    /**
+     * Wait for a started page to render, queue its links and hand it to the consumer unless its
+     * text is unchanged since the last crawl or it declares a canonical URL that is already crawled.
+     */
+    private PageOutcome finishPage(InFlightPage inFlightPage,
+                                   String baseUrl,
+                                   int maxDepthOfCrawling,
+                                   Set<String> visitedUrls,
+                                   Deque<FrontierEntry> frontier,
+                                   String stateScope,
+                                   CrawlerStatistics stats,
+                                   Consumer<ScrappedData> consumer) {
+        Page page = inFlightPage.page();
+        String url = inFlightPage.entry().url();
+
+        try {
+            // Wait for DOM content to be loaded first
+            page.waitForLoadState(LoadState.DOMCONTENTLOADED);
+
+            // Then until rendering settles (crucial for React apps)
+            waitForDomStable(page);
+
+            // Extract page content; text as on the static path, so a page's hash doesn't depend on how it was fetched
+            String title = page.title();
+            String html = page.content();
+            String text = Jsoup.parse(html, url).body().text();
+            stats.pageFetched(CrawlerStatistics.FetchMode.BROWSER, inFlightPage.entry().depth(), System.nanoTime() - inFlightPage.startedAt());
+
+            // Extract links for next level crawling
+            Set<String> links = extractLinks(page, baseUrl);
+            queueLinks(inFlightPage.entry(), links, maxDepthOfCrawling, visitedUrls, frontier);
+            stats.incrementTotalLinksCount(links.size());
+
+            Object canonicalHref = page.evaluate("() => document.querySelector('link[rel=canonical]')?.href ?? null");
+            String canonicalUrl = declaredCanonical(canonicalHref == null ? null : canonicalHref.toString(), url, baseUrl);
+            if (canonicalUrl != null && !visitedUrls.add(canonicalUrl)) {
+                log.debug("Page {} declares already crawled canonical {}, skipping", url, canonicalUrl);
+                return PageOutcome.DUPLICATE;
+            }
+
+            if (!pageStateService.record(stateScope, inFlightPage.previous(), url, inFlightPage.host(),
+                    null, null, text, links, true)) {
+                log.debug("Page {} text unchanged, skipping", url);
+                return PageOutcome.UNCHANGED;
             }
-            if (playwright != null) {
-                playwright.close();
+
+            // Process the scraped data
+            consumer.accept(new ScrappedData(canonicalUrl != null ? canonicalUrl : url, title, text, html));
+            return PageOutcome.SCRAPED;
+        } catch (Exception e) {
+            log.warn("Failed to crawl URL: {} - {}", url, e.getMessage());
+            stats.pageFailed(e);
+            return PageOutcome.FAILED;
+        }
+    }
+
+    /**
+     * Abort requests the crawler never reads. Routing disables Chromium's HTTP cache for the
+     * context, which is cheaper than downloading the assets on every page.
+     */
+    private void blockHeavyResources(BrowserContext context, CrawlOptions options) {
+        if (!resourceBlockingEnabled) {
+            return;
+        }
+
+        Set<String> blocked = new HashSet<>(blockedResourceTypes);
+        blocked.removeAll(options.getAllowedResourceTypes());
+
+        context.route("**/*", route -> {
+            Request request = route.request();
+
+            if (blocked.contains(request.resourceType()) || isBlockedHost(request.url())) {
+                route.abort("blockedbyclient");
+            } else {
+                route.resume();
+            }
+        });
+    }
+
+    /**
+     * Count the bytes of every response the browser receives; aborted requests download nothing.
+     */
+    private void countDownloadedBytes(BrowserContext context, CrawlerStatistics stats) {
+        context.onRequestFinished(request -> {
+            try {
+                Sizes sizes = request.sizes();
+                stats.bytesDownloaded(CrawlerStatistics.FetchMode.BROWSER, (long) sizes.responseHeadersSize + sizes.responseBodySize);
+            } catch (Exception e) {
+                log.debug("Could not read response size of {}: {}", request.url(), e.getMessage());
+            }
+        });
+    }
+
+    private boolean isBlockedHost(String url) {
+        String host;
+        try {
+            host = URI.create(url).getHost();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+
+        if (host == null) {
+            return false;
+        }
+
+        host = host.toLowerCase();
+        for (String blockedHost : blockedHosts) {
+            if (host.equals(blockedHost) || host.endsWith("." + blockedHost)) {
+                return true;
             }
         }
+        return false;
+    }
+
+    /**
+     * Wait until the DOM has not changed for {@code crawler.render.dom-quiet-ms}, instead of a fixed
+     * sleep after network idle. Pages that settled while earlier pages were processed pass at once;
+     * pages that never settle (tickers, carousels) are taken as they are after the timeout.
+     */
+    private void waitForDomStable(Page page) {
+        try {
+            page.waitForFunction(DOM_STABLE, domQuietMs,
+                    new Page.WaitForFunctionOptions().setPollingInterval(100).setTimeout(domStableTimeoutMs));
+        } catch (TimeoutError e) {
+            log.debug("DOM of {} still changing after {} ms, extracting anyway", page.url(), domStableTimeoutMs);
+        }
+    }
+
+    private void queueLinks(FrontierEntry entry,
+                            Set<String> links,
+                            int maxDepthOfCrawling,
+                            Set<String> visitedUrls,
+                            Deque<FrontierEntry> frontier) {
+        if (entry.depth() >= maxDepthOfCrawling) {
+            return;
+        }
+
+        for (String link : links) {
+            if (visitedUrls.add(link)) {
+                frontier.addLast(new FrontierEntry(link, entry.depth() + 1));
+            }
+        }
+    }
+
+    private void closePage(InFlightPage inFlightPage) {
+        try {
+            if (inFlightPage.page() != null) {
+                inFlightPage.page().close();
+            } else {
+                inFlightPage.staticFetch().cancel(true);
+            }
+        } catch (Exception e) {
+            log.debug("Error closing page {}: {}", inFlightPage.entry().url(), e.getMessage());
+        } finally {
+            politenessLimiter.release(inFlightPage.host());
+        }
     }
 
     /**
@@ -182,53 +580,91 @@ public class PlaywrightWebsiteCrawler {
                                    .map(a => a.href)
                     """);
 
-            if (!(result instanceof java.util.List<?> hrefList)) {
+            if (!(result instanceof List<?> hrefList)) {
                 log.info("SKipping extract link");
                 return links;
             }
 
-            URI baseUri = new URI(currentPageUrl);
+            links.addAll(filterLinks(hrefList, currentPageUrl));
+        } catch (Exception e) {
+            log.warn("Error extracting links: {}", e.getMessage());
+        }
 
-            for (Object hrefObj : hrefList) {
-                if (hrefObj == null) continue;
+        return links;
+    }
 
-                String href = hrefObj.toString().trim();
+    /**
+     * Links of a statically fetched page, filtered like {@link #extractLinks(Page, String)}.
+     */
+    private static Set<String> linksOf(Document document, String currentPageUrl) {
+        try {
+            return filterLinks(document.select("a[href]").eachAttr("abs:href"), currentPageUrl);
+        } catch (Exception e) {
+            log.warn("Error extracting links: {}", e.getMessage());
+            return Set.of();
+        }
+    }
 
-                // ✅ FIX 1: skip fragment-only
-                if (href.startsWith("#")) continue;
+    /**
+     * Keep same-host links without fragments, excluding static assets.
+     */
+    private static Set<String> filterLinks(List<?> hrefList, String currentPageUrl) throws URISyntaxException {
+        Set<String> links = new HashSet<>();
+        URI baseUri = new URI(currentPageUrl);
 
-                try {
-                    URI resolved = baseUri.resolve(href).normalize();
+        for (Object hrefObj : hrefList) {
+            if (hrefObj == null) continue;
 
-                    String normalizedUrl = resolved.toString();
+            String href = hrefObj.toString().trim();
 
-                    // Remove fragment safely
-                    int hashIndex = normalizedUrl.indexOf('#');
-                    if (hashIndex != -1) {
-                        normalizedUrl = normalizedUrl.substring(0, hashIndex);
-                    }
+            // ✅ FIX 1: skip fragment-only
+            if (href.startsWith("#")) continue;
 
-                    log.info("Trying to extract link from normalizedUrl: {}", normalizedUrl);
+            try {
+                URI resolved = baseUri.resolve(href).normalize();
 
-                    // Same-host constraint
-                    if (resolved.getHost() != null &&
-                            resolved.getHost().equalsIgnoreCase(baseUri.getHost()) &&
-                            !EXCLUSIONS.matcher(normalizedUrl.toLowerCase()).matches()) {
+                // Without fragment and tracking parameters, so variants of a page are queued once
+                String normalizedUrl = UrlCanonicalizer.canonicalize(resolved.toString());
 
-                        links.add(normalizedUrl);
-                    }
+                log.info("Trying to extract link from normalizedUrl: {}", normalizedUrl);
 
-                } catch (IllegalArgumentException ignored) {
-                    log.warn("Error extracting links", ignored);
+                // Same-host constraint
+                if (resolved.getHost() != null &&
+                        resolved.getHost().equalsIgnoreCase(baseUri.getHost()) &&
+                        !EXCLUSIONS.matcher(normalizedUrl.toLowerCase()).matches()) {
+
+                    links.add(normalizedUrl);
                 }
+
+            } catch (IllegalArgumentException ignored) {
+                log.warn("Error extracting links", ignored);
             }
-        } catch (Exception e) {
-            log.warn("Error extracting links: {}", e.getMessage());
         }
 
         return links;
     }
 
+    /**
+     * Canonical form of the page's link rel=canonical, if it is a crawlable URL other than the page's own.
+     */
+    private static String declaredCanonical(String href, String url, String baseUrl) {
+        if (href == null || href.isBlank()) {
+            return null;
+        }
+
+        String canonicalUrl = UrlCanonicalizer.canonicalize(href.trim());
+        return !canonicalUrl.equals(url) && isCrawlable(canonicalUrl, baseUrl) ? canonicalUrl : null;
+    }
+
+    private static boolean isCrawlable(String url, String baseUrl) {
+        try {
+            return isValidUrl(url, baseUrl);
+        } catch (URISyntaxException e) {
+            log.warn("Invalid URL format: {} - {}", url, e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * Check if URL is valid for crawling
      */
@@ -258,5 +694,20 @@ public class PlaywrightWebsiteCrawler {
 
         return true;
     }
-}
 
+    private record FrontierEntry(String url, int depth) {
+    }
+
+    private enum PageOutcome {SCRAPED, UNCHANGED, DUPLICATE, FAILED}
+
+    // Either loading in the browser (page) or fetched over plain HTTP (staticFetch), the other is null.
+    // previous is the page's state from the last crawl, null if it may not be skipped;
+    // startedAt is the System.nanoTime() the navigation or fetch started
+    private record InFlightPage(FrontierEntry entry,
+                                Page page,
+                                CompletableFuture<StaticPageFetcher.StaticFetchResult> staticFetch,
+                                String host,
+                                CrawlPageState previous,
+                                long startedAt) {
+    }
+}
@@ -0,0 +1,230 @@
+package net.ai.chatbot.service.training;
+
+import lombok.extern.slf4j.Slf4j;
+import net.ai.chatbot.entity.CrawlJob;
+import net.ai.chatbot.entity.CrawledPage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static net.ai.chatbot.constants.Constants.CRAWL_JOB_STREAM;
+import static net.ai.chatbot.constants.Constants.CRAWL_RESULT_STREAM_PREFIX;
+
+/**
+ * Website crawls run by crawler workers (the {@code crawler-worker} profile) instead of the node
+ * that trains the chatbot.
+ * <p>
+ * A job is saved in crawl_job and its id added to {@code crawl-job-stream}. The worker writes
+ * STARTED, one PAGE per crawled page (already reduced to semantic text), one UNCHANGED per known page
+ * skipped as unchanged, HEARTBEAT while the crawl runs, and DONE (with whether the crawl reached every
+ * page) or FAILED to {@code crawl-results:<jobId>}, which the training node reads until
+ * the crawl ends. A job nobody starts within {@code crawler.remote.start-timeout-ms}, or that goes
+ * silent for {@code crawler.remote.idle-timeout-ms}, fails the website; the training task's retry
+ * queues a new job.
+ * <p>
+ * The training node deletes the job once its crawl ends or is given up; a TTL index on
+ * {@code createdAt} removes jobs whose training node died first.
+ */
+@Slf4j
+@Service
+public class RemoteCrawlService {
+
+    private static final String TYPE = "type";
+    private static final String STARTED = "STARTED";
+    private static final String PAGE = "PAGE";
+    private static final String UNCHANGED = "UNCHANGED";
+    private static final String HEARTBEAT = "HEARTBEAT";
+    private static final String DONE = "DONE";
+    private static final String FAILED = "FAILED";
+
+    private static final Duration JOB_TTL = Duration.ofDays(7);
+
+    private final MongoTemplate mongoTemplate;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final boolean enabled;
+    private final long startTimeoutMs;
+    private final long idleTimeoutMs;
+    private final Duration resultTtl;
+
+    public RemoteCrawlService(MongoTemplate mongoTemplate,
+                              RedisTemplate<String, String> redisTemplate,
+                              @Value("${crawler.remote.enabled:false}") boolean enabled,
+                              @Value("${crawler.remote.start-timeout-ms:3600000}") long startTimeoutMs,
+                              @Value("${crawler.remote.idle-timeout-ms:120000}") long idleTimeoutMs,
+                              @Value("${crawler.remote.result-ttl-ms:86400000}") long resultTtlMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.startTimeoutMs = startTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.resultTtl = Duration.ofMillis(resultTtlMs);
+    }
+
+    /**
+     * Annotation indexes aren't created automatically, so the crawl_job TTL index is created here.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureJobTtlIndex() {
+        try {
+            mongoTemplate.indexOps(CrawlJob.class)
+                    .ensureIndex(new Index().on("createdAt", Sort.Direction.ASC).expire(JOB_TTL));
+        } catch (Exception e) {
+            log.warn("Could not create the crawl_job TTL index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * True if this node hands crawls to the crawler workers.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue a crawl and hand its pages to the consumer, and the URLs of known pages skipped as
+     * unchanged to {@code unchangedPage}, as they arrive, on the calling thread. Returns once the
+     * worker reports the crawl done.
+     *
+     * @return true if the crawl reached every page in scope, see {@link PlaywrightWebsiteCrawler#crawl}
+     * @throws IllegalStateException if the crawl failed, was never started or went silent
+     */
+    public boolean crawl(CrawlJob job, Consumer<CrawledPage> consumer, Consumer<String> unchangedPage) throws InterruptedException {
+        job.setCreatedAt(new Date());
+        CrawlJob saved = mongoTemplate.save(job);
+        String resultStream = CRAWL_RESULT_STREAM_PREFIX + saved.getId();
+
+        redisTemplate.opsForStream().add(StreamRecords.newRecord()
+                .ofObject(saved.getId())
+                .withStreamKey(CRAWL_JOB_STREAM));
+        log.info("Queued remote crawl {} of {}", saved.getId(), saved.getWebsiteUrl());
+
+        try {
+            return readResults(saved, resultStream, consumer, unchangedPage);
+        } finally {
+            redisTemplate.delete(resultStream);
+            // A worker that picks the job up after this skips it
+            mongoTemplate.remove(new Query(Criteria.where("_id").is(saved.getId())), CrawlJob.class);
+        }
+    }
+
+    private boolean readResults(CrawlJob job,
+                                String resultStream,
+                                Consumer<CrawledPage> consumer,
+                                Consumer<String> unchangedPage) throws InterruptedException {
+        String lastId = "0-0";
+        boolean started = false;
+        long lastHeardAt = System.currentTimeMillis();
+
+        while (true) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException("Interrupted waiting for remote crawl " + job.getId());
+            }
+
+            List<MapRecord<String, String, String>> records = redisTemplate.<String, String>opsForStream().read(
+                    StreamReadOptions.empty().count(100).block(Duration.ofSeconds(5)),
+                    StreamOffset.create(resultStream, ReadOffset.from(lastId))
+            );
+
+            if (records == null || records.isEmpty()) {
+                long silentMs = System.currentTimeMillis() - lastHeardAt;
+                if (silentMs > (started ? idleTimeoutMs : startTimeoutMs)) {
+                    throw new IllegalStateException("Remote crawl " + job.getId() + " of " + job.getWebsiteUrl()
+                            + (started ? " went silent" : " was not picked up by a crawler worker"));
+                }
+                continue;
+            }
+
+            lastHeardAt = System.currentTimeMillis();
+
+            for (MapRecord<String, String, String> record : records) {
+                lastId = record.getId().getValue();
+                Map<String, String> fields = record.getValue();
+
+                switch (fields.getOrDefault(TYPE, "")) {
+                    case STARTED -> {
+                        started = true;
+                        log.info("Remote crawl {} started on {}", job.getId(), fields.get("worker"));
+                    }
+                    case PAGE -> consumer.accept(new CrawledPage(fields.get("url"), fields.get("title"), fields.get("text")));
+                    case UNCHANGED -> unchangedPage.accept(fields.get("url"));
+                    case DONE -> {
+                        log.info("Remote crawl {} of {} done, {} pages", job.getId(), job.getWebsiteUrl(), fields.get("pages"));
+                        // Workers that don't report it are taken as incomplete
+                        return Boolean.parseBoolean(fields.get("complete"));
+                    }
+                    case FAILED -> throw new IllegalStateException("Remote crawl " + job.getId() + " of "
+                            + job.getWebsiteUrl() + " failed: " + fields.get("error"));
+                    default -> {
+                        // HEARTBEAT only keeps the crawl alive
+                    }
+                }
+            }
+        }
+    }
+
+    public CrawlJob findJob(String jobId) {
+        return mongoTemplate.findById(jobId, CrawlJob.class);
+    }
+
+    public void publishStarted(CrawlJob job, String workerId) {
+        job.setWorkerId(workerId);
+        job.setStartedAt(new Date());
+        // An update, not a save, so a job already deleted by its training node isn't re-created
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(job.getId())),
+                new Update().set("workerId", workerId).set("startedAt", job.getStartedAt()),
+                CrawlJob.class);
+
+        publish(job.getId(), Map.of(TYPE, STARTED, "worker", workerId));
+    }
+
+    public void publishPage(String jobId, CrawledPage page) {
+        publish(jobId, Map.of(
+                TYPE, PAGE,
+                "url", page.url(),
+                "title", page.title() == null ? "" : page.title(),
+                "text", page.semanticText()
+        ));
+    }
+
+    public void publishUnchanged(String jobId, String url) {
+        publish(jobId, Map.of(TYPE, UNCHANGED, "url", url));
+    }
+
+    public void publishHeartbeat(String jobId) {
+        publish(jobId, Map.of(TYPE, HEARTBEAT));
+    }
+
+    public void publishDone(String jobId, int pages, boolean complete) {
+        publish(jobId, Map.of(TYPE, DONE, "pages", String.valueOf(pages), "complete", String.valueOf(complete)));
+    }
+
+    public void publishFailed(String jobId, String error) {
+        publish(jobId, Map.of(TYPE, FAILED, "error", error == null ? "unknown error" : error));
+    }
+
+    // The stream expires if the training node is gone and never deletes it
+    private void publish(String jobId, Map<String, String> fields) {
+        String resultStream = CRAWL_RESULT_STREAM_PREFIX + jobId;
+        redisTemplate.opsForStream().add(StreamRecords.newRecord().in(resultStream).ofMap(fields));
+        redisTemplate.expire(resultStream, resultTtl);
+    }
+}
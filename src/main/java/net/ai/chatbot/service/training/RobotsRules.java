@@ -0,0 +1,183 @@
+package net.ai.chatbot.service.training;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Allow/Disallow rules of one robots.txt group. The longest matching rule wins and Allow wins a
+ * tie, as in RFC 9309; {@code *} and a trailing {@code $} are supported.
+ */
+public class RobotsRules {
+
+    public static final RobotsRules ALLOW_ALL = new RobotsRules(List.of());
+
+    private final List<Rule> rules;
+
+    private RobotsRules(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * Rules of the group for {@code userAgent}, or of the {@code *} group if there is none.
+     */
+    public static RobotsRules parse(String robotsTxt, String userAgent) {
+        List<Rule> specificRules = new ArrayList<>();
+        List<Rule> wildcardRules = new ArrayList<>();
+        boolean specificGroupFound = false;
+
+        List<String> groupAgents = new ArrayList<>();
+        boolean inRules = false;
+
+        for (String rawLine : robotsTxt.split("\\r?\\n")) {
+            String line = stripComment(rawLine);
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+
+            String field = line.substring(0, colon).trim().toLowerCase();
+            String value = line.substring(colon + 1).trim();
+
+            if (field.equals("user-agent")) {
+                // A user-agent line after rules starts a new group
+                if (inRules) {
+                    groupAgents.clear();
+                    inRules = false;
+                }
+                groupAgents.add(value.toLowerCase());
+                continue;
+            }
+
+            if (!field.equals("allow") && !field.equals("disallow")) {
+                continue;
+            }
+
+            inRules = true;
+
+            // An empty Disallow allows everything
+            if (value.isEmpty()) {
+                continue;
+            }
+
+            Rule rule = new Rule(field.equals("allow"), value);
+
+            for (String agent : groupAgents) {
+                if (agent.equals("*")) {
+                    wildcardRules.add(rule);
+                } else if (userAgent.toLowerCase().contains(agent)) {
+                    specificRules.add(rule);
+                    specificGroupFound = true;
+                }
+            }
+        }
+
+        return new RobotsRules(specificGroupFound ? specificRules : wildcardRules);
+    }
+
+    /**
+     * Crawl-delay of the {@code *} group in milliseconds, 0 if not set.
+     */
+    public static long parseCrawlDelayMs(String robotsTxt) {
+        boolean inWildcardGroup = false;
+        boolean inRules = false;
+
+        for (String rawLine : robotsTxt.split("\\r?\\n")) {
+            String line = stripComment(rawLine);
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+
+            String field = line.substring(0, colon).trim().toLowerCase();
+            String value = line.substring(colon + 1).trim();
+
+            if (field.equals("user-agent")) {
+                if (inRules) {
+                    inWildcardGroup = false;
+                    inRules = false;
+                }
+                inWildcardGroup |= value.equals("*");
+            } else {
+                inRules = true;
+
+                if (inWildcardGroup && field.equals("crawl-delay")) {
+                    try {
+                        return (long) (Double.parseDouble(value) * 1000);
+                    } catch (NumberFormatException e) {
+                        return 0;
+                    }
+                }
+            }
+        }
+
+        return 0;
+    }
+
+    public boolean isAllowed(String url) {
+        if (rules.isEmpty()) {
+            return true;
+        }
+
+        String path;
+        try {
+            URI uri = URI.create(url);
+            path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+            if (uri.getRawQuery() != null) {
+                path += "?" + uri.getRawQuery();
+            }
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+
+        Rule match = null;
+        for (Rule rule : rules) {
+            if (rule.matches(path) && (match == null
+                    || rule.length() > match.length()
+                    || (rule.length() == match.length() && rule.allow()))) {
+                match = rule;
+            }
+        }
+
+        return match == null || match.allow();
+    }
+
+    private static String stripComment(String line) {
+        int hash = line.indexOf('#');
+        return hash >= 0 ? line.substring(0, hash) : line;
+    }
+
+    private record Rule(boolean allow, String value, Pattern pattern) {
+
+        Rule(boolean allow, String value) {
+            this(allow, value, toPattern(value));
+        }
+
+        boolean matches(String path) {
+            return pattern.matcher(path).lookingAt();
+        }
+
+        int length() {
+            return value.length();
+        }
+
+        private static Pattern toPattern(String value) {
+            boolean anchored = value.endsWith("$");
+            String body = anchored ? value.substring(0, value.length() - 1) : value;
+
+            StringBuilder regex = new StringBuilder();
+            for (String part : body.split("\\*", -1)) {
+                if (!regex.isEmpty()) {
+                    regex.append(".*");
+                }
+                regex.append(Pattern.quote(part));
+            }
+            if (anchored) {
+                regex.append("$");
+            }
+
+            return Pattern.compile(regex.toString());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package net.ai.chatbot.service.training;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * 64-bit SimHash of text over two-word shingles. Texts that differ in a few words (dates,
+ * counters, tokens) have hashes a few bits apart, unlike a content hash.
+ */
+public final class SimHash {
+
+    private SimHash() {
+    }
+
+    public static long of(String text) {
+        String[] words = text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+");
+        int[] weights = new int[64];
+        String previous = null;
+        boolean anyFeature = false;
+
+        for (String word : words) {
+            if (word.isEmpty()) {
+                continue;
+            }
+
+            String shingle = previous == null ? word : previous + " " + word;
+            previous = word;
+            anyFeature = true;
+
+            long featureHash = hash(shingle);
+            for (int bit = 0; bit < 64; bit++) {
+                weights[bit] += ((featureHash >>> bit) & 1) == 1 ? 1 : -1;
+            }
+        }
+
+        if (!anyFeature) {
+            return 0;
+        }
+
+        long simHash = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) {
+                simHash |= 1L << bit;
+            }
+        }
+        return simHash;
+    }
+
+    /**
+     * Number of differing bits.
+     */
+    public static int distance(long first, long second) {
+        return Long.bitCount(first ^ second);
+    }
+
+    // FNV-1a followed by the SplitMix64 finaliser, so every output bit depends on the whole shingle
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+}
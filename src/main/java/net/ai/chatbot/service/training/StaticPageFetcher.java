@@ -0,0 +1,168 @@
+package net.ai.chatbot.service.training;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.ai.chatbot.entity.CrawlPageState;
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Plain HTTP fetch and Jsoup parse of a page, used before falling back to a browser.
+ * <p>
+ * A page is accepted only when it looks server-rendered: an HTML 2xx response whose body holds at
+ * least {@code crawler.hybrid.min-text-chars} characters of text, and no SPA root element
+ * ({@code #root}, {@code #app}, {@code #__next}, ...) that is still empty. Anything else (errors,
+ * bot challenges, client-rendered shells) is left to the crawler to load in Playwright.
+ * <p>
+ * {@link #fetchAsync} runs fetches on a pool of {@code crawler.hybrid.fetch-threads} shared by all
+ * crawls on the node, so the crawl loop keeps driving the browser while pages download.
+ */
+@Slf4j
+@Component
+public class StaticPageFetcher {
+
+    private static final List<String> SPA_ROOT_SELECTORS = List.of(
+            "#root", "#app", "#__next", "#__nuxt", "#___gatsby", "[data-reactroot]", "[ng-version]", "app-root"
+    );
+
+    private static final Set<String> HTML_CONTENT_TYPES = Set.of("text/html", "application/xhtml+xml");
+
+    private final boolean enabled;
+    private final int minTextChars;
+    private final int timeoutMs;
+    private final int maxBodyBytes;
+    private final ExecutorService fetchExecutor;
+
+    public StaticPageFetcher(@Value("${crawler.hybrid.enabled:true}") boolean enabled,
+                             @Value("${crawler.hybrid.min-text-chars:200}") int minTextChars,
+                             @Value("${crawler.hybrid.timeout-ms:15000}") int timeoutMs,
+                             @Value("${crawler.hybrid.max-body-bytes:5242880}") int maxBodyBytes,
+                             @Value("${crawler.hybrid.fetch-threads:16}") int fetchThreads) {
+        this.enabled = enabled;
+        this.minTextChars = minTextChars;
+        this.timeoutMs = timeoutMs;
+        this.maxBodyBytes = maxBodyBytes;
+        this.fetchExecutor = Executors.newFixedThreadPool(fetchThreads, new CustomizableThreadFactory("crawler-static-fetch-"));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * {@link #fetch} on the fetch pool. The future never completes exceptionally: a failed fetch
+     * completes with a result that needs the browser.
+     */
+    public CompletableFuture<StaticFetchResult> fetchAsync(String url, String userAgent, CrawlPageState previous) {
+        return CompletableFuture.supplyAsync(() -> fetch(url, userAgent, previous), fetchExecutor);
+    }
+
+    /**
+     * Fetch a page, conditionally if {@code previous} holds validators of a server-rendered page.
+     */
+    public StaticFetchResult fetch(String url, String userAgent, CrawlPageState previous) {
+        try {
+            Connection connection = Jsoup.connect(url)
+                    .userAgent(userAgent)
+                    .timeout(timeoutMs)
+                    .maxBodySize(maxBodyBytes)
+                    .followRedirects(true)
+                    .ignoreHttpErrors(true);
+
+            if (previous != null && !previous.isRendered()) {
+                if (previous.getEtag() != null) {
+                    connection.header("If-None-Match", previous.getEtag());
+                }
+                if (previous.getLastModified() != null) {
+                    connection.header("If-Modified-Since", previous.getLastModified());
+                }
+            }
+
+            Connection.Response response = connection.execute();
+
+            if (response.statusCode() == 304) {
+                return StaticFetchResult.NOT_MODIFIED;
+            }
+
+            if (response.statusCode() < 200 || response.statusCode() >= 300 || !isHtml(response.contentType())) {
+                log.debug("Static fetch of {} returned {} {}, using browser", url, response.statusCode(), response.contentType());
+                return StaticFetchResult.NEEDS_BROWSER;
+            }
+
+            // Buffers the body, which parse() then reads
+            int bytes = response.bodyAsBytes().length;
+            Document document = response.parse();
+
+            if (looksClientRendered(document)) {
+                log.debug("Page {} looks client-rendered, using browser", url);
+                return new StaticFetchResult(false, null, null, null, bytes);
+            }
+
+            return new StaticFetchResult(false, document, response.header("ETag"), response.header("Last-Modified"), bytes);
+        } catch (Exception e) {
+            log.debug("Static fetch of {} failed, using browser: {}", url, e.getMessage());
+            return StaticFetchResult.NEEDS_BROWSER;
+        }
+    }
+
+    private boolean looksClientRendered(Document document) {
+        if (visibleTextLength(document.body()) < minTextChars) {
+            return true;
+        }
+
+        for (String selector : SPA_ROOT_SELECTORS) {
+            Element root = document.selectFirst(selector);
+            if (root != null && visibleTextLength(root) < minTextChars) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private int visibleTextLength(Element element) {
+        if (element == null) {
+            return 0;
+        }
+
+        Element copy = element.clone();
+        copy.select("script, style, noscript, template").remove();
+        return copy.text().length();
+    }
+
+    /**
+     * @param notModified true if the server answered 304 to a conditional request
+     * @param document    the parsed page, null if it has to be rendered in a browser
+     * @param bytes       size of the body downloaded, 0 if none was read
+     */
+    public record StaticFetchResult(boolean notModified, Document document, String etag, String lastModified, long bytes) {
+
+        static final StaticFetchResult NOT_MODIFIED = new StaticFetchResult(true, null, null, null, 0);
+        static final StaticFetchResult NEEDS_BROWSER = new StaticFetchResult(false, null, null, null, 0);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fetchExecutor.shutdownNow();
+    }
+
+    private boolean isHtml(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+
+        String mimeType = contentType.split(";")[0].trim().toLowerCase();
+        return HTML_CONTENT_TYPES.contains(mimeType);
+    }
+}
@@ -0,0 +1,119 @@
+package net.ai.chatbot.service.training;
+
+import lombok.extern.slf4j.Slf4j;
+import net.ai.chatbot.entity.ChatBotTask;
+import net.ai.chatbot.entity.KnowledgeBaseManifestEntry;
+import net.ai.chatbot.enums.KnowledgeBaseType;
+import net.ai.chatbot.enums.TrainingLane;
+import net.ai.chatbot.enums.TrainingScope;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static net.ai.chatbot.service.training.KnowledgeBaseManifestService.fileKey;
+
+/**
+ * Decides which training lane a task goes to, based on what it adds over the current manifest.
+ * <p>
+ * A task that adds no website and at most {@code training.lanes.interactive-max-new-files} files
+ * is interactive. If it still lists websites and no website crawl of the chatbot was queued in the
+ * last {@code training.lanes.website-recrawl-interval-ms}, their re-crawl is split off into a
+ * background WEBSITES task, so the edit itself doesn't wait for a crawl. A burst of edits queues
+ * one re-crawl, not one per edit. Anything else is a background task.
+ */
+@Component
+@Slf4j
+public class TrainingLanePlanner {
+
+    private final KnowledgeBaseManifestService manifestService;
+    private final MongoTemplate mongoTemplate;
+    private final int interactiveMaxNewFiles;
+    private final long websiteRecrawlIntervalMs;
+
+    public TrainingLanePlanner(KnowledgeBaseManifestService manifestService,
+                               MongoTemplate mongoTemplate,
+                               @Value("${training.lanes.interactive-max-new-files:2}") int interactiveMaxNewFiles,
+                               @Value("${training.lanes.website-recrawl-interval-ms:86400000}") long websiteRecrawlIntervalMs) {
+        this.manifestService = manifestService;
+        this.mongoTemplate = mongoTemplate;
+        this.interactiveMaxNewFiles = interactiveMaxNewFiles;
+        this.websiteRecrawlIntervalMs = websiteRecrawlIntervalMs;
+    }
+
+    /**
+     * @return one task, or an interactive CONTENT task followed by its background WEBSITES companion.
+     * The companion's parentTaskId is left to the caller, as the first task has no id yet
+     */
+    public List<ChatBotTask> plan(ChatBotTask task) {
+        List<KnowledgeBaseManifestEntry> trainedSources = manifestService.findTrainedSources(task.getChatbotId());
+
+        Set<String> trainedKeys = trainedSources.stream()
+                .map(KnowledgeBaseManifestEntry::getSourceKey)
+                .collect(Collectors.toSet());
+
+        Set<String> trainedWebsites = trainedSources.stream()
+                .filter(entry -> entry.getSourceType() == KnowledgeBaseType.WEBSITE)
+                .map(KnowledgeBaseManifestEntry::getWebsiteUrl)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        List<String> websites = task.getAddedWebsites() == null ? List.of() : task.getAddedWebsites();
+        List<String> fileIds = task.getFileIds() == null ? List.of() : task.getFileIds();
+
+        boolean addsWebsites = websites.stream().anyMatch(website -> !trainedWebsites.contains(website));
+        long newFiles = fileIds.stream().filter(fileId -> !trainedKeys.contains(fileKey(fileId))).count();
+
+        if (addsWebsites || newFiles > interactiveMaxNewFiles) {
+            task.setLane(TrainingLane.BACKGROUND);
+            task.setScope(TrainingScope.ALL);
+            return List.of(task);
+        }
+
+        task.setLane(TrainingLane.INTERACTIVE);
+
+        if (websites.isEmpty()) {
+            task.setScope(TrainingScope.ALL);
+            return List.of(task);
+        }
+
+        // The websites' pages are kept either way; a CONTENT task doesn't remove them
+        task.setScope(TrainingScope.CONTENT);
+
+        if (!isWebsiteRecrawlDue(task.getChatbotId())) {
+            return List.of(task);
+        }
+
+        ChatBotTask websiteRefresh = ChatBotTask.builder()
+                .chatbotId(task.getChatbotId())
+                .addedWebsites(websites)
+                .lane(TrainingLane.BACKGROUND)
+                .scope(TrainingScope.WEBSITES)
+                .build();
+
+        return List.of(task, websiteRefresh);
+    }
+
+    /**
+     * False while a task crawling the chatbot's websites was queued within the re-crawl interval,
+     * whether it is still pending or already done. Tasks queued before createdAt existed don't count.
+     */
+    private boolean isWebsiteRecrawlDue(String chatbotId) {
+        Date recrawlAfter = new Date(System.currentTimeMillis() - websiteRecrawlIntervalMs);
+
+        return !mongoTemplate.exists(
+                new Query(Criteria.where("chatbotId").is(chatbotId)
+                        .and("scope").ne(TrainingScope.CONTENT)
+                        .and("addedWebsites.0").exists(true)
+                        .and("createdAt").gte(recrawlAfter)),
+                ChatBotTask.class
+        );
+    }
+}
@@ -0,0 +1,306 @@
+package net.ai.chatbot.service.training;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.ai.chatbot.entity.ChatBot;
+import net.ai.chatbot.entity.TrainingProgress;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Checkpoints training progress per task and mirrors the outcome on the chatbot.
+ * <p>
+ * Counters are updated with atomic $inc/$addToSet, because sources of one task finish on
+ * several pipeline threads at once. ChatBot.status only follows training while the owner has
+ * not set it to ACTIVE or DISABLED, so training never re-enables a disabled widget.
+ * <p>
+ * A website task split off an interactive edit shares the chatbot's training with its parent
+ * task: the chatbot is only set COMPLETED once neither of them is still training.
+ */
+@Service
+@Slf4j
+public class TrainingProgressService {
+
+    public static final String TRAINING = "TRAINING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    private static final long SSE_TIMEOUT_MS = 30 * 60 * 1000L;
+    private static final long SSE_POLL_INTERVAL_MS = 1000L;
+
+    private final MongoTemplate mongoTemplate;
+    private final ScheduledExecutorService ssePoller =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("training-progress-sse-"));
+    // Sends block while a client's socket is full; a client has at most one send in flight
+    private final ExecutorService sseSender =
+            Executors.newCachedThreadPool(new CustomizableThreadFactory("training-progress-sse-send-"));
+
+    public TrainingProgressService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Open (or re-open, on re-delivery) the checkpoint of a task.
+     */
+    public TrainingProgress start(String taskId, String chatbotId) {
+        Date now = new Date();
+
+        TrainingProgress progress = mongoTemplate.findAndModify(
+                byId(taskId),
+                new Update()
+                        .setOnInsert("chatbotId", chatbotId)
+                        .setOnInsert("startedAt", now)
+                        .set("status", TRAINING)
+                        .set("sourcesFailed", 0)
+                        .set("updatedAt", now)
+                        .unset("finishedAt")
+                        .inc("attempts", 1),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                TrainingProgress.class
+        );
+
+        updateChatbotStatus(chatbotId, TRAINING);
+
+        return progress;
+    }
+
+    /**
+     * Open the checkpoint of a task split off {@code parentTaskId} when it is queued, so the
+     * parent doesn't report the chatbot trained while this task waits for a worker.
+     */
+    public void queue(String taskId, String chatbotId, String parentTaskId) {
+        Date now = new Date();
+
+        mongoTemplate.upsert(
+                byId(taskId),
+                new Update()
+                        .setOnInsert("chatbotId", chatbotId)
+                        .setOnInsert("parentTaskId", parentTaskId)
+                        .setOnInsert("startedAt", now)
+                        .setOnInsert("status", TRAINING)
+                        .set("updatedAt", now),
+                TrainingProgress.class
+        );
+    }
+
+    public TrainingProgress getProgress(String taskId) {
+        return mongoTemplate.findOne(byId(taskId), TrainingProgress.class);
+    }
+
+    /**
+     * Latest running training of a chatbot, else its latest training, or null if it was never trained.
+     */
+    public TrainingProgress getLatestProgress(String chatbotId) {
+        TrainingProgress running = mongoTemplate.findOne(
+                new Query(Criteria.where("chatbotId").is(chatbotId).and("status").is(TRAINING))
+                        .with(Sort.by(Sort.Direction.DESC, "startedAt"))
+                        .limit(1),
+                TrainingProgress.class
+        );
+
+        if (running != null) {
+            return running;
+        }
+
+        return mongoTemplate.findOne(
+                new Query(Criteria.where("chatbotId").is(chatbotId))
+                        .with(Sort.by(Sort.Direction.DESC, "startedAt"))
+                        .limit(1),
+                TrainingProgress.class
+        );
+    }
+
+    /**
+     * @param sourcesTotal all sources of the task
+     * @param sourcesDone  sources already up to date when this attempt started
+     */
+    public void setSources(String taskId, int sourcesTotal, int sourcesDone) {
+        update(taskId, new Update()
+                .set("sourcesTotal", sourcesTotal)
+                .set("sourcesDone", sourcesDone));
+    }
+
+    public void sourceDone(String taskId) {
+        update(taskId, new Update().inc("sourcesDone", 1));
+    }
+
+    public void sourceFailed(String taskId, String error) {
+        update(taskId, new Update()
+                .inc("sourcesFailed", 1)
+                .set("lastError", error));
+    }
+
+    public void websiteDone(String taskId, String websiteUrl) {
+        update(taskId, new Update()
+                .addToSet("completedWebsites", websiteUrl)
+                .inc("sourcesDone", 1));
+    }
+
+    public void pageCrawled(String taskId) {
+        update(taskId, new Update().inc("pagesCrawled", 1));
+    }
+
+    public void chunksEmbedded(String taskId, int chunks) {
+        update(taskId, new Update().inc("chunksEmbedded", chunks));
+    }
+
+    public void complete(String taskId, String chatbotId) {
+        finish(taskId, chatbotId, COMPLETED, null);
+    }
+
+    /**
+     * Mark a task failed for good, e.g. once it was dead-lettered.
+     */
+    public void fail(String taskId, String error) {
+        TrainingProgress progress = getProgress(taskId);
+        finish(taskId, progress != null ? progress.getChatbotId() : null, FAILED, error);
+    }
+
+    /**
+     * Stream the latest training progress of a chatbot until it completes or fails, or send a
+     * single "none" event if it was never trained. Progress is re-read once per second and only
+     * sent when it changed.
+     * <p>
+     * The poller thread shared by all streams only reads; sends run on {@code sseSender}. While a
+     * slow client's send is in flight its polls are skipped, so it gets the latest progress once
+     * it caught up and never holds up the other streams.
+     */
+    public SseEmitter streamProgress(String chatbotId) {
+        SseEmitter emitter = new SseEmitter(SSE_TIMEOUT_MS);
+        AtomicReference<Date> lastSent = new AtomicReference<>();
+        AtomicBoolean sending = new AtomicBoolean();
+        AtomicReference<ScheduledFuture<?>> poll = new AtomicReference<>();
+
+        poll.set(ssePoller.scheduleWithFixedDelay(() -> {
+            if (sending.get()) return;
+
+            try {
+                TrainingProgress progress = getLatestProgress(chatbotId);
+                boolean finished = progress == null || !TRAINING.equals(progress.getStatus());
+                boolean changed = progress != null && !Objects.equals(lastSent.get(), progress.getUpdatedAt());
+
+                if (!changed && !finished) return;
+
+                if (finished) {
+                    cancel(poll);
+                }
+
+                sending.set(true);
+                sseSender.execute(() -> {
+                    try {
+                        if (progress == null) {
+                            emitter.send(SseEmitter.event().name("none").data(Map.of("chatbotId", chatbotId, "status", "NONE")));
+                        } else if (changed) {
+                            emitter.send(SseEmitter.event().name("progress").data(progress));
+                            lastSent.set(progress.getUpdatedAt());
+                        }
+
+                        if (finished) {
+                            emitter.complete();
+                        }
+                    } catch (IOException | IllegalStateException e) {
+                        // Client went away
+                        cancel(poll);
+                    } finally {
+                        sending.set(false);
+                    }
+                });
+            } catch (Exception e) {
+                log.error("Error streaming training progress of chatbot {}: {}", chatbotId, e.getMessage(), e);
+                emitter.completeWithError(e);
+                cancel(poll);
+            }
+        }, 0, SSE_POLL_INTERVAL_MS, TimeUnit.MILLISECONDS));
+
+        emitter.onCompletion(() -> cancel(poll));
+        emitter.onTimeout(() -> cancel(poll));
+
+        return emitter;
+    }
+
+    private void cancel(AtomicReference<ScheduledFuture<?>> poll) {
+        ScheduledFuture<?> future = poll.get();
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    private void finish(String taskId, String chatbotId, String status, String error) {
+        Date now = new Date();
+        Update update = new Update()
+                .set("status", status)
+                .set("updatedAt", now)
+                .set("finishedAt", now);
+
+        if (error != null) {
+            update.set("lastError", error);
+        }
+
+        TrainingProgress progress = mongoTemplate.findAndModify(byId(taskId), update,
+                FindAndModifyOptions.options().returnNew(true), TrainingProgress.class);
+
+        if (chatbotId != null && !(COMPLETED.equals(status) && isRelatedTaskTraining(taskId, progress))) {
+            updateChatbotStatus(chatbotId, status);
+        }
+
+        log.info("Training task {} of chatbot {} {}", taskId, chatbotId, status);
+    }
+
+    /**
+     * True if the task's parent, or a task split off it, is still training.
+     */
+    private boolean isRelatedTaskTraining(String taskId, TrainingProgress progress) {
+        String parentTaskId = progress != null && progress.getParentTaskId() != null ? progress.getParentTaskId() : taskId;
+
+        return mongoTemplate.exists(
+                new Query(new Criteria()
+                        .orOperator(Criteria.where("id").is(parentTaskId), Criteria.where("parentTaskId").is(parentTaskId))
+                        .and("id").ne(taskId)
+                        .and("status").is(TRAINING)),
+                TrainingProgress.class
+        );
+    }
+
+    private void updateChatbotStatus(String chatbotId, String status) {
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("id").is(chatbotId).and("status").nin("ACTIVE", "DISABLED")),
+                new Update()
+                        .set("status", status)
+                        .set("updatedAt", new Date()),
+                ChatBot.class
+        );
+    }
+
+    private void update(String taskId, Update update) {
+        mongoTemplate.updateFirst(byId(taskId), update.set("updatedAt", new Date()), TrainingProgress.class);
+    }
+
+    private Query byId(String taskId) {
+        return new Query(Criteria.where("id").is(taskId));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ssePoller.shutdownNow();
+        sseSender.shutdownNow();
+    }
+}
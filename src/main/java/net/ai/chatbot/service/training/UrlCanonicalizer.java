@@ -0,0 +1,96 @@
+package net.ai.chatbot.service.training;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Canonical form of crawled URLs, so variants of a page are loaded once: lower-case scheme and
+ * host, no default port, no fragment, no tracking parameters and the remaining query parameters
+ * sorted. The path is kept as is.
+ */
+public final class UrlCanonicalizer {
+
+    private static final Set<String> TRACKING_PARAMETERS = Set.of(
+            "gclid", "gbraid", "wbraid", "dclid", "fbclid", "msclkid", "yclid", "twclid", "ttclid", "li_fat_id",
+            "igshid", "mc_cid", "mc_eid", "_ga", "_gl", "_hsenc", "_hsmi", "mkt_tok", "ref_src", "srsltid"
+    );
+
+    private static final List<String> TRACKING_PREFIXES = List.of("utm_", "hsa_", "pk_", "mtm_");
+
+    private UrlCanonicalizer() {
+    }
+
+    /**
+     * @return the canonical URL, or the URL unchanged if it can't be parsed
+     */
+    public static String canonicalize(String url) {
+        try {
+            URI uri = new URI(url);
+            if (uri.getScheme() == null || uri.getRawAuthority() == null) {
+                return stripFragment(url);
+            }
+
+            String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+            String host = uri.getHost() == null ? null : uri.getHost().toLowerCase(Locale.ROOT);
+            int port = uri.getPort();
+            if (("http".equals(scheme) && port == 80) || ("https".equals(scheme) && port == 443)) {
+                port = -1;
+            }
+
+            StringBuilder canonical = new StringBuilder(scheme).append("://");
+            if (host == null) {
+                canonical.append(uri.getRawAuthority());
+            } else {
+                canonical.append(host);
+                if (port != -1) {
+                    canonical.append(':').append(port);
+                }
+            }
+
+            if (uri.getRawPath() != null) {
+                canonical.append(uri.getRawPath());
+            }
+
+            String query = canonicalQuery(uri.getRawQuery());
+            if (!query.isEmpty()) {
+                canonical.append('?').append(query);
+            }
+
+            return canonical.toString();
+        } catch (URISyntaxException e) {
+            return stripFragment(url);
+        }
+    }
+
+    private static String canonicalQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return "";
+        }
+
+        List<String> parameters = new ArrayList<>();
+        for (String parameter : rawQuery.split("&")) {
+            if (!parameter.isEmpty() && !isTracking(parameter.split("=", 2)[0])) {
+                parameters.add(parameter);
+            }
+        }
+
+        // By name only, so repeated parameters keep their order
+        parameters.sort(Comparator.comparing(parameter -> parameter.split("=", 2)[0]));
+        return String.join("&", parameters);
+    }
+
+    private static boolean isTracking(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        return TRACKING_PARAMETERS.contains(lower) || TRACKING_PREFIXES.stream().anyMatch(lower::startsWith);
+    }
+
+    private static String stripFragment(String url) {
+        int hashIndex = url.indexOf('#');
+        return hashIndex == -1 ? url : url.substring(0, hashIndex);
+    }
+}
@@ -9,6 +9,8 @@ import com.goikosoft.crawler4j.parser.HtmlParseData;
 import com.goikosoft.crawler4j.robotstxt.RobotstxtConfig;
 import com.goikosoft.crawler4j.robotstxt.RobotstxtServer;
 import com.goikosoft.crawler4j.url.WebURL;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
 import net.ai.chatbot.entity.ScrappedData;
 import net.ai.chatbot.utils.Utils;
 
@@ -17,6 +19,7 @@ import java.util.Set;
 import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
+@Slf4j
 public class WebsiteCrawler extends WebCrawler {
     private final static Pattern EXCLUSIONS = Pattern.compile(".*(\\.(css|js|xml|gif|jpg|png|mp3|mp4|zip|gz|pdf))$");
 
@@ -50,6 +53,8 @@ public class WebsiteCrawler extends WebCrawler {
             String text = htmlParseData.getText();
             Set<WebURL> links = htmlParseData.getOutgoingUrls();
 
+            stats.pageFetched(CrawlerStatistics.FetchMode.STATIC, page.getWebURL().getDepth(), 0);
+            stats.bytesDownloaded(CrawlerStatistics.FetchMode.STATIC, page.getContentData() == null ? 0 : page.getContentData().length);
             stats.incrementTotalLinksCount(links.size());
 
             System.out.println("----------------Scrapper Data :: Start-----------");
@@ -59,6 +64,12 @@ public class WebsiteCrawler extends WebCrawler {
         }
     }
 
+    @Override
+    protected void onUnhandledException(WebURL webUrl, Throwable e) {
+        stats.pageFailed(e);
+        super.onUnhandledException(webUrl, e);
+    }
+
     //Call this to start a new crawler
     public static void crawl(String websiteUrl,
                              String email,
@@ -82,12 +93,15 @@ public class WebsiteCrawler extends WebCrawler {
 
         htmlController.addSeed(websiteUrl);
 
-        CrawlerStatistics stats = new CrawlerStatistics();
+        // Not a Spring bean; the global registry includes the application's
+        CrawlerStatistics stats = new CrawlerStatistics("crawler4j", Metrics.globalRegistry);
 
         CrawlController.WebCrawlerFactory<WebsiteCrawler> htmlFactory = () -> new WebsiteCrawler(stats, websiteUrl, consumer);
 
         htmlController.startNonBlocking(htmlFactory, 10);
         htmlController.waitUntilFinish();
+
+        log.info("Crawl of {} finished: {}", websiteUrl, stats.finish());
     }
 
 }
@@ -0,0 +1,208 @@
+package net.ai.chatbot.controller;
+
+import com.mongodb.client.gridfs.model.GridFSFile;
+import net.ai.chatbot.dto.Attachment;
+import net.ai.chatbot.service.AttachmentStorageService;
+import org.bson.BsonObjectId;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsResource;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HexFormat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class AttachmentDownloadControllerTest {
+
+    private static final byte[] CONTENT = "A stored attachment, served whole or in byte ranges".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    MongoTemplate mongoTemplate;
+
+    @Mock
+    GridFsTemplate gridFsTemplate;
+
+    MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        AttachmentDownloadController controller = new AttachmentDownloadController();
+        ReflectionTestUtils.setField(controller, "attachmentStorageService", new AttachmentStorageService(mongoTemplate, gridFsTemplate));
+
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void shouldServeGridFsContentWithTheUploadSha256AsStrongETag() throws Exception {
+        // given
+        Attachment attachment = uploadToGridFs();
+
+        // when / then
+        mockMvc.perform(get("/api/attachments/download/{fileId}", attachment.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + sha256(CONTENT) + "\""))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    void shouldAnswerRangeOfGridFsContentWithPartialContent() throws Exception {
+        // given
+        Attachment attachment = uploadToGridFs();
+
+        // when / then
+        mockMvc.perform(get("/api/attachments/download/{fileId}", attachment.getId())
+                        .header(HttpHeaders.RANGE, "bytes=2-9"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-9/" + CONTENT.length))
+                .andExpect(content().bytes(Arrays.copyOfRange(CONTENT, 2, 10)));
+    }
+
+    @Test
+    void shouldAnswerMatchingIfNoneMatchOfGridFsContentWithNotModified() throws Exception {
+        // given
+        Attachment attachment = uploadToGridFs();
+
+        // when / then
+        mockMvc.perform(get("/api/attachments/download/{fileId}", attachment.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + sha256(CONTENT) + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+
+        verify(gridFsTemplate, never()).getResource(any(GridFSFile.class));
+    }
+
+    @Test
+    void shouldServeInlineContentWithItsIdAsStrongETag() throws Exception {
+        // given
+        Attachment attachment = storedInline();
+
+        // when / then
+        mockMvc.perform(get("/api/attachments/download/{fileId}", attachment.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"legacy-1\""))
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    void shouldAnswerRangeOfInlineContentWithPartialContent() throws Exception {
+        // given
+        Attachment attachment = storedInline();
+
+        // when / then
+        mockMvc.perform(get("/api/attachments/download/{fileId}", attachment.getId())
+                        .header(HttpHeaders.RANGE, "bytes=-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE,
+                        "bytes " + (CONTENT.length - 5) + "-" + (CONTENT.length - 1) + "/" + CONTENT.length))
+                .andExpect(content().bytes(Arrays.copyOfRange(CONTENT, CONTENT.length - 5, CONTENT.length)));
+    }
+
+    @Test
+    void shouldAnswerMatchingIfNoneMatchOfInlineContentWithNotModified() throws Exception {
+        // given
+        Attachment attachment = storedInline();
+
+        // when / then
+        mockMvc.perform(get("/api/attachments/download/{fileId}", attachment.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"legacy-1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+
+        // Only the metadata lookup; the inline data is never loaded
+        verify(mongoTemplate).findOne(any(Query.class), eq(Attachment.class));
+    }
+
+    /**
+     * Upload through the controller, so the ETag is the hash computed while the content was stored.
+     */
+    private Attachment uploadToGridFs() throws Exception {
+        ObjectId gridFsId = new ObjectId();
+        when(gridFsTemplate.store(any(InputStream.class), eq("report.pdf"), eq("application/pdf"), any(Document.class)))
+                .thenAnswer(invocation -> {
+                    invocation.getArgument(0, InputStream.class).transferTo(OutputStream.nullOutputStream());
+                    return gridFsId;
+                });
+        when(mongoTemplate.save(any(Attachment.class))).thenAnswer(invocation -> {
+            Attachment attachment = invocation.getArgument(0);
+            attachment.setId("file-1");
+            return attachment;
+        });
+
+        mockMvc.perform(multipart("/api/attachments/upload")
+                        .file(new MockMultipartFile("file", "report.pdf", "application/pdf", CONTENT))
+                        .param("chatbotId", "bot-1"))
+                .andExpect(status().isCreated());
+
+        ArgumentCaptor<Attachment> saved = ArgumentCaptor.forClass(Attachment.class);
+        verify(mongoTemplate).save(saved.capture());
+        Attachment attachment = saved.getValue();
+
+        GridFSFile gridFsFile = new GridFSFile(new BsonObjectId(gridFsId), "report.pdf", CONTENT.length, 255 * 1024,
+                attachment.getUploadedAt(), new Document("chatbotId", "bot-1"));
+
+        when(mongoTemplate.findOne(any(Query.class), eq(Attachment.class))).thenReturn(attachment);
+        when(gridFsTemplate.findOne(any(Query.class))).thenReturn(gridFsFile);
+        // A new download stream per read, like GridFsTemplate
+        lenient().when(gridFsTemplate.getResource(gridFsFile))
+                .thenAnswer(invocation -> new GridFsResource(gridFsFile, new ByteArrayInputStream(CONTENT)));
+
+        return attachment;
+    }
+
+    /**
+     * An attachment stored before GridFS: inline data and no content hash.
+     */
+    private Attachment storedInline() {
+        Attachment attachment = Attachment.builder()
+                .id("legacy-1")
+                .chatbotId("bot-1")
+                .name("notes.txt")
+                .type("text/plain")
+                .size(CONTENT.length)
+                .uploadedAt(new Date())
+                .data(CONTENT)
+                .build();
+
+        when(mongoTemplate.findOne(any(Query.class), eq(Attachment.class))).thenReturn(attachment);
+        when(mongoTemplate.exists(any(Query.class), eq(Attachment.class))).thenReturn(true);
+
+        return attachment;
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+}
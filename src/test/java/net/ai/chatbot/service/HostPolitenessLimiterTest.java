@@ -0,0 +1,76 @@
+package net.ai.chatbot.service;
+
+import net.ai.chatbot.service.training.HostPolitenessLimiter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HostPolitenessLimiterTest {
+
+    @Test
+    void shouldLimitConcurrentRequestsPerHost() {
+        // given
+        HostPolitenessLimiter limiter = new HostPolitenessLimiter(2, 0);
+        assertEquals(0, limiter.tryAcquire("example.com"));
+        assertEquals(0, limiter.tryAcquire("example.com"));
+
+        // then: the third waits, other hosts don't
+        assertTrue(limiter.tryAcquire("example.com") > 0);
+        assertEquals(0, limiter.tryAcquire("other.com"));
+
+        // when
+        limiter.release("example.com");
+
+        // then
+        assertEquals(0, limiter.tryAcquire("example.com"));
+    }
+
+    @Test
+    void shouldSpaceRequestsToAHostByTheMinimumDelay() {
+        // given
+        HostPolitenessLimiter limiter = new HostPolitenessLimiter(4, 10_000);
+        assertEquals(0, limiter.tryAcquire("example.com"));
+        limiter.release("example.com");
+
+        // when
+        long waitMs = limiter.tryAcquire("example.com");
+
+        // then
+        assertTrue(waitMs > 0 && waitMs <= 10_000);
+    }
+
+    @Test
+    void shouldAllowOneRequestAtATimeToAHostWithACrawlDelay() {
+        // given
+        HostPolitenessLimiter limiter = new HostPolitenessLimiter(4, 0);
+        limiter.setCrawlDelay("example.com", 5_000);
+        assertEquals(0, limiter.tryAcquire("example.com"));
+
+        // then: busy, then spaced by the crawl-delay once released
+        assertEquals(5_000, limiter.tryAcquire("example.com"));
+        limiter.release("example.com");
+        long waitMs = limiter.tryAcquire("example.com");
+        assertTrue(waitMs > 0 && waitMs <= 5_000);
+
+        // when: the crawl-delay is removed
+        limiter.setCrawlDelay("example.com", 0);
+
+        // then
+        assertEquals(0, limiter.tryAcquire("example.com"));
+    }
+
+    @Test
+    void shouldIgnoreReleasesOfUnknownHostsAndExtraReleases() {
+        // given
+        HostPolitenessLimiter limiter = new HostPolitenessLimiter(1, 0);
+        limiter.release("unknown.com");
+        assertEquals(0, limiter.tryAcquire("example.com"));
+        limiter.release("example.com");
+        limiter.release("example.com");
+
+        // then: still one slot, not two
+        assertEquals(0, limiter.tryAcquire("example.com"));
+        assertTrue(limiter.tryAcquire("example.com") > 0);
+    }
+}
@@ -0,0 +1,100 @@
+package net.ai.chatbot.service;
+
+import net.ai.chatbot.service.training.HtmlSanitizer;
+import net.ai.chatbot.service.training.LegacyHtmlSanitizer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class HtmlSanitizerTest {
+
+    private static final String BASE_URL = "https://www.example-store.com/page";
+
+    private static final String PARAGRAPH = "This paragraph is long enough to keep its section, which needs eighty characters of content.";
+
+    @Test
+    void shouldMatchTheLegacyExtractorOnTheBundledPages() throws IOException {
+        for (String name : new String[]{"blog-article.html", "product-listing.html", "docs-page.html"}) {
+            String html = bundledPage(name);
+
+            assertFalse(HtmlSanitizer.extractSemanticText(html, BASE_URL).isBlank(), name);
+            assertSameText(html);
+        }
+    }
+
+    @Test
+    void shouldMatchTheLegacyExtractorForNestedMainAndArticle() {
+        assertSameText("""
+                <html><body>
+                  <header><h1>Site title</h1></header>
+                  <p>Outside of main, %1$s</p>
+                  <main>
+                    <h1>Main heading</h1>
+                    <p>%1$s</p>
+                    <article>
+                      <h2>Article heading</h2>
+                      <p>Inside the article, %1$s</p>
+                      <img src="/img/article.png" alt="Article image">
+                      <a href="/related">Related</a>
+                    </article>
+                  </main>
+                  <footer><p>Footer, %1$s</p></footer>
+                </body></html>
+                """.formatted(PARAGRAPH));
+    }
+
+    @Test
+    void shouldMatchTheLegacyExtractorWhenTheProductCardIsTheRoot() {
+        assertSameText("""
+                <html><body>
+                  <article class="product-card">
+                    <h2 class="product-title">Stoneware mug</h2>
+                    <span class="price">$24.00</span>
+                    <p class="description">Hand-thrown stoneware mug with a speckled glaze. %s</p>
+                    <img data-src="/img/mug.jpg" alt="Mug">
+                    <a href="/products/mug">View</a>
+                  </article>
+                </body></html>
+                """.formatted(PARAGRAPH));
+    }
+
+    @Test
+    void shouldMatchTheLegacyExtractorWithoutImages() {
+        assertSameText("""
+                <html><body>
+                  <h1>Shipping</h1>
+                  <p>%1$s</p>
+                  <ul><li>Orders ship within two working days of payment, tracked with the carrier.</li></ul>
+                  <h2>Returns</h2>
+                  <p>Too short.</p>
+                  <a href="https://other.example.com/help">Help</a>
+                </body></html>
+                """.formatted(PARAGRAPH));
+    }
+
+    @Test
+    void shouldMatchTheLegacyExtractorWithoutABody() {
+        assertSameText("<p>%s</p><li>%s</li>".formatted(PARAGRAPH, PARAGRAPH));
+        assertSameText("<html><head><title>Empty</title></head></html>");
+        assertSameText("");
+    }
+
+    private static void assertSameText(String html) {
+        String expected = LegacyHtmlSanitizer.mapToSemanticText(LegacyHtmlSanitizer.extractStructuredContent(html, BASE_URL));
+
+        assertEquals(expected, HtmlSanitizer.extractSemanticText(html, BASE_URL));
+    }
+
+    private static String bundledPage(String name) throws IOException {
+        try (InputStream in = HtmlSanitizerTest.class.getResourceAsStream("/pages/" + name)) {
+            assertNotNull(in, name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
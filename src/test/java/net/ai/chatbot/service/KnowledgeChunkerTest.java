@@ -0,0 +1,107 @@
+package net.ai.chatbot.service;
+
+import net.ai.chatbot.entity.KnowledgeChunk;
+import net.ai.chatbot.service.training.KnowledgeChunker;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KnowledgeChunkerTest {
+
+    private static final int OVERLAP_WORDS = 10;
+
+    private final KnowledgeChunker chunker = new KnowledgeChunker(128, OVERLAP_WORDS, 3, 100);
+
+    @Test
+    void shouldReturnNoChunksForBlankText() {
+        assertTrue(chunker.chunk("text:1", null).isEmpty());
+        assertTrue(chunker.chunk("text:1", "  \n ").isEmpty());
+    }
+
+    @Test
+    void shouldNumberChunksOfTheSource() {
+        // when
+        List<KnowledgeChunk> chunks = chunker.chunk("url:https://example.com/faq", longText());
+
+        // then
+        assertTrue(chunks.size() > 2);
+        for (int i = 0; i < chunks.size(); i++) {
+            assertEquals("url:https://example.com/faq", chunks.get(i).sourceId());
+            assertEquals(i, chunks.get(i).chunkIndex());
+        }
+    }
+
+    @Test
+    void shouldStartEachChunkWithTheLastWordsOfThePreviousOne() {
+        // when
+        List<KnowledgeChunk> chunks = chunker.chunk("text:1", longText());
+
+        // then
+        for (int i = 1; i < chunks.size(); i++) {
+            List<String> previous = words(chunks.get(i - 1));
+            List<String> current = words(chunks.get(i));
+
+            assertEquals(previous.subList(previous.size() - OVERLAP_WORDS, previous.size()),
+                    current.subList(0, OVERLAP_WORDS));
+        }
+    }
+
+    @Test
+    void shouldNotOverlapChunksWithoutOverlapWords() {
+        // given
+        KnowledgeChunker withoutOverlap = new KnowledgeChunker(128, 0, 3, 100);
+        String text = longText();
+
+        // when
+        List<KnowledgeChunk> chunks = withoutOverlap.chunk("text:1", text);
+
+        // then: every word of the text appears exactly once across the chunks
+        int words = chunks.stream().mapToInt(chunk -> words(chunk).size()).sum();
+        assertEquals(text.trim().split("\\s+").length, words);
+    }
+
+    @Test
+    void shouldCapBatchesByChunkCount() {
+        // given
+        List<KnowledgeChunk> chunks = List.of(chunk(0, 10), chunk(1, 10), chunk(2, 10), chunk(3, 10));
+
+        // when
+        List<List<KnowledgeChunk>> batches = chunker.batch(chunks);
+
+        // then
+        assertEquals(List.of(chunks.subList(0, 3), chunks.subList(3, 4)), batches);
+    }
+
+    @Test
+    void shouldCapBatchesByCharactersAndIsolateOversizedChunks() {
+        // given: a 100 character cap
+        List<KnowledgeChunk> chunks = List.of(chunk(0, 60), chunk(1, 40), chunk(2, 150), chunk(3, 1));
+
+        // when
+        List<List<KnowledgeChunk>> batches = chunker.batch(chunks);
+
+        // then
+        assertEquals(List.of(chunks.subList(0, 2), chunks.subList(2, 3), chunks.subList(3, 4)), batches);
+    }
+
+    private static KnowledgeChunk chunk(int index, int length) {
+        return new KnowledgeChunk("text:1", index, "x".repeat(length));
+    }
+
+    private static List<String> words(KnowledgeChunk chunk) {
+        return Arrays.asList(chunk.text().trim().split("\\s+"));
+    }
+
+    private static String longText() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            text.append("Question ").append(i).append(" is answered in section ").append(i % 7)
+                    .append(" of the handbook, next to the shipping and returns policy. ");
+        }
+        return text.toString();
+    }
+}
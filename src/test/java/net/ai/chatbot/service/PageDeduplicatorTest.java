@@ -0,0 +1,84 @@
+package net.ai.chatbot.service;
+
+import net.ai.chatbot.entity.KnowledgeBaseManifestEntry;
+import net.ai.chatbot.enums.KnowledgeBaseType;
+import net.ai.chatbot.service.training.PageDeduplicator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PageDeduplicatorTest {
+
+    private static final String WEBSITE = "https://example.com";
+    private static final long HASH = 0x5a5a_f0f0_1234_abcdL;
+
+    @Test
+    void shouldReportPagesWithinMaxDistanceAsDuplicates() {
+        // given
+        PageDeduplicator.Index index = new PageDeduplicator(true, 3).newIndex(Map.of(), WEBSITE);
+        assertNull(index.addIfDistinct("url:/a", HASH));
+
+        // then: 3 bits apart is a duplicate, 4 bits apart is not
+        assertEquals("url:/a", index.addIfDistinct("url:/b", HASH ^ 0b111L));
+        assertNull(index.addIfDistinct("url:/c", HASH ^ 0b1111L));
+    }
+
+    @Test
+    void shouldFindDuplicatesDifferingInEveryBand() {
+        // given: one bit flipped in each of the 4 bands of 16 bits
+        PageDeduplicator.Index index = new PageDeduplicator(true, 3).newIndex(Map.of(), WEBSITE);
+        index.addIfDistinct("url:/a", HASH);
+
+        // then: no band agrees on all 4 flips, but 3 flips leave one band intact
+        assertEquals("url:/a", index.addIfDistinct("url:/b", HASH ^ (1L | 1L << 16 | 1L << 32)));
+        assertNull(index.addIfDistinct("url:/c", HASH ^ (1L | 1L << 16 | 1L << 32 | 1L << 48)));
+    }
+
+    @Test
+    void shouldReplaceTheHashOfAPageAddedAgain() {
+        // given
+        PageDeduplicator.Index index = new PageDeduplicator(true, 3).newIndex(Map.of(), WEBSITE);
+        index.addIfDistinct("url:/a", HASH);
+
+        // when: the page changed completely
+        assertNull(index.addIfDistinct("url:/a", ~HASH));
+
+        // then: its old hash no longer matches
+        assertNull(index.addIfDistinct("url:/b", HASH));
+        assertEquals("url:/a", index.addIfDistinct("url:/c", ~HASH ^ 1L));
+    }
+
+    @Test
+    void shouldPreferPagesOfTheSameWebsiteAlreadyEmbedded() {
+        // given
+        Map<String, KnowledgeBaseManifestEntry> manifest = Map.of(
+                "url:/old", page("url:/old", WEBSITE, HASH),
+                "url:/other", page("url:/other", "https://other.com", ~HASH)
+        );
+        PageDeduplicator.Index index = new PageDeduplicator(true, 3).newIndex(manifest, WEBSITE);
+
+        // then
+        assertEquals("url:/old", index.addIfDistinct("url:/new", HASH ^ 1L));
+        assertNull(index.addIfDistinct("url:/b", ~HASH));
+    }
+
+    @Test
+    void shouldAddEveryPageWhenDisabled() {
+        PageDeduplicator.Index index = new PageDeduplicator(false, 3).newIndex(Map.of(), WEBSITE);
+
+        assertNull(index.addIfDistinct("url:/a", HASH));
+        assertNull(index.addIfDistinct("url:/b", HASH));
+    }
+
+    private static KnowledgeBaseManifestEntry page(String sourceKey, String websiteUrl, long simHash) {
+        return KnowledgeBaseManifestEntry.builder()
+                .sourceKey(sourceKey)
+                .sourceType(KnowledgeBaseType.WEBSITE)
+                .websiteUrl(websiteUrl)
+                .simHash(simHash)
+                .build();
+    }
+}
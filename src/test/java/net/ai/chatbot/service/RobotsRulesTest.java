@@ -0,0 +1,109 @@
+package net.ai.chatbot.service;
+
+import net.ai.chatbot.service.training.RobotsRules;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RobotsRulesTest {
+
+    private static final String USER_AGENT = "Mozilla/5.0 (compatible; ChatbotCrawler/1.0)";
+
+    @Test
+    void shouldLetTheLongestMatchingRuleWin() {
+        // given
+        RobotsRules rules = RobotsRules.parse("""
+                User-agent: *
+                Disallow: /shop
+                Allow: /shop/public
+                """, USER_AGENT);
+
+        // then
+        assertFalse(rules.isAllowed("https://example.com/shop/cart"));
+        assertTrue(rules.isAllowed("https://example.com/shop/public/mugs"));
+        assertTrue(rules.isAllowed("https://example.com/about"));
+    }
+
+    @Test
+    void shouldLetAllowWinATie() {
+        RobotsRules rules = RobotsRules.parse("""
+                User-agent: *
+                Disallow: /page
+                Allow: /page
+                """, USER_AGENT);
+
+        assertTrue(rules.isAllowed("https://example.com/page"));
+    }
+
+    @Test
+    void shouldMatchWildcardsAndEndAnchors() {
+        // given
+        RobotsRules rules = RobotsRules.parse("""
+                User-agent: *
+                Disallow: /*.pdf$
+                Disallow: /*?sort=
+                """, USER_AGENT);
+
+        // then
+        assertFalse(rules.isAllowed("https://example.com/docs/manual.pdf"));
+        assertTrue(rules.isAllowed("https://example.com/docs/manual.pdf?download=1"));
+        assertFalse(rules.isAllowed("https://example.com/list?sort=price"));
+        assertTrue(rules.isAllowed("https://example.com/list?page=2"));
+    }
+
+    @Test
+    void shouldPreferTheGroupOfTheUserAgentOverTheWildcardGroup() {
+        // given
+        String robotsTxt = """
+                User-agent: *
+                Disallow: /
+
+                User-agent: ChatbotCrawler
+                Disallow: /private # staff only
+                """;
+
+        // when
+        RobotsRules ours = RobotsRules.parse(robotsTxt, USER_AGENT);
+        RobotsRules others = RobotsRules.parse(robotsTxt, "OtherBot/2.0");
+
+        // then
+        assertTrue(ours.isAllowed("https://example.com/pricing"));
+        assertFalse(ours.isAllowed("https://example.com/private/report"));
+        assertFalse(others.isAllowed("https://example.com/pricing"));
+    }
+
+    @Test
+    void shouldShareRulesBetweenAgentsOfOneGroup() {
+        RobotsRules rules = RobotsRules.parse("""
+                User-agent: SomeBot
+                User-agent: ChatbotCrawler
+                Disallow: /tmp
+                """, USER_AGENT);
+
+        assertFalse(rules.isAllowed("https://example.com/tmp/file"));
+    }
+
+    @Test
+    void shouldAllowEverythingForAnEmptyDisallow() {
+        RobotsRules rules = RobotsRules.parse("""
+                User-agent: *
+                Disallow:
+                """, USER_AGENT);
+
+        assertTrue(rules.isAllowed("https://example.com/anything"));
+    }
+
+    @Test
+    void shouldReadTheCrawlDelayOfTheWildcardGroup() {
+        assertEquals(2500, RobotsRules.parseCrawlDelayMs("""
+                User-agent: SomeBot
+                Crawl-delay: 30
+
+                User-agent: *
+                Crawl-delay: 2.5
+                """));
+        assertEquals(0, RobotsRules.parseCrawlDelayMs("User-agent: *\nDisallow: /tmp\n"));
+    }
+}
@@ -0,0 +1,55 @@
+package net.ai.chatbot.service;
+
+import net.ai.chatbot.service.training.SimHash;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimHashTest {
+
+    @Test
+    void shouldIgnoreCaseAndPunctuation() {
+        assertEquals(SimHash.of("hello world"), SimHash.of("Hello, World!"));
+    }
+
+    @Test
+    void shouldHashTextWithoutWordsToZero() {
+        assertEquals(0, SimHash.of(""));
+        assertEquals(0, SimHash.of(" -- ... "));
+    }
+
+    @Test
+    void shouldKeepTextsDifferingInOneWordWithinAFewBits() {
+        // given: a long page and the same page with one counter changed
+        String page = page();
+        String edited = page.replace("careers 2 ", "careers 3 ");
+
+        // then
+        assertTrue(SimHash.distance(SimHash.of(page), SimHash.of(edited)) <= 3);
+    }
+
+    @Test
+    void shouldSeparateUnrelatedTexts() {
+        String other = "Our store sells handmade ceramic mugs and bowls, shipped worldwide from the workshop in Porto. "
+                .repeat(50);
+
+        assertTrue(SimHash.distance(SimHash.of(page()), SimHash.of(other)) > 10);
+    }
+
+    @Test
+    void shouldCountDifferingBits() {
+        assertEquals(0, SimHash.distance(0b1011L, 0b1011L));
+        assertEquals(2, SimHash.distance(0b1011L, 0b0001L));
+        assertEquals(64, SimHash.distance(0L, -1L));
+    }
+
+    private static String page() {
+        String[] words = {"shipping", "returns", "careers", "warranty", "cookies", "privacy", "press", "team", "blog", "faq"};
+        StringBuilder page = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            page.append(words[i % 10]).append(' ').append(i).append(' ').append(words[(i * 7) % 10]).append(". ");
+        }
+        return page.toString();
+    }
+}
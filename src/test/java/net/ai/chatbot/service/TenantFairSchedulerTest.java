@@ -0,0 +1,148 @@
+package net.ai.chatbot.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ai.chatbot.enums.TrainingLane;
+import net.ai.chatbot.service.redis.TenantFairScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TenantFairSchedulerTest {
+
+    private TenantFairScheduler scheduler;
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void shouldTakeQueuedTasksRoundRobinAcrossTenants() throws InterruptedException {
+        // given: every worker busy with tenant C
+        scheduler = new TenantFairScheduler(new SimpleMeterRegistry(), 3, 1, 0);
+        Semaphore release = new Semaphore(0);
+        CountDownLatch blockersStarted = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            schedule("C", () -> {
+                blockersStarted.countDown();
+                acquire(release);
+            });
+        }
+        assertTrue(blockersStarted.await(5, TimeUnit.SECONDS));
+
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(3);
+        schedule("A", record(order, "A1", done));
+        schedule("A", record(order, "A2", done));
+        schedule("B", record(order, "B1", done));
+
+        // when: a single worker frees up
+        release.release();
+
+        // then: B doesn't wait behind A's backlog
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("A1", "B1", "A2"), order);
+
+        release.release(2);
+    }
+
+    @Test
+    void shouldGiveReservedWorkerOnlyToTenantsWithNothingRunning() throws InterruptedException {
+        // given: 2 workers, the last one reserved; tenant A runs a task
+        scheduler = new TenantFairScheduler(new SimpleMeterRegistry(), 2, 1, 1);
+        CountDownLatch releaseA1 = new CountDownLatch(1);
+        CountDownLatch a1Started = new CountDownLatch(1);
+        schedule("A", () -> {
+            a1Started.countDown();
+            await(releaseA1);
+        });
+        assertTrue(a1Started.await(5, TimeUnit.SECONDS));
+
+        CountDownLatch a2Started = new CountDownLatch(1);
+        CountDownLatch b1Started = new CountDownLatch(1);
+
+        // when
+        schedule("A", a2Started::countDown);
+        schedule("B", b1Started::countDown);
+
+        // then: B takes the reserved worker, A's second task waits for A's first
+        assertTrue(b1Started.await(5, TimeUnit.SECONDS));
+        assertFalse(a2Started.await(200, TimeUnit.MILLISECONDS));
+
+        releaseA1.countDown();
+        assertTrue(a2Started.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldBufferNoMoreTasksThanTheLaneHasWorkers() throws InterruptedException {
+        // given: the only worker busy and one task buffered
+        scheduler = new TenantFairScheduler(new SimpleMeterRegistry(), 1, 1, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        schedule("A", () -> {
+            started.countDown();
+            await(release);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        schedule("A", () -> {
+        });
+
+        // when
+        CountDownLatch queued = new CountDownLatch(1);
+        Thread consumer = new Thread(() -> {
+            schedule("B", () -> {
+            });
+            queued.countDown();
+        });
+        consumer.start();
+
+        // then: the consumer blocks until a buffered task starts
+        assertFalse(queued.await(200, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        assertTrue(queued.await(5, TimeUnit.SECONDS));
+        consumer.join(5000);
+    }
+
+    private void schedule(String tenant, Runnable task) {
+        try {
+            scheduler.schedule(TrainingLane.BACKGROUND, tenant, new Date(), task);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Runnable record(List<String> order, String name, CountDownLatch done) {
+        return () -> {
+            order.add(name);
+            done.countDown();
+        };
+    }
+
+    private static void acquire(Semaphore semaphore) {
+        try {
+            semaphore.tryAcquire(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package net.ai.chatbot.service;
+
+import org.junit.jupiter.api.Test;
+
+import static net.ai.chatbot.service.training.UrlCanonicalizer.canonicalize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UrlCanonicalizerTest {
+
+    @Test
+    void shouldDropTrackingParametersAndFragment() {
+        assertEquals(
+                "https://example.com/shop?color=red&page=2",
+                canonicalize("https://example.com/shop?utm_source=mail&page=2&gclid=abc&color=red#reviews")
+        );
+    }
+
+    @Test
+    void shouldNormalizeSchemeHostAndDefaultPort() {
+        assertEquals("https://example.com/Docs", canonicalize("HTTPS://Example.COM:443/Docs"));
+        assertEquals("http://example.com:8080/", canonicalize("http://example.com:8080/"));
+    }
+
+    @Test
+    void shouldKeepOrderOfRepeatedParameters() {
+        assertEquals("https://example.com/?tag=b&tag=a", canonicalize("https://example.com/?tag=b&utm_medium=x&tag=a"));
+    }
+}
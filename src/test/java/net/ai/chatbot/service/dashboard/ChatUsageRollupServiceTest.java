@@ -0,0 +1,115 @@
+package net.ai.chatbot.service.dashboard;
+
+import net.ai.chatbot.entity.ChatUsageDaily;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ChatUsageRollupServiceTest {
+
+    private static final String HISTORY_COLLECTION = "n8n_chat_session_histories";
+
+    @Mock
+    MongoTemplate mongoTemplate;
+
+    @Mock
+    BulkOperations bulk;
+
+    @Test
+    void shouldMergeDailyTotalsAndHourlyCountsIntoOneBucketPerChatbotAndDay() {
+        // given
+        List<Document> daily = List.of(
+                row(new Document("chatbotId", "bot1").append("date", "2024-03-01"),
+                        new Document("messages", 5).append("conversations", 2).append("users", 1)),
+                row(new Document("chatbotId", "bot2").append("date", "2024-03-01"),
+                        new Document("messages", 1).append("conversations", 1).append("users", 1))
+        );
+        List<Document> hourly = List.of(
+                row(new Document("chatbotId", "bot1").append("date", "2024-03-01").append("hour", 9), new Document("messages", 3)),
+                row(new Document("chatbotId", "bot1").append("date", "2024-03-01").append("hour", 23), new Document("messages", 2)),
+                row(new Document("chatbotId", "bot2").append("date", "2024-03-01").append("hour", 0), new Document("messages", 1))
+        );
+
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(HISTORY_COLLECTION), eq(Document.class)))
+                .thenAnswer(invocation -> {
+                    Aggregation aggregation = invocation.getArgument(0);
+                    boolean byHour = aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT).toString().contains("$hour");
+                    return new AggregationResults<>(byHour ? hourly : daily, new Document());
+                });
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ChatUsageDaily.class)).thenReturn(bulk);
+
+        // when
+        new ChatUsageRollupService(mongoTemplate).rollup(LocalDate.parse("2024-03-01"), LocalDate.parse("2024-03-01"));
+
+        // then
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(2)).upsert(queries.capture(), updates.capture());
+        verify(bulk).execute();
+
+        Map<String, Document> buckets = new HashMap<>();
+        for (int i = 0; i < queries.getAllValues().size(); i++) {
+            buckets.put(queries.getAllValues().get(i).getQueryObject().getString("id"),
+                    updates.getAllValues().get(i).getUpdateObject().get("$set", Document.class));
+        }
+
+        Document bot1 = buckets.get("bot1_2024-03-01");
+        assertEquals("bot1", bot1.get("chatbotId"));
+        assertEquals(Date.from(Instant.parse("2024-03-01T00:00:00Z")), bot1.get("day"));
+        assertEquals(5L, bot1.get("messages"));
+        assertEquals(2L, bot1.get("conversations"));
+        assertEquals(1L, bot1.get("users"));
+
+        List<?> bot1Hours = bot1.get("hourlyMessages", List.class);
+        assertEquals(24, bot1Hours.size());
+        assertEquals(3L, bot1Hours.get(9));
+        assertEquals(2L, bot1Hours.get(23));
+        assertEquals(0L, bot1Hours.get(10));
+
+        List<?> bot2Hours = buckets.get("bot2_2024-03-01").get("hourlyMessages", List.class);
+        assertEquals(1L, bot2Hours.get(0));
+    }
+
+    @Test
+    void shouldSplitLongRangesIntoWindowsOf31Days() {
+        // given
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(HISTORY_COLLECTION), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(), new Document()));
+
+        // when: 70 days, i.e. windows of 31, 31 and 8 days
+        new ChatUsageRollupService(mongoTemplate).rollup(LocalDate.parse("2024-01-01"), LocalDate.parse("2024-03-10"));
+
+        // then: a daily and an hourly aggregation per window, nothing to write
+        verify(mongoTemplate, times(6)).aggregate(any(Aggregation.class), eq(HISTORY_COLLECTION), eq(Document.class));
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(ChatUsageDaily.class));
+    }
+
+    private static Document row(Document id, Document values) {
+        return values.append("_id", id);
+    }
+}
@@ -0,0 +1,33 @@
+package net.ai.chatbot.service.dashboard;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DashboardServiceTest {
+
+    @Test
+    void shouldSumHourlyBucketsByIndexOfTheHour() {
+        // when
+        List<Document> pipeline = DashboardService.messagesByHourAggregation(List.of("bot1", "bot2"))
+                .toPipeline(Aggregation.DEFAULT_CONTEXT);
+
+        // then
+        assertEquals(3, pipeline.size());
+
+        Document match = pipeline.get(0).get("$match", Document.class);
+        assertEquals(List.of("bot1", "bot2"), match.get("chatbotId", Document.class).get("$in"));
+
+        Document unwind = pipeline.get(1).get("$unwind", Document.class);
+        assertEquals("$hourlyMessages", unwind.get("path"));
+        assertEquals("hour", unwind.get("includeArrayIndex"));
+
+        Document group = pipeline.get(2).get("$group", Document.class);
+        assertEquals("$hour", group.get("_id"));
+        assertEquals(new Document("$sum", "$hourlyMessages"), group.get("count"));
+    }
+}